@@ -0,0 +1,37 @@
+package org.gnubridge.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.deck.Trump;
+import org.gnubridge.presentation.GameUtils;
+
+/**
+ * The deals the benchmarks solve, dealt from a fixed seed so every run on
+ * every machine solves the same ones. The hands only depend on the number of
+ * cards, so a contract in notrump and one in a suit are played with the same
+ * cards.
+ */
+class DealCorpus {
+
+	static final long SEED = 20150117L;
+
+	static final int DEALS = 8;
+
+	private DealCorpus() {
+	}
+
+	static List<Deal> deal(int cardsPerHand, Trump trump) {
+		Random random = new Random(SEED + cardsPerHand);
+		List<Deal> result = new ArrayList<Deal>();
+		for (int i = 0; i < DEALS; i++) {
+			Deal deal = new Deal(trump);
+			GameUtils.initializeRandom(deal, cardsPerHand, random);
+			result.add(deal);
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,129 @@
+package org.gnubridge.search;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.gnubridge.core.Card;
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.deck.Trump;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Deals of DealCorpus solved per second by DoubleDummySolver.search(), for
+ * each combination of SolverConfigurator settings. Alpha-beta pruning is on
+ * throughout: without it deals of more than a few cards take far too long,
+ * -p useAlphaBetaPruning=false still runs it off.
+ * <p>
+ * Each solver starts from an empty position table, cleared outside of the
+ * time measured, so deals do not pick up each other's positions and the
+ * allocation rate is that of the search, not of a new table per deal. Run
+ * with ./gradlew jmh, which adds the GC profiler; narrow it down with ie.
+ * -PjmhArgs='-p cardsPerHand=10 -p trump=NT'.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xms256m")
+public class DoubleDummySolverBenchmark {
+
+	@Param({ "4", "7", "10", "13" })
+	public int cardsPerHand;
+
+	@Param({ "NT", "SPADES" })
+	public String trump;
+
+	@Param({ "true" })
+	public boolean useAlphaBetaPruning;
+
+	@Param({ "true", "false" })
+	public boolean useMoveOrdering;
+
+	@Param({ "true", "false" })
+	public boolean useTrickBounds;
+
+	@Param({ "false", "true" })
+	public boolean useNullWindowSearch;
+
+	@Param({ "false", "true" })
+	public boolean releaseFinishedSubtrees;
+
+	/**
+	 * none, forkJoin for root moves searched on a pool, or helpers for helper
+	 * threads; both use as many threads as there are processors
+	 */
+	@Param({ "none", "forkJoin", "helpers" })
+	public String parallelism;
+
+	private List<Deal> deals;
+
+	private int nextDeal;
+
+	private SolverConfigurator configurator;
+
+	private ForkJoinPool pool;
+
+	private final PositionLookup lookup = new PositionLookup();
+
+	private SolverSession session;
+
+	private Deal deal;
+
+	@Setup(Level.Trial)
+	public void configure() {
+		deals = DealCorpus.deal(cardsPerHand, Trump.instance(trump));
+		configurator = new SolverConfigurator();
+		configurator.setUseAlphaBetaPruning(useAlphaBetaPruning);
+		configurator.setUseMoveOrdering(useMoveOrdering);
+		configurator.setUseTrickBounds(useTrickBounds);
+		configurator.setUseNullWindowSearch(useNullWindowSearch);
+		configurator.setReleaseFinishedSubtrees(releaseFinishedSubtrees);
+		int processors = Runtime.getRuntime().availableProcessors();
+		if ("forkJoin".equals(parallelism)) {
+			pool = new ForkJoinPool(processors);
+			configurator.setForkJoinPool(pool);
+		} else if ("helpers".equals(parallelism)) {
+			configurator.setHelperThreads(Math.max(1, processors - 1));
+		} else if (!"none".equals(parallelism)) {
+			throw new IllegalArgumentException("Unknown parallelism: " + parallelism);
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void nextDeal() {
+		deal = deals.get(nextDeal);
+		nextDeal = (nextDeal + 1) % deals.size();
+		lookup.getTable().clear();
+		session = new SolverSession(configurator, lookup);
+	}
+
+	@TearDown(Level.Trial)
+	public void shutdownPool() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	@Benchmark
+	public List<Card> search() {
+		DoubleDummySolver solver = session.newSolver(deal);
+		solver.setTerminateIfRootOnlyHasOneValidMove(false);
+		solver.search();
+		return solver.getBestMoves();
+	}
+
+}
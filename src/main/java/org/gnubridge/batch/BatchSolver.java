@@ -0,0 +1,350 @@
+package org.gnubridge.batch;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.Direction;
+import org.gnubridge.search.DoubleDummyTable;
+import org.gnubridge.search.PositionLookup;
+import org.gnubridge.search.SolverConfigurator;
+import org.gnubridge.search.TranspositionTable;
+
+/**
+ * Works out the double dummy table of every deal in a file, without the GUI.
+ * Deals are read as they are needed, one per line in DealFormat, or from the
+ * Deal tags of a PBN file; other lines are skipped. They are solved on a pool
+ * of worker threads and each result is written out as soon as the deals
+ * before it are, one line per deal:
+ *
+ * <pre>
+ * number	deal	tricks
+ * </pre>
+ *
+ * where number counts the deals in the file from 1 and tricks are the 20 of
+ * DoubleDummyTable, for north, east, south and west as declarer, each in
+ * clubs, diamonds, hearts, spades and notrump.
+ * <p>
+ * A deal being solved holds a position table per strain, see
+ * DoubleDummyTable. No more deals are handed to the pool than there are
+ * threads, or than half the heap holds tables for, so memory does not grow
+ * with the deals waiting to be written.
+ * <p>
+ * Deals already in the results file are not solved again, so a run that was
+ * stopped picks up where it left off.
+ */
+public class BatchSolver {
+
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+
+	private static final long REPORT_EVERY_MILISECONDS = 10000;
+
+	private final File deals;
+
+	private final File results;
+
+	private final SolverConfigurator configurator;
+
+	private final int threads;
+
+	private PrintStream log = System.out;
+
+	/**
+	 * position tables not in use, taken by a deal while it is solved and put
+	 * back after, so they are allocated once per deal in flight, not per deal
+	 */
+	private final Queue<PositionLookup[]> spareLookups = new ConcurrentLinkedQueue<PositionLookup[]>();
+
+	/**
+	 * one per set of position tables that may be in use, taken before a deal
+	 * is handed to the pool and given back when it is solved
+	 */
+	private Semaphore lookupPermits;
+
+	private int dealsSolved;
+
+	private int dealsSkipped;
+
+	private long start;
+
+	private long lastReport;
+
+	public BatchSolver(File deals, File results) {
+		this(deals, results, SolverConfigurator.Default, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param threads size of the pool; the strains of a deal are searched on
+	 *            it as well, see DoubleDummyTable
+	 */
+	public BatchSolver(File deals, File results, SolverConfigurator configurator, int threads) {
+		this.deals = deals;
+		this.results = results;
+		this.configurator = configurator;
+		this.threads = threads;
+	}
+
+	/**
+	 * where progress and deals that could not be solved are reported
+	 */
+	public void setLog(PrintStream log) {
+		this.log = log;
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 2 || args.length > 3) {
+			System.err.println("Usage: BatchSolver <deals file> <results file> [threads]");
+			System.exit(1);
+		}
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		new BatchSolver(new File(args[0]), new File(args[1]), SolverConfigurator.Default, threads).run();
+	}
+
+	/**
+	 * @return number of deals solved, not counting those already in the
+	 *         results file
+	 */
+	public int run() throws IOException, InterruptedException {
+		Set<Integer> solved = readSolved();
+		dealsSolved = 0;
+		dealsSkipped = 0;
+		start = System.currentTimeMillis();
+		lastReport = start;
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		lookupPermits = new Semaphore(maxLookupSets());
+		Deque<DealSearch> searches = new ArrayDeque<DealSearch>();
+		BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(deals), CHARSET));
+		Writer out = openResults();
+		try {
+			int number = 0;
+			for (String line = in.readLine(); line != null; line = in.readLine()) {
+				String deal = dealIn(line);
+				if (deal == null) {
+					continue;
+				}
+				number++;
+				if (solved.contains(number)) {
+					dealsSkipped++;
+					continue;
+				}
+				DealSearch search;
+				try {
+					search = new DealSearch(number, deal, DealFormat.parse(deal));
+				} catch (IllegalArgumentException e) {
+					log.println("Deal " + number + " not solved: " + e.getMessage());
+					continue;
+				}
+				lookupPermits.acquire();
+				pool.execute(search);
+				searches.add(search);
+				if (searches.size() >= 2 * threads) {
+					write(searches.remove(), out);
+				}
+			}
+			while (!searches.isEmpty()) {
+				write(searches.remove(), out);
+			}
+		} finally {
+			pool.shutdownNow();
+			in.close();
+			out.close();
+		}
+		report();
+		return dealsSolved;
+	}
+
+	/**
+	 * @return sets of position tables to allocate at most: one per thread, or
+	 *         fewer if they would take more than half the heap
+	 */
+	int maxLookupSets() {
+		long setBytes = DoubleDummyTable.STRAINS.length * TranspositionTable.DEFAULT_SIZE_MB * 1024L * 1024L;
+		long fit = Runtime.getRuntime().maxMemory() / 2 / setBytes;
+		return (int) Math.max(1, Math.min(threads, fit));
+	}
+
+	/**
+	 * @return the deal on the line, or null if there is none
+	 */
+	static String dealIn(String line) {
+		String result = line.trim();
+		if (result.startsWith("[")) {
+			if (!result.startsWith("[Deal ")) {
+				return null;
+			}
+			int open = result.indexOf('"');
+			int close = result.lastIndexOf('"');
+			if (open < 0 || close <= open) {
+				return null;
+			}
+			result = result.substring(open + 1, close).trim();
+		}
+		if (result.length() < 2 || result.charAt(1) != ':') {
+			return null;
+		}
+		return result;
+	}
+
+	private void write(DealSearch search, Writer out) throws IOException, InterruptedException {
+		try {
+			search.get();
+		} catch (ExecutionException e) {
+			log.println("Deal " + search.number + " not solved: " + e.getCause());
+			return;
+		}
+		out.write(search.number + "\t" + search.deal + "\t" + formatTricks(search.table) + "\n");
+		out.flush();
+		dealsSolved++;
+		if (System.currentTimeMillis() - lastReport >= REPORT_EVERY_MILISECONDS) {
+			report();
+		}
+	}
+
+	private void report() {
+		lastReport = System.currentTimeMillis();
+		double seconds = Math.max(1, lastReport - start) / 1000.0;
+		String skipped = dealsSkipped > 0 ? " (" + dealsSkipped + " solved before)" : "";
+		log.println(String.format("Solved %d deals%s in %.1f s, %.2f deals/sec", dealsSolved, skipped, seconds,
+				dealsSolved / seconds));
+	}
+
+	static String formatTricks(DoubleDummyTable table) {
+		String result = "";
+		for (int i = 0; i < 4; i++) {
+			Direction declarer = Direction.instance((Direction.NORTH_DEPRECATED + i) % 4);
+			for (int strain = 0; strain < DoubleDummyTable.STRAINS.length; strain++) {
+				if (!result.isEmpty()) {
+					result += " ";
+				}
+				result += table.getTricks(DoubleDummyTable.STRAINS[strain], declarer);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return numbers of the deals with a complete line in the results file
+	 */
+	private Set<Integer> readSolved() throws IOException {
+		Set<Integer> result = new HashSet<Integer>();
+		if (!results.exists()) {
+			return result;
+		}
+		BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(results), CHARSET));
+		int lastNumber = -1;
+		try {
+			for (String line = in.readLine(); line != null; line = in.readLine()) {
+				lastNumber = solvedOn(line);
+				if (lastNumber > 0) {
+					result.add(lastNumber);
+				}
+			}
+		} finally {
+			in.close();
+		}
+		if (lastNumber > 0 && !endsWithNewLine(results)) {
+			// the line was cut short, its tricks may be as well
+			result.remove(lastNumber);
+		}
+		return result;
+	}
+
+	/**
+	 * @return number of the deal a results line is for, or -1 if it is not one
+	 */
+	private static int solvedOn(String line) {
+		String[] fields = line.split("\t");
+		if (fields.length != 3 || fields[2].trim().split(" ").length != 4 * DoubleDummyTable.STRAINS.length) {
+			return -1;
+		}
+		try {
+			return Integer.parseInt(fields[0]);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private static boolean endsWithNewLine(File file) throws IOException {
+		if (file.length() == 0) {
+			return true;
+		}
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			in.seek(in.length() - 1);
+			return in.read() == '\n';
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Opens the results file to add to it. A line cut short when the last run
+	 * stopped is ended first, so it is left on a line of its own.
+	 */
+	private Writer openResults() throws IOException {
+		boolean endLine = results.exists() && !endsWithNewLine(results);
+		Writer result = new OutputStreamWriter(new FileOutputStream(results, true), CHARSET);
+		if (endLine) {
+			result.write("\n");
+		}
+		return result;
+	}
+
+	private class DealSearch extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int number;
+
+		private final String deal;
+
+		private final Deal game;
+
+		private DoubleDummyTable table;
+
+		DealSearch(int number, String deal, Deal game) {
+			this.number = number;
+			this.deal = deal;
+			this.game = game;
+		}
+
+		@Override
+		protected void compute() {
+			PositionLookup[] lookups = spareLookups.poll();
+			if (lookups == null) {
+				lookups = DoubleDummyTable.newLookups();
+			}
+			boolean solved = false;
+			try {
+				table = DoubleDummyTable.solve(game, configurator, getPool(), lookups);
+				solved = true;
+			} finally {
+				// the lookups of a deal that failed are dropped, not reused
+				if (solved) {
+					spareLookups.add(lookups);
+				}
+				lookupPermits.release();
+			}
+		}
+	}
+
+}
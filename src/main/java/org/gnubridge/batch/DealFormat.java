@@ -0,0 +1,109 @@
+package org.gnubridge.batch;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.gnubridge.core.Card;
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.Direction;
+import org.gnubridge.core.deck.NoTrump;
+import org.gnubridge.core.deck.Suit;
+
+/**
+ * Deals as PBN writes them: the seat of the first hand, a colon, then the
+ * hands going clockwise, each its spades, hearts, diamonds and clubs separated
+ * by dots, ie. N:AKQ.JT9.876.5432 ... Hands may hold fewer than 13 cards as
+ * long as they all hold the same number.
+ */
+public class DealFormat {
+
+	private static final String SEATS = "WNES";
+
+	private static final String VALUES = "23456789TJQKA";
+
+	private static final String SUITS = "SHDC";
+
+	private DealFormat() {
+	}
+
+	/**
+	 * @return the deal in notrump, west to play
+	 */
+	public static Deal parse(String text) {
+		String deal = text.trim();
+		if (deal.length() < 2 || deal.charAt(1) != ':' || SEATS.indexOf(Character.toUpperCase(deal.charAt(0))) < 0) {
+			throw new IllegalArgumentException("Deal should start with a seat and a colon, ie. N:, got: " + text);
+		}
+		String[] hands = deal.substring(2).trim().split("\\s+");
+		if (hands.length != 4) {
+			throw new IllegalArgumentException("Deal should have 4 hands, got: " + text);
+		}
+		Deal result = new Deal(NoTrump.i());
+		Set<Integer> dealt = new HashSet<Integer>();
+		int seat = SEATS.indexOf(Character.toUpperCase(deal.charAt(0)));
+		int cardsPerHand = -1;
+		for (String hand : hands) {
+			List<Card> cards = parseHand(hand);
+			if (cardsPerHand >= 0 && cards.size() != cardsPerHand) {
+				throw new IllegalArgumentException("Hands should hold the same number of cards, got: " + text);
+			}
+			cardsPerHand = cards.size();
+			for (Card card : cards) {
+				if (!dealt.add(card.getIndex())) {
+					throw new IllegalArgumentException(card + " is dealt twice in: " + text);
+				}
+			}
+			result.getPlayer(seat).init(cards);
+			seat = (seat + 1) % 4;
+		}
+		return result;
+	}
+
+	private static List<Card> parseHand(String hand) {
+		String[] suits = hand.split("\\.", -1);
+		if (suits.length != 4) {
+			throw new IllegalArgumentException("Hand should have 4 suits separated by dots, got: " + hand);
+		}
+		List<Card> result = new ArrayList<Card>();
+		for (int i = 0; i < suits.length; i++) {
+			for (char value : suits[i].toUpperCase().toCharArray()) {
+				if (value == '-') {
+					continue;
+				}
+				if (VALUES.indexOf(value) < 0) {
+					throw new IllegalArgumentException("Not a card value: '" + value + "' in hand: " + hand);
+				}
+				result.add(Card.get("" + value + SUITS.charAt(i)));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the cards each player holds, north first
+	 */
+	public static String format(Deal deal) {
+		String result = "N:";
+		for (int i = 0; i < 4; i++) {
+			int seat = (Direction.NORTH_DEPRECATED + i) % 4;
+			if (i > 0) {
+				result += " ";
+			}
+			List<Card> cards = deal.getPlayer(seat).getHand();
+			for (int suit = 0; suit < Suit.list.length; suit++) {
+				if (suit > 0) {
+					result += ".";
+				}
+				for (int value = Card.ACE; value >= Card.TWO; value--) {
+					if (cards.contains(new Card(value, Suit.list[suit]))) {
+						result += VALUES.charAt(value - Card.TWO);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+}
@@ -118,6 +118,14 @@ public class Player {
 
 	}
 
+	/**
+	 * @return tricks won, in the order they were played; not kept by
+	 *         Deal.duplicate()
+	 */
+	public List<Trick> getTricksTaken() {
+		return tricks;
+	}
+
 	public List<Card> getPossibleMoves(Trick trick) {
 		List<Card> matching = new ArrayList<Card>();
 		for (Card card : hand) {
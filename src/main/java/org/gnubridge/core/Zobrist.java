@@ -0,0 +1,52 @@
+package org.gnubridge.core;
+
+import java.util.Random;
+
+/**
+ * Random numbers XORed together into a 64 bit position key, one per relative
+ * rank and holder of an unplayed card, one per player to move and one per
+ * trump suit. The seed is fixed so keys are the same from one run to the next.
+ */
+public final class Zobrist {
+
+	private static final long SEED = 0x6E0B81D6EL;
+
+	private static final long[] nextToPlay = new long[4];
+
+	private static final long[] holdings = new long[4 * (Card.ACE + 1) * 4];
+
+	private static final long[] trumps = new long[4];
+
+	static {
+		Random random = new Random(SEED);
+		for (int i = 0; i < nextToPlay.length; i++) {
+			nextToPlay[i] = random.nextLong();
+		}
+		for (int i = 0; i < holdings.length; i++) {
+			holdings[i] = random.nextLong();
+		}
+		for (int i = 0; i < trumps.length; i++) {
+			trumps[i] = random.nextLong();
+		}
+	}
+
+	private Zobrist() {
+	}
+
+	public static long nextToPlay(int direction) {
+		return nextToPlay[direction];
+	}
+
+	/**
+	 * @param rank position of the card among the cards of its suit still
+	 *            unplayed, 0 being the highest
+	 */
+	public static long holding(int suit, int rank, int direction) {
+		return holdings[(suit * (Card.ACE + 1) + rank) * 4 + direction];
+	}
+
+	public static long trump(int suit) {
+		return trumps[suit];
+	}
+
+}
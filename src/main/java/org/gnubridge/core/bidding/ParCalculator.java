@@ -0,0 +1,204 @@
+package org.gnubridge.core.bidding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.gnubridge.core.Direction;
+import org.gnubridge.core.Player;
+import org.gnubridge.core.deck.Clubs;
+import org.gnubridge.core.deck.Diamonds;
+import org.gnubridge.core.deck.Hearts;
+import org.gnubridge.core.deck.NoTrump;
+import org.gnubridge.core.deck.Spades;
+import org.gnubridge.core.deck.Trump;
+
+/**
+ * Par of a deal from its double dummy tricks: the score both pairs reach
+ * bidding as well as they can, each outbidding the other while it pays to,
+ * sacrifices included. A contract that goes down is doubled.
+ * <p>
+ * The pairs bid in turn from the dealer's, and the auction is worked back from
+ * 7NT: at each contract the pair to bid either passes, leaving it to stand,
+ * or bids one of the higher contracts, whichever scores best for it. Scores
+ * come from ScoreCalculator, worked out once for every contract and number of
+ * tricks, so finding par takes no more than a few thousand table lookups.
+ */
+public class ParCalculator {
+
+	/**
+	 * in the order they rank at the same level
+	 */
+	public static final Trump[] STRAINS = { Clubs.i(), Diamonds.i(), Hearts.i(), Spades.i(), NoTrump.i() };
+
+	private static final int CONTRACTS = 7 * STRAINS.length;
+
+	private static final int PASSED_OUT = -1;
+
+	/**
+	 * declarer's score less defenders', by declarer's vulnerability, contract
+	 * and tricks taken
+	 */
+	private static final int[][][] SCORES = new int[2][CONTRACTS][14];
+	static {
+		for (int vulnerable = 0; vulnerable < 2; vulnerable++) {
+			Vulnerability vulnerability = new Vulnerability(vulnerable == 1, false);
+			for (int contract = 0; contract < CONTRACTS; contract++) {
+				for (int tricks = 0; tricks <= 13; tricks++) {
+					Bid bid = bid(contract);
+					if (tricks < level(contract) + 6) {
+						bid.makeDoubled();
+					}
+					ScoreCalculator score = new ScoreCalculator(bid, tricks, vulnerability);
+					SCORES[vulnerable][contract][tricks] = score.getDeclarerScore() - score.getDefenderScore();
+				}
+			}
+		}
+	}
+
+	private final int[][] tricks = new int[2][STRAINS.length];
+
+	private final boolean[] vulnerable = new boolean[2];
+
+	private int northSouthScore;
+
+	private final List<ParContract> parContracts = new ArrayList<ParContract>();
+
+	private int bestValue;
+
+	private long bestNorthSouthContracts;
+
+	private long bestWestEastContracts;
+
+	/**
+	 * @param tricksByStrainAndDeclarer tricks each player takes as declarer,
+	 *            by strain in STRAINS order then by Direction value, as
+	 *            DoubleDummyTable works them out
+	 * @param vulnerability where north-south are us
+	 */
+	public ParCalculator(int[][] tricksByStrainAndDeclarer, UsThemVulnerability vulnerability, Direction dealer) {
+		for (int strain = 0; strain < STRAINS.length; strain++) {
+			for (int declarer = Direction.WEST_DEPRECATED; declarer <= Direction.SOUTH_DEPRECATED; declarer++) {
+				int pair = Player.matchPair(declarer);
+				tricks[pair][strain] = Math.max(tricks[pair][strain], tricksByStrainAndDeclarer[strain][declarer]);
+			}
+		}
+		vulnerable[Player.NORTH_SOUTH] = vulnerability.areWeVulnerable();
+		vulnerable[Player.WEST_EAST] = vulnerability.areTheyVulnerable();
+		calculatePar(Player.matchPair(dealer.getValue()));
+	}
+
+	/**
+	 * value[contract * 2 + pair] is the north-south score when the contract
+	 * was bid last, by the other pair, and pair is to bid;
+	 * northSouthContracts[...] and westEastContracts[...] hold the contracts
+	 * the auction can end in from there, one bit per contract.
+	 */
+	private void calculatePar(int dealerPair) {
+		int[] value = new int[CONTRACTS * 2];
+		long[] northSouthContracts = new long[CONTRACTS * 2];
+		long[] westEastContracts = new long[CONTRACTS * 2];
+		for (int contract = CONTRACTS - 1; contract >= 0; contract--) {
+			for (int pair = 0; pair < 2; pair++) {
+				int declarer = 1 - pair;
+				long declared = 1L << contract;
+				outbid(pair, contract, value, northSouthContracts, westEastContracts, northSouthScore(declarer,
+						contract), declarer == Player.NORTH_SOUTH ? declared : 0,
+						declarer == Player.WEST_EAST ? declared : 0);
+				value[contract * 2 + pair] = bestValue;
+				northSouthContracts[contract * 2 + pair] = bestNorthSouthContracts;
+				westEastContracts[contract * 2 + pair] = bestWestEastContracts;
+			}
+		}
+		// four passes end the auction before anyone bids
+		bestValue = 0;
+		bestNorthSouthContracts = 0;
+		bestWestEastContracts = 0;
+		for (int passes = 3; passes >= 0; passes--) {
+			int pair = passes % 2 == 0 ? dealerPair : 1 - dealerPair;
+			outbid(pair, PASSED_OUT, value, northSouthContracts, westEastContracts, bestValue,
+					bestNorthSouthContracts, bestWestEastContracts);
+		}
+		northSouthScore = bestValue;
+		addParContracts(Player.NORTH_SOUTH, bestNorthSouthContracts);
+		addParContracts(Player.WEST_EAST, bestWestEastContracts);
+	}
+
+	/**
+	 * Lets pair either pass, for the value and contracts given, or bid any
+	 * contract above the one bid last, and keeps the best for it. Of bids
+	 * scoring the same all are kept, and they are kept over passing: a pair
+	 * outbids the other when it costs nothing, so sacrifices are taken over
+	 * the contract they are against, not before it.
+	 */
+	private void outbid(int pair, int lastContract, int[] value, long[] northSouthContracts,
+			long[] westEastContracts, int passValue, long passNorthSouthContracts, long passWestEastContracts) {
+		bestValue = passValue;
+		bestNorthSouthContracts = passNorthSouthContracts;
+		bestWestEastContracts = passWestEastContracts;
+		boolean bidding = false;
+		int sign = pair == Player.NORTH_SOUTH ? 1 : -1;
+		for (int contract = lastContract + 1; contract < CONTRACTS; contract++) {
+			int next = contract * 2 + 1 - pair;
+			if (sign * value[next] > sign * bestValue || (value[next] == bestValue && !bidding)) {
+				bestValue = value[next];
+				bestNorthSouthContracts = northSouthContracts[next];
+				bestWestEastContracts = westEastContracts[next];
+				bidding = true;
+			} else if (value[next] == bestValue) {
+				bestNorthSouthContracts |= northSouthContracts[next];
+				bestWestEastContracts |= westEastContracts[next];
+			}
+		}
+	}
+
+	/**
+	 * of contracts scoring the same in a strain, the lowest
+	 */
+	private void addParContracts(int pair, long contracts) {
+		for (int strain = 0; strain < STRAINS.length; strain++) {
+			for (int contract = strain; contract < CONTRACTS; contract += STRAINS.length) {
+				if ((contracts & (1L << contract)) != 0) {
+					parContracts.add(parContract(pair, contract));
+					break;
+				}
+			}
+		}
+	}
+
+	private int northSouthScore(int pair, int contract) {
+		int score = SCORES[vulnerable[pair] ? 1 : 0][contract][tricks[pair][contract % STRAINS.length]];
+		return pair == Player.NORTH_SOUTH ? score : -score;
+	}
+
+	private ParContract parContract(int pair, int contract) {
+		int declarerTricks = tricks[pair][contract % STRAINS.length];
+		Bid bid = bid(contract);
+		if (declarerTricks < level(contract) + 6) {
+			bid.makeDoubled();
+		}
+		return new ParContract(bid, pair, declarerTricks);
+	}
+
+	private static Bid bid(int contract) {
+		return new Bid(level(contract), STRAINS[contract % STRAINS.length]);
+	}
+
+	private static int level(int contract) {
+		return contract / STRAINS.length + 1;
+	}
+
+	/**
+	 * @return par score, positive when north-south gain
+	 */
+	public int getNorthSouthScore() {
+		return northSouthScore;
+	}
+
+	/**
+	 * @return contracts par is reached in, none when the deal is passed out
+	 */
+	public List<ParContract> getParContracts() {
+		return parContracts;
+	}
+
+}
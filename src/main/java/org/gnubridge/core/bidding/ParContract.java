@@ -0,0 +1,53 @@
+package org.gnubridge.core.bidding;
+
+import org.gnubridge.core.Player;
+
+/**
+ * A contract par is reached in: the bid, doubled when it goes down, the pair
+ * declaring it and the tricks they take.
+ */
+public class ParContract {
+
+	private final Bid bid;
+
+	private final int pair;
+
+	private final int tricks;
+
+	public ParContract(Bid bid, int pair, int tricks) {
+		this.bid = bid;
+		this.pair = pair;
+		this.tricks = tricks;
+	}
+
+	public Bid getBid() {
+		return bid;
+	}
+
+	/**
+	 * @return Player.NORTH_SOUTH or Player.WEST_EAST
+	 */
+	public int getPair() {
+		return pair;
+	}
+
+	public int getTricks() {
+		return tricks;
+	}
+
+	/**
+	 * ie. 4 SPADES by NS +1, 5 CLUBS (Doubled) by WE -2
+	 */
+	@Override
+	public String toString() {
+		String result = bid.longDescription() + " by " + (pair == Player.NORTH_SOUTH ? "NS" : "WE");
+		int overTricks = tricks - bid.getValue() - 6;
+		if (overTricks > 0) {
+			result += " +" + overTricks;
+		} else if (overTricks < 0) {
+			result += " " + overTricks;
+		}
+		return result;
+	}
+
+}
@@ -96,7 +96,8 @@ public class ScoreCalculator {
 				if (highBid.isDoubled()) {
 					defenderPoints += 100;
 					if (underTricks > 1) {
-						defenderPoints += 200 + (underTricks - 2) * 300;
+						/* 200 each for the second and third, 300 after */
+						defenderPoints += Math.min(underTricks - 1, 2) * 200 + Math.max(underTricks - 3, 0) * 300;
 					}
 				} else {
 					defenderPoints += underTricks * 50;
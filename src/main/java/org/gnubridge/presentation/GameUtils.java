@@ -2,6 +2,7 @@ package org.gnubridge.presentation;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import org.gnubridge.core.Card;
 import org.gnubridge.core.Direction;
@@ -51,19 +52,30 @@ public class GameUtils {
 	}
 	
 	public static void initializeRandom(List<Player> players, int cardCount) {
+		initializeRandom(players, cardCount, new Random());
+	}
+
+	/**
+	 * deals the same hands every time random starts from the same seed
+	 */
+	public static void initializeRandom(Deal g, int cardCount, Random random) {
+		initializeRandom(g.getPlayers(), cardCount, random);
+	}
+
+	public static void initializeRandom(List<Player> players, int cardCount, Random random) {
 		List<Card> deck = buildDeck();
 		for (Player player : players) {
 			List<Card> hand = new ArrayList<Card>();
 			for(int j=0; j < cardCount; j++) {
-				hand.add(dealRandom(deck));
+				hand.add(dealRandom(deck, random));
 			}
 			player.init(hand);
 			
 		}		
 	}
 
-	private static Card dealRandom(List<Card> deck) {
-		int selection = (int) Math.floor(Math.random() * deck.size());
+	private static Card dealRandom(List<Card> deck, Random random) {
+		int selection = random.nextInt(deck.size());
 		Card card = deck.get(selection);
 		deck.remove(selection);
 		return card;
@@ -1,8 +1,6 @@
 package org.gnubridge.presentation.gui;
 
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.Random;
 
 import org.gnubridge.core.Card;
 import org.gnubridge.core.Deal;
@@ -10,8 +8,12 @@ import org.gnubridge.core.Direction;
 import org.gnubridge.core.North;
 import org.gnubridge.core.South;
 import org.gnubridge.core.bidding.Bid;
+import org.gnubridge.search.Deadline;
 import org.gnubridge.search.DoubleDummySolver;
+import org.gnubridge.search.MonteCarloPlayer;
 import org.gnubridge.search.ProductionSettings;
+import org.gnubridge.search.ProgressListener;
+import org.gnubridge.search.SolverSession;
 import org.jdesktop.swingworker.SwingWorker;
 
 public class DealController implements CardPlayedListener {
@@ -19,7 +21,6 @@ public class DealController implements CardPlayedListener {
 	public static int MAX_SECONDS_TO_MOVE = 15;
 	long start = -1;
 	private static final int MILISECONDS_PER_SECOND = 1000;
-	private static final long RIDICULOUSLY_LONG_WAIT_TIME = 100000000;
 	private final long TIME_ALLOTED_PER_MOVE = MAX_SECONDS_TO_MOVE * MILISECONDS_PER_SECOND;
 
 	public class Clock extends Thread {
@@ -39,25 +40,37 @@ public class DealController implements CardPlayedListener {
 		}
 	}
 
-	public class SearchController extends SwingWorker<Void, String> {
+	/**
+	 * Searches one trick deeper at a time until the time for the move is up,
+	 * each search estimating the tricks past the ones it plays out.
+	 * The best move is updated as soon as a search finds one, so a search
+	 * cut short by the deadline still counts for the moves it got through.
+	 * Cancelling interrupts the thread, which stops the solver too.
+	 * <p>
+	 * With single dummy play the computer does not look at the hands it
+	 * cannot see: after a quick search for a move to fall back on, layouts of
+	 * them are sampled until the time is up, see MonteCarloPlayer.
+	 */
+	public class SearchController extends SwingWorker<Void, String> implements ProgressListener {
 		private static final int COMPUTER_PLAYER_FINISHED_THINKING = -1;
-		Card bestMove;
+		volatile Card bestMove;
 
 		@Override
 		protected Void doInBackground() throws Exception {
 			start = System.currentTimeMillis();
-			bestMove = findBestMoveAtDepth(1, RIDICULOUSLY_LONG_WAIT_TIME);
+			Deadline deadline = Deadline.in(TIME_ALLOTED_PER_MOVE);
+			searchAtDepth(1, Deadline.NONE);
+			if (ProductionSettings.isSingleDummyPlay()) {
+				sampleLayouts(deadline);
+				start = COMPUTER_PLAYER_FINISHED_THINKING;
+				return null;
+			}
 			for (int tricksSearchDepth = 2; tricksSearchDepth <= ProductionSettings.getSearchDepthRecommendation(game); tricksSearchDepth++) {
-				long timePassedSinceStart = System.currentTimeMillis() - start;
-				long timeRemaining = TIME_ALLOTED_PER_MOVE - timePassedSinceStart;
-				if (!haveEnoughTimeToAttemptNextSearch(timeRemaining)) {
-					System.out.println("// not enough time to attempt next search");
+				if (deadline.hasPassed() || isCancelled()) {
 					break;
 				}
 				System.out.println("// now searching depth: " + tricksSearchDepth);
-				try {
-					bestMove = findBestMoveAtDepth(tricksSearchDepth, timeRemaining);
-				} catch (TimeoutException e) {
+				if (!searchAtDepth(tricksSearchDepth, deadline)) {
 					System.out.println("// could not complete full search of depth " + tricksSearchDepth
 							+ ", current best: " + bestMove);
 					break;
@@ -67,38 +80,35 @@ public class DealController implements CardPlayedListener {
 			return null;
 		}
 
-		private boolean haveEnoughTimeToAttemptNextSearch(long timeRemaining) {
-			return timeRemaining > TIME_ALLOTED_PER_MOVE * 2 / 3;
+		private boolean searchAtDepth(int tricksSearchDepth, Deadline deadline) {
+			DoubleDummySolver search = solverSession.newSolver(game);
+			search.setMaxTricks(tricksSearchDepth);
+			Card move = search.search(deadline, this);
+			if (bestMove == null) {
+				bestMove = move;
+			}
+			return search.isCompleted();
 		}
 
-		private Card findBestMoveAtDepth(int tricksSearchDepth, long timeoutMs) throws InterruptedException,
-				ExecutionException, TimeoutException {
-			SearchWorker searchWorker = new SearchWorker(tricksSearchDepth);
-			searchWorker.execute();
-			return searchWorker.get(timeoutMs, TimeUnit.MILLISECONDS);
+		private void sampleLayouts(Deadline deadline) {
+			MonteCarloPlayer player = new MonteCarloPlayer(ProductionSettings.getSamplingConfigurator(),
+					ProductionSettings.getSamplingPool(), new Random());
+			player.setMaxTricks(ProductionSettings.getSingleDummySearchDepthRecommendation(game));
+			Card move = player.choose(game, deadline);
+			System.out.println("// sampled " + player.getSamplesSolved() + " layouts, best: " + move);
+			if (move != null) {
+				bestMove = move;
+			}
 		}
 
 		@Override
-		public void done() {
-			playCard(bestMove);
-		}
-	}
-
-	public class SearchWorker extends SwingWorker<Card, String> {
-		DoubleDummySolver search;
-		private final int maxTricksSearchDepth;
-
-		public SearchWorker(int maxTricksSearchDepth) {
-			this.maxTricksSearchDepth = maxTricksSearchDepth;
-
+		public void bestMoveFound(Card move, int tricks, int positionsExamined) {
+			bestMove = move;
 		}
 
 		@Override
-		protected Card doInBackground() throws Exception {
-			search = new DoubleDummySolver(game);
-			search.setMaxTricks(maxTricksSearchDepth);
-			search.search();
-			return search.getBestMoves().get(0);
+		public void done() {
+			playCard(bestMove);
 		}
 	}
 
@@ -131,6 +141,7 @@ public class DealController implements CardPlayedListener {
 	private final DealView view;
 	private final ScoringTracker scoringTracker;
 	private final Bid highBid;
+	private final SolverSession solverSession = new SolverSession(ProductionSettings.getSolverConfigurator());
 	private SearchController searchThread;
 	private Clock clockThread;
 
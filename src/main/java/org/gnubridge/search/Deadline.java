@@ -0,0 +1,31 @@
+package org.gnubridge.search;
+
+/**
+ * The time a search has to give its answer by.
+ */
+public class Deadline {
+
+	public static final Deadline NONE = new Deadline(Long.MAX_VALUE);
+
+	private final long nanoTime;
+
+	private Deadline(long nanoTime) {
+		this.nanoTime = nanoTime;
+	}
+
+	public static Deadline in(long miliseconds) {
+		return new Deadline(System.nanoTime() + miliseconds * 1000000);
+	}
+
+	public boolean hasPassed() {
+		return this != NONE && System.nanoTime() - nanoTime >= 0;
+	}
+
+	public long getMilisecondsLeft() {
+		if (this == NONE) {
+			return Long.MAX_VALUE;
+		}
+		return Math.max(0, (nanoTime - System.nanoTime()) / 1000000);
+	}
+
+}
@@ -1,15 +1,23 @@
 package org.gnubridge.search;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Stack;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.gnubridge.core.Card;
 import org.gnubridge.core.Deal;
 import org.gnubridge.core.Player;
+import org.gnubridge.search.ordering.HistoryHeuristic;
+import org.gnubridge.search.ordering.MoveOrdering;
 import org.gnubridge.search.pruning.PruningStrategy;
 
-public class DoubleDummySolver {
+public class DoubleDummySolver implements Solver {
 
 	private Node root;
 
@@ -17,16 +25,62 @@ public class DoubleDummySolver {
 
 	private Deal game;
 
-	private List<Integer> finalMoves;
+	private Position rootPosition;
+
+	private Position cursor;
+
+	private Node cursorNode;
 
 	private int positionsCount;
 
+	private int[] positionsCountPerThread;
+
+	private int moveOrderVariant = 0;
+
+	private AtomicBoolean helpersFinished;
+
+	private boolean completed;
+
+	private boolean stoppedEarly;
+
+	private final AtomicBoolean cancelled;
+
+	private Thread searchThread;
+
+	private int positionsBeforeNextLook;
+
+	private Deadline deadline = Deadline.NONE;
+
+	private ProgressListener listener;
+
+	private Node bestRootMoveSoFar;
+
+	private Node mostPromisingRootMove;
+
+	private boolean mostPromisingRootMoveSearched;
+
+	private int positionsSearchedInParallel;
+
 	private long runningTime;
 
 	private int maxTricks = 13;
 
+
 	private boolean useDuplicateRemoval = true;
 	private boolean shouldPruneCardsInSequence = true;
+	private boolean useTrickBounds = false;
+
+	private EndgameTable endgameTable;
+
+	private LeafEvaluator leafEvaluator;
+	private boolean useNullWindowSearch = false;
+	private boolean releaseFinishedSubtrees = false;
+
+	private SearchStats stats = new SearchStats();
+
+	private int retainedNodes;
+
+	private int peakRetainedNodes;
 
 	PositionLookup lookup;
 
@@ -34,14 +88,18 @@ public class DoubleDummySolver {
 
 	private final List<PruningStrategy> postEvaluationPruningStrategies = new ArrayList<PruningStrategy>();
 
+	private final List<MoveOrdering> moveOrderings = new ArrayList<MoveOrdering>();
+
 	private SolverConfigurator configurator = null;
 
+	@Override
 	public void setTerminateIfRootOnlyHasOneValidMove(boolean terminateIfRootOnlyHasOneValidMove) {
 		this.terminateIfRootOnlyHasOneValidMove = terminateIfRootOnlyHasOneValidMove;
 	}
 
 	public DoubleDummySolver(Node root) {
 		this.root = root;
+		cancelled = new AtomicBoolean(false);
 	}
 
 	public DoubleDummySolver(Deal game) {
@@ -53,34 +111,512 @@ public class DoubleDummySolver {
 		this.game = game;
 		this.configurator = configurator;
 		stack = new Stack<Node>();
-		finalMoves = new ArrayList<Integer>();
-		finalMoves.add(0);
-		finalMoves.add(0);
-		finalMoves.add(0);
-		finalMoves.add(0);
 		lookup = new PositionLookup();
+		cancelled = new AtomicBoolean(false);
 		configurator.configure(this);
 
 	}
 
+	/**
+	 * searches with the position table and move orderings of a session, so
+	 * what earlier searches of the deal learned is not thrown away
+	 */
+	public DoubleDummySolver(Deal game, SolverSession session) {
+		this.game = game;
+		this.configurator = session.getConfigurator();
+		stack = new Stack<Node>();
+		lookup = session.getPositionLookup();
+		cancelled = new AtomicBoolean(false);
+		configurator.configure(this, session.getMoveOrderings());
+	}
+
+	/**
+	 * searches one move of another solver's root, sharing its settings
+	 */
+	private DoubleDummySolver(DoubleDummySolver parent) {
+		this.game = parent.game;
+		this.configurator = parent.configurator;
+		stack = new Stack<Node>();
+		lookup = parent.lookup;
+		rootPosition = parent.getRootPosition();
+		maxTricks = parent.maxTricks;
+		useDuplicateRemoval = parent.useDuplicateRemoval;
+		shouldPruneCardsInSequence = parent.shouldPruneCardsInSequence;
+		useTrickBounds = parent.useTrickBounds;
+		endgameTable = parent.endgameTable;
+		leafEvaluator = parent.leafEvaluator;
+		useNullWindowSearch = parent.useNullWindowSearch;
+		deadline = parent.deadline;
+		cancelled = parent.cancelled;
+		searchThread = parent.searchThread;
+		releaseFinishedSubtrees = parent.releaseFinishedSubtrees;
+		terminateIfRootOnlyHasOneValidMove = parent.terminateIfRootOnlyHasOneValidMove;
+		postEvaluationPruningStrategies.addAll(parent.postEvaluationPruningStrategies);
+		moveOrderings.addAll(parent.moveOrderings);
+	}
+
+	/**
+	 * replaces the move orderings that cannot be shared with another thread
+	 * by copies of this solver's own
+	 */
+	private void useOwnMoveOrderings() {
+		for (int i = 0; i < moveOrderings.size(); i++) {
+			moveOrderings.set(i, moveOrderings.get(i).forAnotherThread());
+		}
+	}
+
+	private void leaveOutHistory() {
+		for (Iterator<MoveOrdering> it = moveOrderings.iterator(); it.hasNext();) {
+			if (it.next() instanceof HistoryHeuristic) {
+				it.remove();
+			}
+		}
+	}
+
 	public void addPostEvaluationPruningStrategy(PruningStrategy strategy) {
 		postEvaluationPruningStrategies.add(strategy);
 	}
 
+	public void addMoveOrdering(MoveOrdering ordering) {
+		moveOrderings.add(ordering);
+	}
+
+	public PositionLookup getPositionLookup() {
+		return lookup;
+	}
+
+	@Override
+	public Card search(Deadline deadline, ProgressListener listener) {
+		this.deadline = deadline;
+		this.listener = listener;
+		try {
+			search();
+		} finally {
+			this.deadline = Deadline.NONE;
+			this.listener = null;
+		}
+		List<Card> bestMoves = getBestMoves();
+		return bestMoves.isEmpty() ? null : bestMoves.get(0);
+	}
+
+	@Override
 	public void search() {
 		long start = System.currentTimeMillis();
+		long allocatedBefore = SearchStats.allocatedBytesOfThisThread();
+		stats = new SearchStats();
 		runningTime = 0;
 		positionsCount = 0;
+		completed = false;
+		stoppedEarly = false;
+		positionsBeforeNextLook = 0;
+		searchThread = Thread.currentThread();
+		bestRootMoveSoFar = null;
+		mostPromisingRootMove = null;
+		mostPromisingRootMoveSearched = false;
+		positionsSearchedInParallel = 0;
+		rootPosition = null;
+		cursor = null;
+		cursorNode = null;
+		retainedNodes = 0;
+		peakRetainedNodes = 0;
 		root = new Node(null);
+		nodesCreated(1);
 		stack.push(root);
+		if (useNullWindowSearch) {
+			searchWithNullWindows();
+		} else if (configurator != null && configurator.getHelperThreads() > 0) {
+			searchWithHelpers(configurator.getHelperThreads());
+		} else {
+			if (configurator != null && configurator.getForkJoinPool() != null) {
+				searchRootMovesInParallel(configurator.getForkJoinPool());
+			}
+			searchUntilFinished();
+			positionsCountPerThread = new int[] { positionsCount };
+		}
+		if (stoppedEarly) {
+			stack.clear();
+		}
+		rememberBestMove();
+		runningTime = System.currentTimeMillis() - start;
+		stats.allocated(allocatedBefore, SearchStats.allocatedBytesOfThisThread());
+		stats.setPeakRetainedNodes(peakRetainedNodes);
+		stats.setRunningTime(runningTime);
+		if (configurator != null && configurator.getSearchMonitor() != null) {
+			configurator.getSearchMonitor().searchFinished(stats);
+		}
 
-		while (!stack.empty()) {
+	}
+
+	private void searchUntilFinished() {
+		while (!stack.empty() && (helpersFinished == null || !helpersFinished.get())) {
 			Node node = stack.pop();
 			examinePosition(node);
 			positionsCount++;
+			if (!stack.empty() && shouldStop()) {
+				break;
+			}
 		}
-		runningTime = System.currentTimeMillis() - start;
+		if (stack.empty() && !stoppedEarly) {
+			completed = true;
+			if (helpersFinished != null) {
+				helpersFinished.set(true);
+			}
+		}
+	}
 
+	/**
+	 * Looks at the clock, for cancellation and for the interruption of the
+	 * thread that started the search the first time it is asked, then every
+	 * so many positions only. Helper threads and pool threads are not
+	 * interrupted themselves, they look at that thread.
+	 */
+	private boolean shouldStop() {
+		if (!stoppedEarly && positionsBeforeNextLook-- == 0) {
+			positionsBeforeNextLook = 1023;
+			if (searchThread != null && searchThread.isInterrupted()) {
+				cancelled.set(true);
+			}
+			stoppedEarly = cancelled.get() || deadline.hasPassed();
+		}
+		return stoppedEarly;
+	}
+
+	/**
+	 * Stops the search, and any search of this solver still to come, as soon
+	 * as it next looks, on all threads it uses. The best move found so far is
+	 * kept, see search(Deadline, ProgressListener). Interrupting the thread
+	 * that runs the search does the same.
+	 */
+	@Override
+	public void cancel() {
+		cancelled.set(true);
+	}
+
+	/**
+	 * A move at the root was searched to the end. Keeps it as the best move
+	 * so far when it takes more tricks than the ones before, or as many with
+	 * a lower card, the same way the best move is picked in the end.
+	 * <p>
+	 * Root moves searched in parallel finish in any order, so nothing is
+	 * reported before the most promising move, ie. the best one of the
+	 * previous search, has been searched: the move reported is never worse
+	 * than it.
+	 */
+	private synchronized void rootMoveSearched(Node move, int positionsExamined) {
+		int pair = root.getCurrentPair();
+		boolean improved = bestRootMoveSoFar == null
+				|| move.getTricksTaken(pair) > bestRootMoveSoFar.getTricksTaken(pair)
+				|| (move.getTricksTaken(pair) == bestRootMoveSoFar.getTricksTaken(pair) && isLowerCard(move
+						.getCardPlayed(), bestRootMoveSoFar.getCardPlayed()));
+		if (improved) {
+			bestRootMoveSoFar = move;
+		}
+		boolean justSearchedMostPromising = false;
+		if (!mostPromisingRootMoveSearched && (mostPromisingRootMove == null || move == mostPromisingRootMove)) {
+			mostPromisingRootMoveSearched = true;
+			justSearchedMostPromising = true;
+		}
+		if (listener != null && mostPromisingRootMoveSearched && (improved || justSearchedMostPromising)) {
+			listener.bestMoveFound(bestRootMoveSoFar.getCardPlayed(), bestRootMoveSoFar.getTricksTaken(pair),
+					positionsExamined);
+		}
+	}
+
+	/**
+	 * lower value first, then the suit the root lists first, see
+	 * Node.getBestMove()
+	 */
+	private static boolean isLowerCard(Card card, Card other) {
+		return card.getValue() < other.getValue()
+				|| (card.getValue() == other.getValue() && card.getIndex() < other.getIndex());
+	}
+
+	/**
+	 * Searches the whole tree on this thread and on helper threads at the same
+	 * time, each pushing moves in a different order and all sharing one
+	 * transposition table, so they mostly pick up each other's results instead
+	 * of repeating them. Stops as soon as one of them finishes.
+	 * <p>
+	 * Each helper keeps killer cards and history of its own, and every other
+	 * helper does without history, so their orders differ by more than how
+	 * ties are broken.
+	 */
+	private void searchWithHelpers(int helperThreads) {
+		helpersFinished = new AtomicBoolean(false);
+		List<DoubleDummySolver> solvers = new ArrayList<DoubleDummySolver>();
+		solvers.add(this);
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 1; i <= helperThreads; i++) {
+			final DoubleDummySolver helper = new DoubleDummySolver(this);
+			helper.moveOrderVariant = i;
+			helper.useOwnMoveOrderings();
+			if (i % 2 == 1) {
+				helper.leaveOutHistory();
+			}
+			helper.helpersFinished = helpersFinished;
+			helper.root = new Node(null);
+			helper.nodesCreated(1);
+			helper.stack.push(helper.root);
+			solvers.add(helper);
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					long allocatedBefore = SearchStats.allocatedBytesOfThisThread();
+					helper.searchUntilFinished();
+					helper.stats.allocated(allocatedBefore, SearchStats.allocatedBytesOfThisThread());
+				}
+			}, "solver helper " + i);
+			thread.setDaemon(true);
+			threads.add(thread);
+			thread.start();
+		}
+		searchUntilFinished();
+		boolean interrupted = false;
+		for (Thread thread : threads) {
+			while (thread.isAlive()) {
+				try {
+					thread.join();
+				} catch (InterruptedException e) {
+					// the helpers cannot see the interruption once it is caught
+					interrupted = true;
+					cancelled.set(true);
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		helpersFinished = null;
+		positionsCountPerThread = new int[solvers.size()];
+		positionsCount = 0;
+		for (int i = 0; i < solvers.size(); i++) {
+			DoubleDummySolver solver = solvers.get(i);
+			positionsCountPerThread[i] = solver.positionsCount;
+			positionsCount += solver.positionsCount;
+			if (solver != this) {
+				peakRetainedNodes += solver.peakRetainedNodes;
+				stats.add(solver.stats);
+			}
+			if (solver.completed && !completed) {
+				root = solver.root;
+				completed = true;
+			}
+		}
+	}
+
+	/**
+	 * Works out the tricks the pair to play takes with null window tests, then
+	 * picks the lowest card that keeps them, the same card the full search
+	 * picks. Only the root and its moves are built as nodes, the moves not
+	 * picked are left pruned.
+	 */
+	private void searchWithNullWindows() {
+		stack.pop();
+		Position position = getRootPosition();
+		int player = position.getNextToPlay();
+		root.setPlayerTurn(player);
+		for (long moves = position.getLegalMoves(); moves != 0; moves &= moves - 1) {
+			makeChildNodeForCardPlayed(root, game.getPlayer(player), Position.card(Long.numberOfTrailingZeros(moves)));
+		}
+		if (shouldPruneCardsInSequence) {
+			for (Node move : root.children) {
+				removeSiblingsInSequence(move);
+			}
+		}
+		NullWindowSearch search = newNullWindowSearch();
+		if (root.children.isEmpty()) {
+			root.setTricksTaken(Player.WEST_EAST, 0);
+			root.setTricksTaken(Player.NORTH_SOUTH, 0);
+		} else if (!rootOnlyHasOneValidMove(root) || !terminateIfRootOnlyHasOneValidMove) {
+			int maxPair = root.getCurrentPair();
+			int tricks = search.getTricks(maxPair);
+			Node best = null;
+			for (int value = 0; value <= Card.ACE && best == null; value++) {
+				for (Node move : root.children) {
+					if (!move.isPruned() && move.getCardPlayed().getValue() == value
+							&& search.canTakeAfter(move.getCardPlayed().getIndex(), maxPair, tricks)) {
+						best = move;
+						break;
+					}
+				}
+			}
+			root.setTricksTaken(maxPair, tricks);
+			root.setTricksTaken(1 - maxPair, search.getTricksCounted() - tricks);
+			best.setTricksTaken(Player.WEST_EAST, root.getTricksTaken(Player.WEST_EAST));
+			best.setTricksTaken(Player.NORTH_SOUTH, root.getTricksTaken(Player.NORTH_SOUTH));
+			for (Node move : root.children) {
+				if (move != best && !move.isPruned()) {
+					move.pruneAsAlpha();
+				}
+			}
+		}
+		positionsCount = 1 + search.getPositionsExamined();
+		positionsCountPerThread = new int[] { positionsCount };
+		completed = true;
+	}
+
+	/**
+	 * @return whether pair can take at least tricks from here on, within
+	 *         maxTricks, answered by a single null window search
+	 */
+	public boolean canTake(int pair, int tricks) {
+		NullWindowSearch search = newNullWindowSearch();
+		boolean result = search.canTake(pair, tricks);
+		positionsCount = search.getPositionsExamined();
+		return result;
+	}
+
+	private NullWindowSearch newNullWindowSearch() {
+		NullWindowSearch result = new NullWindowSearch(getRootPosition(), maxTricks,
+				useDuplicateRemoval() ? lookup.getTable() : null, moveOrderings);
+		result.setStats(stats);
+		result.setUseTrickBounds(useTrickBounds);
+		result.setEndgameTable(endgameTable);
+		result.setShouldPruneCardsInSequence(shouldPruneCardsInSequence);
+		return result;
+	}
+
+	/**
+	 * keeps the card chosen at the root, so the next search of the same
+	 * position, ie. one going a trick deeper, tries it first
+	 */
+	private void rememberBestMove() {
+		Node best = root.getBestMove();
+		Position position = getRootPosition();
+		if (completed && best != null && best.getCardPlayed() != null && position.getTrickSize() == 0) {
+			lookup.putBestCard(position.getKey(), position.relativeCard(best.getCardPlayed().getIndex()));
+		}
+	}
+
+	/**
+	 * Expands the root, then searches each of its moves with its own solver on
+	 * the pool. The best result found so far is shared between them as a
+	 * sibling already evaluated, so moves that cannot beat it are cut the same
+	 * way later siblings are in a single threaded search.
+	 */
+	private void searchRootMovesInParallel(ForkJoinPool pool) {
+		examinePosition(stack.pop());
+		positionsCount++;
+		List<RootMoveSearch> tasks = new ArrayList<RootMoveSearch>();
+		AtomicInteger alpha = new AtomicInteger(Node.UNITNITIALIZED);
+		for (Node move : stack) {
+			if (!move.isPruned()) {
+				tasks.add(new RootMoveSearch(move, alpha));
+			}
+		}
+		if (tasks.size() < 2) {
+			return;
+		}
+		stack.clear();
+		for (RootMoveSearch task : tasks) {
+			pool.execute(task);
+		}
+		boolean interrupted = false;
+		for (RootMoveSearch task : tasks) {
+			boolean done = false;
+			while (!done) {
+				try {
+					task.get();
+					done = true;
+				} catch (InterruptedException e) {
+					// join() would hide the interruption from the tasks until they are done
+					interrupted = true;
+					cancelled.set(true);
+				} catch (ExecutionException e) {
+					throw new RuntimeException(e.getCause());
+				}
+			}
+			positionsCount += task.positionsExamined;
+			peakRetainedNodes += task.peakRetainedNodes;
+			stats.add(task.stats);
+			if (!task.completed) {
+				stoppedEarly = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (stoppedEarly) {
+			return;
+		}
+		for (RootMoveSearch task : tasks) {
+			task.move.trimmed = true;
+		}
+		trim(root);
+	}
+
+	private class RootMoveSearch extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Node move;
+
+		private final AtomicInteger alpha;
+
+		private int positionsExamined;
+
+		private int peakRetainedNodes;
+
+		private SearchStats stats;
+
+		private boolean completed;
+
+		RootMoveSearch(Node move, AtomicInteger alpha) {
+			this.move = move;
+			this.alpha = alpha;
+		}
+
+		@Override
+		protected void compute() {
+			long allocatedBefore = SearchStats.allocatedBytesOfThisThread();
+			DoubleDummySolver solver = new DoubleDummySolver(DoubleDummySolver.this);
+			solver.useOwnMoveOrderings();
+			int maxPair = root.getCurrentPair();
+			Node result = solver.searchMove(root.getPlayerTurn(), move.getCardPlayed(), alpha);
+			positionsExamined = solver.getPositionsExamined();
+			peakRetainedNodes = solver.getPeakRetainedNodes();
+			stats = solver.stats;
+			stats.allocated(allocatedBefore, SearchStats.allocatedBytesOfThisThread());
+			completed = solver.completed;
+			if (!completed) {
+				return;
+			}
+			move.setTricksTaken(Player.WEST_EAST, result.getTricksTaken(Player.WEST_EAST));
+			move.setTricksTaken(Player.NORTH_SOUTH, result.getTricksTaken(Player.NORTH_SOUTH));
+			synchronized (DoubleDummySolver.this) {
+				positionsSearchedInParallel += positionsExamined;
+				rootMoveSearched(move, positionsCount + positionsSearchedInParallel);
+			}
+			int best = alpha.get();
+			while (result.getTricksTaken(maxPair) > best && !alpha.compareAndSet(best, result.getTricksTaken(maxPair))) {
+				best = alpha.get();
+			}
+		}
+	}
+
+	/**
+	 * searches a single move from the root position, next to a leaf standing
+	 * for the best sibling found so far by other solvers
+	 */
+	private Node searchMove(int player, Card card, AtomicInteger alpha) {
+		root = new Node(null, player);
+		Node bestSibling = new Node(root);
+		bestSibling.setLeaf(true);
+		bestSibling.trimmed = true;
+		Node move = new Node(root);
+		move.setCardPlayed(card);
+		move.setPlayerCardPlayed(game.getPlayer(player));
+		nodesCreated(3);
+		cursor = new Position(rootPosition);
+		cursorNode = root;
+		stack.push(move);
+		while (!stack.empty() && !shouldStop()) {
+			bestSibling.setTricksTaken(root.getCurrentPair(), alpha.get());
+			examinePosition(stack.pop());
+			positionsCount++;
+		}
+		completed = stack.empty() && !stoppedEarly;
+		return move;
 	}
 
 	public void setUseDuplicateRemoval(boolean b) {
@@ -91,32 +627,124 @@ public class DoubleDummySolver {
 		shouldPruneCardsInSequence = b;
 	}
 
+	public void setUseTrickBounds(boolean b) {
+		useTrickBounds = b;
+	}
+
+	/**
+	 * positions below the root at the start of a trick the table covers are
+	 * looked up instead of searched, when the search goes to the end of the
+	 * deal from them or estimates the tricks past where it stops
+	 */
+	public void setEndgameTable(EndgameTable endgameTable) {
+		this.endgameTable = endgameTable;
+	}
+
+	/**
+	 * Positions where the search stops short of the end of the deal are
+	 * given the tricks the evaluator expects to come, so the search counts
+	 * tricks to the end of the deal. Not used by null window searches.
+	 */
+	public void setLeafEvaluator(LeafEvaluator leafEvaluator) {
+		this.leafEvaluator = leafEvaluator;
+	}
+
+	/**
+	 * search with null window tests instead of working out the value of every
+	 * position, see NullWindowSearch. Helper threads and the fork join pool
+	 * are not used then, and the search does not stop at a deadline or
+	 * when cancelled.
+	 */
+	public void setUseNullWindowSearch(boolean b) {
+		useNullWindowSearch = b;
+	}
+
+	/**
+	 * once the value of a node is final, drop its children except the one
+	 * the value came from, and at the root the moves worse than the best, so
+	 * a search only holds on to the nodes it still needs. The best line can
+	 * still be printed, the rest of the tree cannot.
+	 */
+	public void setReleaseFinishedSubtrees(boolean b) {
+		releaseFinishedSubtrees = b;
+	}
+
 
+	@Override
 	public int getPositionsExamined() {
 		return positionsCount;
 	}
 
+	/**
+	 * @return most nodes held by the search tree at any one time, summed over
+	 *         helper threads and root moves searched in parallel
+	 */
+	public int getPeakRetainedNodes() {
+		return peakRetainedNodes;
+	}
+
+	private void nodesCreated(int count) {
+		retainedNodes += count;
+		if (retainedNodes > peakRetainedNodes) {
+			peakRetainedNodes = retainedNodes;
+		}
+	}
+
+	@Override
+	public SearchStats getStats() {
+		return stats;
+	}
+
+	/**
+	 * positions examined by this solver followed by each of its helper threads
+	 */
+	public int[] getPositionsExaminedPerThread() {
+		return positionsCountPerThread;
+	}
+
 	public void examinePosition(Node node) {
+		stats.positionExamined(node.getDepth());
 		if (node.isPruned()) {
 			return;
 		}
-		Deal position = game.duplicate();
-		position.playMoves(node.getMoves());
+		Position position = moveCursorTo(node);
 
-		Player player = position.getNextToPlay();
-		node.setPlayerTurn(player.getDirection());
-		node.setPosition(position);
+		int player = position.getNextToPlay();
+		node.setPlayerTurn(player);
+		if (node.getParent() != null && settleEnding(node, position)) {
+			node.setLeaf(true);
+			trim(node);
+			return;
+		}
+		long moves = position.getLegalMoves();
+		int finalCardsPlayed = 0;
 		if (position.oneTrickLeft()) {
-			node.setCardPlayed(player.getPossibleMoves(position.getCurrentTrick()).get(0));
-			position.playMoves(finalMoves);
+			// the root has no card of its own, the card left to play is its best move
+			if (node.getCardPlayed() == null) {
+				node.setCardPlayed(Position.card(Long.numberOfTrailingZeros(moves)));
+			}
+			finalCardsPlayed = playFinalTrick(position);
+			moves = position.getLegalMoves();
 		}
-		for (Card card : player.getPossibleMoves(position.getCurrentTrick())) {
-			makeChildNodeForCardPlayed(node, player, card);
+		for (; moves != 0; moves &= moves - 1) {
+			makeChildNodeForCardPlayed(node, game.getPlayer(player), Position.card(Long.numberOfTrailingZeros(moves)));
 		}
 
-		checkDuplicatePositions(node, position);
-		if (position.getTricksPlayed() >= maxTricks || position.isDone() || node.hasIdenticalTwin()) {
+		boolean estimated = leafEvaluator != null && position.getTricksPlayed() >= maxTricks && !position.isDone();
+		boolean cutByTrickBounds = !estimated && useTrickBounds && cutByTrickBounds(node, position);
+		if (cutByTrickBounds) {
+			stats.trickBoundsCutoff();
+		} else if (!estimated) {
+			checkDuplicatePositions(node, position);
+		}
+		if (estimated || cutByTrickBounds || position.getTricksPlayed() >= maxTricks || position.isDone()
+				|| node.hasIdenticalTwin()) {
 			node.setLeaf(true);
+			if (estimated) {
+				setTricksTakenToEnd(node, position, leafEvaluator.evaluate(position));
+			} else if (!cutByTrickBounds) {
+				node.setTricksTakenInPosition(position);
+			}
 			trim(node);
 		} else {
 			for (Node move : node.children) {
@@ -125,15 +753,98 @@ public class DoubleDummySolver {
 				}
 			}
 			if (!rootOnlyHasOneValidMove(node) || !terminateIfRootOnlyHasOneValidMove) {
-				for (Node move : node.children) {
-					// TODO later if (!move.isPruned()) {
-					stack.push(move);
+				pushChildren(node, position);
+			}
+		}
+		for (; finalCardsPlayed > 0; finalCardsPlayed--) {
+			position.unplay();
+		}
+	}
 
+	/**
+	 * Pushes the children so the most promising one is popped first: the hash
+	 * move, then by move ordering score. Without move orderings the highest
+	 * card is, except for helper threads which rotate the order to start
+	 * elsewhere.
+	 */
+	private void pushChildren(Node node, Position position) {
+		int childCount = node.children.size();
+		Node[] order = new Node[childCount];
+		int[] scores = new int[childCount];
+		int hashMove = TranspositionTable.NO_CARD;
+		if (!moveOrderings.isEmpty()) {
+			hashMove = node.hasPositionKey() ? lookup.getBestCard(position, node.getPositionKey()) : lookup
+					.getBestCard(position);
+		}
+		for (int i = 0; i < childCount; i++) {
+			order[i] = node.children.get((moveOrderVariant + i) % childCount);
+			if (!moveOrderings.isEmpty() && !order[i].isPruned()) {
+				int card = order[i].getCardPlayed().getIndex();
+				if (card == hashMove) {
+					scores[i] = Integer.MAX_VALUE;
+				} else {
+					for (MoveOrdering ordering : moveOrderings) {
+						scores[i] += ordering.score(position, card, node.getDepth());
+					}
 				}
 			}
+			for (int j = i; j > 0 && scores[j] < scores[j - 1]; j--) {
+				Node swapNode = order[j];
+				order[j] = order[j - 1];
+				order[j - 1] = swapNode;
+				int swapScore = scores[j];
+				scores[j] = scores[j - 1];
+				scores[j - 1] = swapScore;
+			}
+		}
+		for (Node child : order) {
+			// TODO later if (!move.isPruned()) {
+			stack.push(child);
+			if (node == root && !child.isPruned()) {
+				mostPromisingRootMove = child;
+			}
 		}
 	}
 
+	/**
+	 * Plays one card going down from the node last examined and takes cards
+	 * back coming up, so the cost per node does not depend on its depth. Nodes
+	 * that are not reachable that way (ie. built by hand in tests) are replayed
+	 * from the root.
+	 */
+	private Position moveCursorTo(Node node) {
+		if (cursorNode != null && node.parent != null && node.getCardPlayed() != null
+				&& cursorNode.hasAncestor(node.parent)) {
+			while (cursorNode != node.parent) {
+				cursor.unplay();
+				cursorNode = cursorNode.parent;
+			}
+			cursor.play(node.getCardPlayed().getIndex());
+		} else {
+			cursor = new Position(getRootPosition());
+			cursor.playMoves(node.getMoves());
+		}
+		cursorNode = node;
+		return cursor;
+	}
+
+	private int playFinalTrick(Position position) {
+		int cardsPlayed = 0;
+		while (cardsPlayed < 4 && position.getLegalMoves() != 0) {
+			position.play(Long.numberOfTrailingZeros(position.getLegalMoves()));
+			cardsPlayed++;
+		}
+		return cardsPlayed;
+	}
+
+	private Position getRootPosition() {
+		if (rootPosition == null) {
+			rootPosition = new Position(game);
+			rootPosition.resetTricks();
+		}
+		return rootPosition;
+	}
+
 	private boolean rootOnlyHasOneValidMove(Node node) {
 		if (node == root && node.getUnprunedChildCount() == 1) {
 			return true;
@@ -142,11 +853,110 @@ public class DoubleDummySolver {
 		}
 	}
 
-	private void checkDuplicatePositions(Node node, Deal position) {
-		if (useDuplicateRemoval()) {
-			if (lookup.positionEncountered(position, node.getTricksTaken())) {
-				byte[] previouslyEncounteredNode = lookup.getNode(position);
+	/**
+	 * @return whether the endgame table or, for the last two tricks,
+	 *         TwoTrickEnding gave the node its value
+	 */
+	private boolean settleEnding(Node node, Position position) {
+		if (position.getTrickSize() != 0) {
+			return false;
+		}
+		int tricksLeft = Long.bitCount(position.getHand(position.getNextToPlay()));
+		if (leafEvaluator == null
+				&& PositionLookup.tricksCounted(position.getTricksPlayed(), tricksLeft, maxTricks) < tricksLeft) {
+			// the search counts only the tricks it plays out
+			return false;
+		}
+		if (endgameTable != null && endgameTable.covers(position)) {
+			stats.endgameTableHit();
+			setTricksTakenToEnd(node, position, endgameTable.getTricks(position));
+			return true;
+		}
+		if (TwoTrickEnding.isTwoTrickEnding(position)) {
+			setTricksTakenToEnd(node, position, TwoTrickEnding.leaderTricks(position));
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * gives a node at the start of a trick the tricks taken by the end of the
+	 * deal, the pair on lead taking leaderTricks of those left
+	 */
+	private void setTricksTakenToEnd(Node node, Position position, int leaderTricks) {
+		int leaderPair = Position.pair(position.getNextToPlay());
+		int leaderTotal = position.getTricksTaken(leaderPair) + leaderTricks;
+		int otherTotal = position.getTricksPlayed() + Long.bitCount(position.getHand(position.getNextToPlay()))
+				- leaderTotal;
+		if (leaderPair == Player.NORTH_SOUTH) {
+			node.setTricksTakenInPosition(otherTotal, leaderTotal);
+		} else {
+			node.setTricksTakenInPosition(leaderTotal, otherTotal);
+		}
+	}
+
+	/**
+	 * Makes the node a leaf when quick tricks and sure losers settle its value,
+	 * or show it cannot change the choice of an ancestor: its best case is
+	 * worse than the alpha, or its worst case better than the beta, already
+	 * found. Such a node is given that bound as its value, the same way a
+	 * pruned node keeps the value that pruned it, and is not remembered as a
+	 * transposition.
+	 */
+	private boolean cutByTrickBounds(Node node, Position position) {
+		if (node.getParent() == null || position.getTrickSize() != 0 || position.isDone()
+				|| position.getTricksPlayed() >= maxTricks) {
+			return false;
+		}
+		int cardsLeft = Long.bitCount(position.getHand(position.getNextToPlay()));
+		int tricksLeft = PositionLookup.tricksCounted(position.getTricksPlayed(), cardsLeft, maxTricks);
+		if (leafEvaluator != null && tricksLeft < cardsLeft) {
+			// bounds on the tricks played out would not add up with the estimates
+			return false;
+		}
+		TrickBounds bounds = new TrickBounds(position, tricksLeft);
+		int maxPair = node.getRoot().getCurrentPair();
+		int taken = position.getTricksTaken(maxPair);
+		int lower;
+		int upper;
+		if (Position.pair(position.getNextToPlay()) == maxPair) {
+			lower = taken + bounds.getLowerBound();
+			upper = taken + bounds.getUpperBound();
+		} else {
+			lower = taken + tricksLeft - bounds.getUpperBound();
+			upper = taken + tricksLeft - bounds.getLowerBound();
+		}
+		int value;
+		if (lower == upper) {
+			value = lower;
+		} else if (upper < node.getParent().getLocalAlpha()) {
+			value = upper;
+		} else if ((node.getParent().isBeta() || node.getParent().hasBetaAncestor())
+				&& lower > node.getParent().getLocalBeta()) {
+			value = lower;
+		} else {
+			return false;
+		}
+		int otherPairValue = position.getTricksPlayed() + tricksLeft - value;
+		if (maxPair == Player.NORTH_SOUTH) {
+			node.setTricksTakenInPosition(otherPairValue, value);
+		} else {
+			node.setTricksTakenInPosition(value, otherPairValue);
+		}
+		return true;
+	}
+
+	private void checkDuplicatePositions(Node node, Position position) {
+		if (useDuplicateRemoval() && position.getTrickSize() == 0 && node != root) {
+			byte[] previouslyEncounteredNode = lookup.getNode(position, maxTricks);
+			stats.tableProbe();
+			if (previouslyEncounteredNode != null) {
+				stats.tableHit();
+				stats.duplicatePositionCutoff();
 				node.setIdenticalTwin(previouslyEncounteredNode);
+			} else {
+				node.setPositionKey(position.getKey(), position.getCardsLeft());
+				node.setTricksTakenInPosition(position);
 			}
 		}
 
@@ -156,6 +966,7 @@ public class DoubleDummySolver {
 		Node move = new Node(parent);
 		move.setCardPlayed(card);
 		move.setPlayerCardPlayed(player);
+		nodesCreated(1);
 	}
 
 	private void removeSiblingsInSequence(Node move) {
@@ -171,27 +982,55 @@ public class DoubleDummySolver {
 
 		if (shouldTrim) {
 			move.pruneAsSequenceSibling();
+			stats.sequenceCutoffs(1);
 		}
 
 	}
 
 	/**
 	 * 1. evaluate all child nodes and find one where current player or his partner takes the most tricks. 
-	 * 2. delete all other nodes 
-	 * 3. set tricks taken on current node to the value of the child selected in 1. 
+	 * 2. set tricks taken on current node to the value of the child selected in 1. 
+	 * 3. delete all other nodes, when releasing finished subtrees
 	 * 4. if last child, then call trim on parent
 	 */
 
 	public void trim(Node node) {
-		if (root == node) {
-			node.nullAllSubstandardChildren();
-		} else {
-			node.nullAllChildrenExceptOne();
-		}
 		node.calculateValue();
+		Node parent = node.getParent();
+		boolean parentWasPruned = parent != null && parent.isPruned();
 		for (PruningStrategy pruningStrategy : postEvaluationPruningStrategies) {
 			pruningStrategy.prune(node);
 		}
+		if (parent != null && !parentWasPruned) {
+			if (parent.isAlphaPruned()) {
+				stats.alphaCutoff();
+			} else if (parent.isBetaPruned()) {
+				stats.betaCutoff();
+			}
+		}
+		if (node.getParent() == root && node.getCardPlayed() != null && !node.isPruned()) {
+			rootMoveSearched(node, positionsCount);
+		}
+		if (node.hasPositionKey() && !node.isPruned() && !node.isRefutedRootMove()) {
+			storePosition(node);
+		}
+		if (parent != null && node.getCardPlayed() != null && (parent.isAlphaPruned() || parent.isBetaPruned())) {
+			int card = node.getCardPlayed().getIndex();
+			for (MoveOrdering ordering : moveOrderings) {
+				ordering.cutoff(card, parent.getDepth());
+			}
+			if (parent.hasPositionKey()) {
+				lookup.putBestCard(parent.getPositionKey(), parent.getRelativeCard(card));
+				stats.tableStore();
+			}
+		}
+		if (releaseFinishedSubtrees) {
+			if (root == node) {
+				retainedNodes -= node.nullAllSubstandardChildren();
+			} else {
+				retainedNodes -= node.nullAllChildrenExceptOne();
+			}
+		}
 
 		if (node.canTrim()) {
 			trim(node.parent);
@@ -200,16 +1039,52 @@ public class DoubleDummySolver {
 
 	}
 
+	private void storePosition(Node node) {
+		int westEastBefore = node.getTricksTakenInPosition(Player.WEST_EAST);
+		int northSouthBefore = node.getTricksTakenInPosition(Player.NORTH_SOUTH);
+		int tricksLeft = Position.cardsLeft(node.getPositionKey()) / 4;
+		stats.tableStore();
+		lookup.putNode(node.getPositionKey(), PositionLookup.tricksToCome(node.getTricksTaken(), westEastBefore,
+				northSouthBefore), PositionLookup.tricksCounted(westEastBefore + northSouthBefore, tricksLeft,
+				maxTricks), bestCard(node));
+	}
+
+	private int bestCard(Node node) {
+		Node best = node.getUnprunedChildWithMostTricksForCurrentPair();
+		if (best == null || best.getCardPlayed() == null) {
+			return TranspositionTable.NO_CARD;
+		}
+		return node.getRelativeCard(best.getCardPlayed().getIndex());
+	}
+
 	private boolean useDuplicateRemoval() {
 		return useDuplicateRemoval;
 	}
 
+	@Override
 	public List<Card> getBestMoves() {
 		List<Card> result = new ArrayList<Card>();
+		if (stoppedEarly && !completed) {
+			Node move = mostPromisingRootMoveSearched ? bestRootMoveSoFar : mostPromisingRootMove;
+			if (move != null) {
+				result.add(move.getCardPlayed());
+			}
+			return result;
+		}
 		result.add(root.getBestMove().getCardPlayed());
 		return result;
 	}
 
+	@Override
+	public boolean isCompleted() {
+		return completed;
+	}
+
+	@Override
+	public int getTricksTaken(int pair) {
+		return root.getTricksTaken(pair);
+	}
+
 	public void printOptimalPath() {
 		System.out.println("Optimal path in this search: ");
 		root.printOptimalPath(game);
@@ -221,7 +1096,12 @@ public class DoubleDummySolver {
 			pruneType = "Pruned";
 		}
 		System.out.println(pruneType + " search took (msec): " + runningTime);
-		System.out.println("  Positions examined: " + getPositionsExamined());
+		System.out.print(stats);
+		if (positionsCountPerThread != null && positionsCountPerThread.length > 1) {
+			for (int i = 0; i < positionsCountPerThread.length; i++) {
+				System.out.println("    thread " + i + ": " + positionsCountPerThread[i]);
+			}
+		}
 		System.out.println("West/East tricks taken: " + root.getTricksTaken(Player.WEST_EAST));
 		System.out.println("North/South tricks taken: " + root.getTricksTaken(Player.NORTH_SOUTH));
 
@@ -231,6 +1111,7 @@ public class DoubleDummySolver {
 		return configurator;
 	}
 
+	@Override
 	public void setMaxTricks(int i) {
 		maxTricks = i;
 	}
@@ -0,0 +1,231 @@
+package org.gnubridge.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.Direction;
+import org.gnubridge.core.Player;
+import org.gnubridge.core.deck.Clubs;
+import org.gnubridge.core.deck.Diamonds;
+import org.gnubridge.core.deck.Hearts;
+import org.gnubridge.core.deck.NoTrump;
+import org.gnubridge.core.deck.Spades;
+import org.gnubridge.core.deck.Trump;
+
+/**
+ * Tricks each player takes as declarer in each strain with best play, the 20
+ * results of a double dummy table. The opening lead comes from declarer's left.
+ * <p>
+ * The four searches of one strain share a SolverSession: once the opening
+ * trick is played the same positions come up whoever led to it, so the later
+ * searches mostly look them up. Positions of different strains never share
+ * a key, so each strain has a session of its own and the strains are
+ * searched in parallel.
+ * Callers solving many deals can hand in the position tables, one per strain,
+ * so they are cleared and reused instead of allocated for every deal.
+ */
+public class DoubleDummyTable {
+
+	public static final Trump[] STRAINS = { Clubs.i(), Diamonds.i(), Hearts.i(), Spades.i(), NoTrump.i() };
+
+	private final int[][] tricks = new int[STRAINS.length][4];
+
+	private final int[] positionsExamined = new int[STRAINS.length];
+
+	private DoubleDummyTable() {
+	}
+
+	/**
+	 * solves with the default solver settings, the strains on a pool of their
+	 * own
+	 */
+	public static DoubleDummyTable solve(Deal deal) {
+		ForkJoinPool pool = new ForkJoinPool(Math.min(STRAINS.length, Runtime.getRuntime().availableProcessors()));
+		try {
+			return solve(deal, SolverConfigurator.Default, pool);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * @param deal before any card is played to the current trick; it is not
+	 *            changed
+	 * @param pool the strains are searched on
+	 */
+	public static DoubleDummyTable solve(Deal deal, SolverConfigurator configurator, ForkJoinPool pool) {
+		return solve(deal, configurator, pool, newLookups());
+	}
+
+	/**
+	 * @param lookups one per strain, in STRAINS order, see newLookups(); they
+	 *            are cleared before the deal is searched, and must not be
+	 *            used by another search until this one returns
+	 */
+	public static DoubleDummyTable solve(Deal deal, SolverConfigurator configurator, ForkJoinPool pool,
+			PositionLookup[] lookups) {
+		if (!deal.getCurrentTrick().getCards().isEmpty()) {
+			throw new IllegalArgumentException("Double dummy table needs a deal at the start of a trick");
+		}
+		if (lookups.length != STRAINS.length) {
+			throw new IllegalArgumentException("Double dummy table needs a position table per strain, got "
+					+ lookups.length);
+		}
+		DoubleDummyTable result = new DoubleDummyTable();
+		List<StrainSearch> searches = new ArrayList<StrainSearch>();
+		for (int strain = 0; strain < STRAINS.length; strain++) {
+			StrainSearch search = result.new StrainSearch(deal, configurator, strain, lookups[strain]);
+			searches.add(search);
+			pool.execute(search);
+		}
+		for (StrainSearch search : searches) {
+			try {
+				search.get();
+			} catch (InterruptedException e) {
+				stop(searches);
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted solving double dummy table", e);
+			} catch (ExecutionException e) {
+				stop(searches);
+				throw new RuntimeException(e.getCause());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * cancels the searches still going and waits for them, so none is left
+	 * using the lookups once solve() gives up
+	 */
+	private static void stop(List<StrainSearch> searches) {
+		for (StrainSearch search : searches) {
+			search.stop();
+		}
+		for (StrainSearch search : searches) {
+			search.quietlyJoin();
+		}
+	}
+
+	/**
+	 * @return position tables of the default size for solve(), one per strain
+	 */
+	public static PositionLookup[] newLookups() {
+		PositionLookup[] result = new PositionLookup[STRAINS.length];
+		for (int strain = 0; strain < STRAINS.length; strain++) {
+			result[strain] = new PositionLookup();
+		}
+		return result;
+	}
+
+	private class StrainSearch extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Deal deal;
+
+		private final SolverConfigurator configurator;
+
+		private final int strain;
+
+		private final PositionLookup lookup;
+
+		private volatile boolean stopped;
+
+		private volatile DoubleDummySolver solver;
+
+		StrainSearch(Deal deal, SolverConfigurator configurator, int strain, PositionLookup lookup) {
+			this.deal = deal.duplicate();
+			this.configurator = configurator;
+			this.strain = strain;
+			this.lookup = lookup;
+		}
+
+		@Override
+		protected void compute() {
+			deal.setTrump(STRAINS[strain]);
+			lookup.clear();
+			SolverSession session = new SolverSession(configurator, lookup);
+			for (int declarer = Direction.WEST_DEPRECATED; declarer <= Direction.SOUTH_DEPRECATED; declarer++) {
+				deal.setNextToPlay(Direction.instance(declarer).clockwise().getValue());
+				solver = session.newSolver(deal);
+				if (stopped) {
+					return;
+				}
+				solver.setTerminateIfRootOnlyHasOneValidMove(false);
+				solver.search();
+				tricks[strain][declarer] = solver.getTricksTaken(Player.matchPair(declarer));
+				positionsExamined[strain] += solver.getPositionsExamined();
+			}
+		}
+
+		void stop() {
+			stopped = true;
+			DoubleDummySolver current = solver;
+			if (current != null) {
+				current.cancel();
+			}
+		}
+	}
+
+	/**
+	 * @return tricks declarer takes in strain, counted from the trick the deal
+	 *         was at
+	 */
+	public int getTricks(Trump strain, Direction declarer) {
+		return tricks[strainIndex(strain)][declarer.getValue()];
+	}
+
+	/**
+	 * @return tricks by strain, in STRAINS order, then by declarer's Direction
+	 *         value, as ParCalculator takes them
+	 */
+	public int[][] getTricks() {
+		int[][] result = new int[STRAINS.length][];
+		for (int strain = 0; strain < STRAINS.length; strain++) {
+			result[strain] = tricks[strain].clone();
+		}
+		return result;
+	}
+
+	/**
+	 * @return positions examined by all 20 searches
+	 */
+	public int getPositionsExamined() {
+		int result = 0;
+		for (int positions : positionsExamined) {
+			result += positions;
+		}
+		return result;
+	}
+
+	private static int strainIndex(Trump strain) {
+		for (int i = 0; i < STRAINS.length; i++) {
+			if (STRAINS[i].equals(strain)) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Unknown strain: " + strain);
+	}
+
+	/**
+	 * one row per declarer, north first, one column per strain
+	 */
+	@Override
+	public String toString() {
+		String result = "       C  D  H  S NT\n";
+		for (int i = 0; i < 4; i++) {
+			int declarer = (Direction.NORTH_DEPRECATED + i) % 4;
+			result += String.format("%-5s", Direction.instance(declarer));
+			for (int strain = 0; strain < STRAINS.length; strain++) {
+				result += String.format("%3d", tricks[strain][declarer]);
+			}
+			result += "\n";
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,394 @@
+package org.gnubridge.search;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.gnubridge.core.Card;
+
+/**
+ * Exact tricks of every position at the start of a trick with up to a few
+ * cards in each hand, worked out ahead of time so a search looks the last
+ * tricks up instead of playing them out.
+ * <p>
+ * Positions are kept by shape alone, the way Position.getKey() sees them: the
+ * player on lead counts as seat 0, the trump suit comes first, and each suit
+ * is reduced to which seat holds its highest card, the next highest and so
+ * on. For N cards per hand entries are numbered by the lengths of the suits,
+ * then by the sequence of holders read suit by suit from the top, and each
+ * holds the tricks of the pair on lead in two bits. With three cards per hand
+ * there are about 170 million of them, 42 MB, for notrump and as many for a
+ * suit contract.
+ * <p>
+ * main() writes a table to a file and open() maps one back read only, so
+ * every process using the file shares the same pages.
+ */
+public class EndgameTable {
+
+	public static final int MAX_CARDS_PER_HAND = 3;
+
+	private static final int MAGIC = 0x47424554;
+
+	private static final int VERSION = 1;
+
+	private static final int HEADER_BYTES = 12;
+
+	private static final int NOTRUMP = 0;
+
+	private static final int SUIT_CONTRACT = 1;
+
+	private static final int LENGTHS = Card.ACE + 2;
+
+	private static final int SPLIT_ENTRIES = 1 << 14;
+
+	/**
+	 * orderings of the cards still to be placed, by how many each seat has
+	 * left, two bits per seat from seat 0 up
+	 */
+	private static final int[] ARRANGEMENTS = new int[1 << 8];
+
+	/**
+	 * suit lengths, in trump first order, by number and the other way round,
+	 * for each number of cards per hand
+	 */
+	private static final int[][][] COMPOSITIONS = new int[MAX_CARDS_PER_HAND + 1][][];
+
+	private static final int[][] COMPOSITION_NUMBERS = new int[MAX_CARDS_PER_HAND + 1][LENGTHS * LENGTHS * LENGTHS];
+	static {
+		for (int left = 0; left < ARRANGEMENTS.length; left++) {
+			int cards = 0;
+			long divisor = 1;
+			for (int seat = 0; seat < 4; seat++) {
+				int count = cardsLeft(left, seat);
+				cards += count;
+				divisor *= factorial(count);
+			}
+			ARRANGEMENTS[left] = (int) (factorial(cards) / divisor);
+		}
+		for (int cardsPerHand = 1; cardsPerHand <= MAX_CARDS_PER_HAND; cardsPerHand++) {
+			int cards = 4 * cardsPerHand;
+			COMPOSITIONS[cardsPerHand] = new int[(cards + 3) * (cards + 2) * (cards + 1) / 6][];
+			int number = 0;
+			for (int first = 0; first <= cards; first++) {
+				for (int second = 0; first + second <= cards; second++) {
+					for (int third = 0; first + second + third <= cards; third++) {
+						COMPOSITIONS[cardsPerHand][number] = new int[] { first, second, third,
+								cards - first - second - third };
+						COMPOSITION_NUMBERS[cardsPerHand][(first * LENGTHS + second) * LENGTHS + third] = number;
+						number++;
+					}
+				}
+			}
+		}
+	}
+
+	private final ByteBuffer entries;
+
+	private final int maxCardsPerHand;
+
+	private final long[] offsets = new long[(MAX_CARDS_PER_HAND + 1) * 2];
+
+	private EndgameTable(ByteBuffer entries, int maxCardsPerHand) {
+		this.entries = entries;
+		this.maxCardsPerHand = maxCardsPerHand;
+		long offset = 0;
+		for (int cardsPerHand = 1; cardsPerHand <= maxCardsPerHand; cardsPerHand++) {
+			for (int kind = NOTRUMP; kind <= SUIT_CONTRACT; kind++) {
+				offsets[cardsPerHand * 2 + kind] = offset;
+				offset += entryCount(cardsPerHand);
+			}
+		}
+	}
+
+	/**
+	 * works out every position with up to maxCardsPerHand cards in each hand,
+	 * on all processors; with three that takes a while, see main()
+	 */
+	public static EndgameTable generate(int maxCardsPerHand) {
+		if (maxCardsPerHand < 1 || maxCardsPerHand > MAX_CARDS_PER_HAND) {
+			throw new IllegalArgumentException("Endgame tables hold from 1 to " + MAX_CARDS_PER_HAND
+					+ " cards per hand, not " + maxCardsPerHand);
+		}
+		byte[] bytes = new byte[(int) entryBytes(maxCardsPerHand)];
+		EndgameTable result = new EndgameTable(ByteBuffer.wrap(bytes), maxCardsPerHand);
+		ForkJoinPool pool = new ForkJoinPool();
+		try {
+			for (int cardsPerHand = 1; cardsPerHand <= maxCardsPerHand; cardsPerHand++) {
+				for (int kind = NOTRUMP; kind <= SUIT_CONTRACT; kind++) {
+					long offset = result.offsets[cardsPerHand * 2 + kind];
+					pool.invoke(result.new Fill(bytes, cardsPerHand, kind, offset, offset + entryCount(cardsPerHand)));
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+		return result;
+	}
+
+	/**
+	 * maps a table written by write()
+	 */
+	public static EndgameTable open(File file) throws IOException {
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = in.getChannel();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+			}
+			header.flip();
+			if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new IOException(file + " is not an endgame table");
+			}
+			int maxCardsPerHand = header.getInt();
+			if (maxCardsPerHand < 1 || maxCardsPerHand > MAX_CARDS_PER_HAND
+					|| channel.size() != HEADER_BYTES + entryBytes(maxCardsPerHand)) {
+				throw new IOException(file + " is not a complete endgame table");
+			}
+			return new EndgameTable(channel.map(MapMode.READ_ONLY, HEADER_BYTES, entryBytes(maxCardsPerHand)),
+					maxCardsPerHand);
+		} finally {
+			in.close();
+		}
+	}
+
+	public void write(File file) throws IOException {
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			FileChannel channel = out.getChannel();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			header.putInt(MAGIC).putInt(VERSION).putInt(maxCardsPerHand).flip();
+			ByteBuffer body = entries.duplicate();
+			body.clear();
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			while (body.hasRemaining()) {
+				channel.write(body);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	public int getMaxCardsPerHand() {
+		return maxCardsPerHand;
+	}
+
+	/**
+	 * @return whether position starts a trick with few enough cards left to
+	 *         be in the table
+	 */
+	public boolean covers(Position position) {
+		if (position.getTrickSize() != 0) {
+			return false;
+		}
+		int cardsPerHand = Long.bitCount(position.getHand(position.getNextToPlay()));
+		return cardsPerHand > 0 && cardsPerHand <= maxCardsPerHand;
+	}
+
+	/**
+	 * @return tricks the pair on lead takes from a position the table covers
+	 *         to the end of the deal
+	 */
+	public int getTricks(Position position) {
+		long entry = entry(position, Long.bitCount(position.getHand(position.getNextToPlay())));
+		return (entries.get((int) (entry >>> 2)) >>> ((entry & 3) * 2)) & 3;
+	}
+
+	private long entry(Position position, int cardsPerHand) {
+		int leader = position.getNextToPlay();
+		int trump = position.getTrump();
+		long remaining = position.getHand(0) | position.getHand(1) | position.getHand(2) | position.getHand(3);
+		int left = allCardsLeft(cardsPerHand);
+		int lengths = 0;
+		int arrangement = 0;
+		for (int slot = 0; slot < 4; slot++) {
+			long cards = remaining & Position.suitMask(suitInSlot(slot, trump));
+			if (slot < 3) {
+				lengths = lengths * LENGTHS + Long.bitCount(cards);
+			}
+			for (; cards != 0; cards &= ~Long.highestOneBit(cards)) {
+				long card = Long.highestOneBit(cards);
+				int holder = 0;
+				while ((position.getHand((leader + holder) & 3) & card) == 0) {
+					if (cardsLeft(left, holder) > 0) {
+						arrangement += ARRANGEMENTS[left - (1 << (2 * holder))];
+					}
+					holder++;
+				}
+				left -= 1 << (2 * holder);
+			}
+		}
+		int kind = trump == Position.NO_TRUMP ? NOTRUMP : SUIT_CONTRACT;
+		return offsets[cardsPerHand * 2 + kind] + (long) COMPOSITION_NUMBERS[cardsPerHand][lengths]
+				* ARRANGEMENTS[allCardsLeft(cardsPerHand)] + arrangement;
+	}
+
+	/**
+	 * the trump suit first, then the others from clubs up
+	 */
+	private static int suitInSlot(int slot, int trump) {
+		if (trump == Position.NO_TRUMP) {
+			return slot;
+		}
+		if (slot == 0) {
+			return trump;
+		}
+		return slot <= trump ? slot - 1 : slot;
+	}
+
+	/**
+	 * the position an entry stands for: seat 0 on lead, clubs trumps in a
+	 * suit contract and the top cards of each suit held
+	 */
+	private static Position position(int cardsPerHand, int kind, long number) {
+		int arrangements = ARRANGEMENTS[allCardsLeft(cardsPerHand)];
+		int[] lengths = COMPOSITIONS[cardsPerHand][(int) (number / arrangements)];
+		int arrangement = (int) (number % arrangements);
+		int left = allCardsLeft(cardsPerHand);
+		long[] hands = new long[4];
+		for (int suit = 0; suit < 4; suit++) {
+			for (int i = 0; i < lengths[suit]; i++) {
+				int holder = 0;
+				while (cardsLeft(left, holder) == 0 || arrangement >= ARRANGEMENTS[left - (1 << (2 * holder))]) {
+					if (cardsLeft(left, holder) > 0) {
+						arrangement -= ARRANGEMENTS[left - (1 << (2 * holder))];
+					}
+					holder++;
+				}
+				hands[holder] |= Position.bit(suit * (Card.ACE + 1) + Card.ACE - i);
+				left -= 1 << (2 * holder);
+			}
+		}
+		return new Position(hands, kind == NOTRUMP ? Position.NO_TRUMP : 0, 0);
+	}
+
+	/**
+	 * Plays out the trick, each pair choosing the card best for it, and looks
+	 * up what follows in the entries for one card less per hand.
+	 *
+	 * @return tricks of the pair that led
+	 */
+	private int playTrick(Position position, int cardsPlayed, int cardsPerHand) {
+		if (cardsPlayed == 4) {
+			int winnerTricks = 1 + (cardsPerHand > 1 ? getTricks(position) : 0);
+			return Position.pair(position.getNextToPlay()) == Position.pair(position.getTrickLeader()) ? winnerTricks
+					: cardsPerHand - winnerTricks;
+		}
+		boolean leaderPair = cardsPlayed % 2 == 0;
+		int best = leaderPair ? -1 : cardsPerHand + 1;
+		long hand = position.getHand(position.getNextToPlay());
+		long live = position.getHand(0) | position.getHand(1) | position.getHand(2) | position.getHand(3);
+		for (int i = 0; i < cardsPlayed; i++) {
+			live |= Position.bit(position.getTrickCard(i));
+		}
+		for (long moves = position.getLegalMoves(); moves != 0; moves &= moves - 1) {
+			int card = Long.numberOfTrailingZeros(moves);
+			long higher = live & Position.suitMask(Position.suit(card)) & ~((Position.bit(card) << 1) - 1);
+			if ((Long.lowestOneBit(higher) & hand) != 0) {
+				// plays the same as the next card up
+				continue;
+			}
+			position.play(card);
+			int tricks = playTrick(position, cardsPlayed + 1, cardsPerHand);
+			position.unplay();
+			if (leaderPair ? tricks > best : tricks < best) {
+				best = tricks;
+				if (best == (leaderPair ? cardsPerHand : 0)) {
+					break;
+				}
+			}
+		}
+		return best;
+	}
+
+	private static int cardsLeft(int left, int seat) {
+		return (left >>> (2 * seat)) & 3;
+	}
+
+	private static int allCardsLeft(int cardsPerHand) {
+		return cardsPerHand * 0x55;
+	}
+
+	private static long factorial(int n) {
+		long result = 1;
+		for (int i = 2; i <= n; i++) {
+			result *= i;
+		}
+		return result;
+	}
+
+	private static long entryCount(int cardsPerHand) {
+		return (long) COMPOSITIONS[cardsPerHand].length * ARRANGEMENTS[allCardsLeft(cardsPerHand)];
+	}
+
+	private static long entryBytes(int maxCardsPerHand) {
+		long entries = 0;
+		for (int cardsPerHand = 1; cardsPerHand <= maxCardsPerHand; cardsPerHand++) {
+			entries += 2 * entryCount(cardsPerHand);
+		}
+		return (entries + 3) / 4;
+	}
+
+	/**
+	 * works out the entries from first to last of one number of cards per
+	 * hand and kind of contract; ranges are split on whole bytes so no two
+	 * tasks write the same one
+	 */
+	private class Fill extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final byte[] bytes;
+
+		private final int cardsPerHand;
+
+		private final int kind;
+
+		private final long first;
+
+		private final long last;
+
+		Fill(byte[] bytes, int cardsPerHand, int kind, long first, long last) {
+			this.bytes = bytes;
+			this.cardsPerHand = cardsPerHand;
+			this.kind = kind;
+			this.first = first;
+			this.last = last;
+		}
+
+		@Override
+		protected void compute() {
+			if (last - first > SPLIT_ENTRIES) {
+				long middle = (first + last) / 2 & ~3L;
+				invokeAll(new Fill(bytes, cardsPerHand, kind, first, middle), new Fill(bytes, cardsPerHand, kind,
+						middle, last));
+				return;
+			}
+			long offset = offsets[cardsPerHand * 2 + kind];
+			for (long entry = first; entry < last; entry++) {
+				int tricks = playTrick(position(cardsPerHand, kind, entry - offset), 0, cardsPerHand);
+				bytes[(int) (entry >>> 2)] |= tricks << ((entry & 3) * 2);
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: EndgameTable <table file> [cards per hand, 1 to " + MAX_CARDS_PER_HAND + "]");
+			System.exit(1);
+		}
+		int maxCardsPerHand = args.length > 1 ? Integer.parseInt(args[1]) : MAX_CARDS_PER_HAND;
+		long start = System.currentTimeMillis();
+		generate(maxCardsPerHand).write(new File(args[0]));
+		System.out.println("Wrote endgame table of up to " + maxCardsPerHand + " cards per hand to " + args[0]
+				+ " in " + (System.currentTimeMillis() - start) / 1000 + " s");
+	}
+
+}
@@ -0,0 +1,86 @@
+package org.gnubridge.search;
+
+/**
+ * Counts the winners each pair can be expected to take and splits the other
+ * tricks evenly, the pair on lead getting the odd one, within what
+ * TrickBounds allows.
+ * <p>
+ * A pair's winners in a suit are its top cards in sequence, no more than its
+ * longer hand holds. Once those have drawn the opponents' cards the long
+ * cards count too, in notrump and trumps, or in any suit when the opponents
+ * have no trumps; in trumps length over the opponents counts as well.
+ * Otherwise side suit winners only count up to the round an opponent can
+ * ruff. For the pair on lead, winners in a suit the leader is out of only
+ * count when partner has an entry.
+ */
+public class HeuristicLeafEvaluator implements LeafEvaluator {
+
+	@Override
+	public int evaluate(Position position) {
+		int leader = position.getNextToPlay();
+		int tricksLeft = Long.bitCount(position.getHand(leader));
+		int leaderWinners = Math.min(winners(position, leader), tricksLeft);
+		int otherWinners = Math.min(winners(position, (leader + 1) % 4), tricksLeft - leaderWinners);
+		int estimate = leaderWinners + (tricksLeft - leaderWinners - otherWinners + 1) / 2;
+		int lower = Math.min(TrickBounds.quickTricks(position), tricksLeft);
+		int upper = tricksLeft - TrickBounds.sureTrumpWinners(position, Position.pair((leader + 1) % 4));
+		return Math.max(lower, Math.min(upper, estimate));
+	}
+
+	private static int winners(Position position, int seat) {
+		long hand = position.getHand(seat);
+		long partner = position.getHand((seat + 2) % 4);
+		long opponents = position.getHand((seat + 1) % 4) | position.getHand((seat + 3) % 4);
+		boolean onLead = seat == position.getNextToPlay();
+		boolean partnerReached = !onLead || hasEntry(position, hand, partner);
+		int trump = position.getTrump();
+		boolean opponentsCanRuff = trump != Position.NO_TRUMP && (opponents & Position.suitMask(trump)) != 0;
+		int result = 0;
+		for (int suit = 0; suit < 4; suit++) {
+			long suitMask = Position.suitMask(suit);
+			int longest = Math.max(Long.bitCount(hand & suitMask), Long.bitCount(partner & suitMask));
+			int opponentsLongest = Math.max(Long.bitCount(position.getHand((seat + 1) % 4) & suitMask), Long
+					.bitCount(position.getHand((seat + 3) % 4) & suitMask));
+			int winners = Math.min(TrickBounds.topSequenceLength((hand | partner | opponents) & suitMask, hand
+					| partner), longest);
+			if (suit == trump || !opponentsCanRuff) {
+				if (winners >= opponentsLongest) {
+					winners = longest;
+				} else if (suit == trump) {
+					winners = Math.max(winners, longest - opponentsLongest);
+				}
+			} else {
+				winners = Math.min(winners, TrickBounds.roundsBeforeRuff(position, seat, suitMask));
+			}
+			if ((hand & suitMask) == 0 && !partnerReached) {
+				winners = 0;
+			}
+			result += winners;
+		}
+		return result;
+	}
+
+	/**
+	 * @return whether the leader can put partner on lead, leading to a top
+	 *         card or to a ruff
+	 */
+	private static boolean hasEntry(Position position, long hand, long partner) {
+		long remaining = position.getHand(0) | position.getHand(1) | position.getHand(2) | position.getHand(3);
+		int trump = position.getTrump();
+		for (int suit = 0; suit < 4; suit++) {
+			long suitMask = Position.suitMask(suit);
+			if ((hand & suitMask) == 0) {
+				continue;
+			}
+			if ((partner & Long.highestOneBit(remaining & suitMask)) != 0) {
+				return true;
+			}
+			if (trump != Position.NO_TRUMP && suit != trump && (partner & suitMask) == 0
+					&& (partner & Position.suitMask(trump)) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
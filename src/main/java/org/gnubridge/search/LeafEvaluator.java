@@ -0,0 +1,18 @@
+package org.gnubridge.search;
+
+/**
+ * Estimates the tricks still to come in a position where a search limited to
+ * some number of tricks stops. With one, such a search counts tricks to the
+ * end of the deal instead of only those it plays out.
+ */
+public interface LeafEvaluator {
+
+	/**
+	 * @param position at the start of a trick, with cards left to play; not
+	 *            to be changed
+	 * @return tricks the pair on lead takes from here to the end of the deal,
+	 *         at most the number of cards left in each hand
+	 */
+	public int evaluate(Position position);
+
+}
@@ -0,0 +1,534 @@
+package org.gnubridge.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.gnubridge.core.Card;
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.Direction;
+import org.gnubridge.core.Hand;
+import org.gnubridge.core.Player;
+import org.gnubridge.core.Trick;
+import org.gnubridge.core.bidding.Bid;
+import org.gnubridge.core.bidding.ScoreCalculator;
+import org.gnubridge.core.bidding.Vulnerability;
+
+/**
+ * Picks a card seeing only what the player to move sees: their own hand, and
+ * dummy's once the opening lead is made. South is declarer and plays
+ * dummy's cards too, as in the game. The cards not seen are dealt at random
+ * to the other hands, keeping to the number of cards each holds and to the
+ * suits they showed out of, and each layout is solved double dummy once for
+ * every card that can be played. The card taking the most tricks on average,
+ * or scoring the most if a contract is set, is played.
+ * <p>
+ * Layouts are solved on a pool of worker threads, a batch at a time, each
+ * search taking a position table left by one before it and clearing it rather
+ * than allocating its own. Sampling
+ * stops early once one card beats every other by more than chance would
+ * explain, comparing them layout by layout.
+ * <p>
+ * Voids are read from the tricks each player took, which Deal.duplicate()
+ * does not keep, so the deal should be the one being played.
+ */
+public class MonteCarloPlayer {
+
+	public static final int DEFAULT_SAMPLES = 50;
+
+	public static final int DEFAULT_MINIMUM_SAMPLES = 10;
+
+	/**
+	 * how many standard errors a card must be ahead by, about 99.5% one sided
+	 */
+	private static final double DOMINANCE_STANDARD_ERRORS = 2.58;
+
+	private static final int ATTEMPTS_TO_DEAL_LAYOUT = 100;
+
+	private final SolverConfigurator configurator;
+
+	private final ForkJoinPool pool;
+
+	private final Random random;
+
+	private int samples = DEFAULT_SAMPLES;
+
+	private int minimumSamples = DEFAULT_MINIMUM_SAMPLES;
+
+	private int maxTricks = 13;
+
+	private Bid contract;
+
+	private Vulnerability vulnerability;
+
+	private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+	private List<Card> candidates = new ArrayList<Card>();
+
+	private List<int[]> results = new ArrayList<int[]>();
+
+	private volatile List<SampleSearch> batch = new ArrayList<SampleSearch>();
+
+	/**
+	 * position tables not in use, about one per worker thread
+	 */
+	private final Queue<PositionLookup> spareLookups = new ConcurrentLinkedQueue<PositionLookup>();
+
+	/**
+	 * @param configurator settings of the double dummy searches, best without
+	 *            a pool of their own as the layouts are already solved in
+	 *            parallel
+	 * @param pool the layouts are solved on
+	 */
+	public MonteCarloPlayer(SolverConfigurator configurator, ForkJoinPool pool, Random random) {
+		this.configurator = configurator;
+		this.pool = pool;
+		this.random = random;
+	}
+
+	/**
+	 * most layouts solved for one card
+	 */
+	public void setSamples(int samples) {
+		this.samples = samples;
+	}
+
+	/**
+	 * layouts solved before sampling may stop early
+	 */
+	public void setMinimumSamples(int minimumSamples) {
+		this.minimumSamples = minimumSamples;
+	}
+
+	/**
+	 * tricks each layout is searched to
+	 */
+	public void setMaxTricks(int maxTricks) {
+		this.maxTricks = maxTricks;
+	}
+
+	/**
+	 * Compare cards on the score of the contract rather than on tricks, ie.
+	 * value making it over overtricks. Only sound when layouts are searched to
+	 * the last trick.
+	 */
+	public void setContract(Bid contract, Vulnerability vulnerability) {
+		this.contract = contract;
+		this.vulnerability = vulnerability;
+	}
+
+	public Card choose(Deal game) {
+		return choose(game, Deadline.NONE);
+	}
+
+	/**
+	 * Samples layouts until one card dominates, the samples run out or the
+	 * deadline passes. A layout still being solved at the deadline does not
+	 * count. Interrupting the thread stops it the same way.
+	 *
+	 * @return the card to play, or null if not one layout was solved in time
+	 */
+	public Card choose(Deal game, Deadline deadline) {
+		cancelled.set(false);
+		int viewer = viewer(game);
+		List<Card> legalMoves = game.getPossibleMoves();
+		candidates = candidates(game, legalMoves);
+		results = new ArrayList<int[]>();
+		if (candidates.size() == 1) {
+			return candidates.get(0);
+		}
+		Layouts layouts = new Layouts(game, viewer);
+		int batchSize = 2 * pool.getParallelism();
+		while (results.size() < samples && !deadline.hasPassed() && !isDominant()) {
+			List<SampleSearch> searches = new ArrayList<SampleSearch>();
+			for (int i = results.size(); i < samples && searches.size() < batchSize; i++) {
+				searches.add(new SampleSearch(layouts.deal(random), game, deadline));
+			}
+			batch = searches;
+			for (SampleSearch search : searches) {
+				pool.execute(search);
+			}
+			if (!waitFor(searches)) {
+				break;
+			}
+		}
+		return best();
+	}
+
+	/**
+	 * @return false if interrupted; the layouts solved by then are kept
+	 */
+	private boolean waitFor(List<SampleSearch> searches) {
+		boolean interrupted = false;
+		for (SampleSearch search : searches) {
+			while (true) {
+				try {
+					search.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+					cancel();
+				} catch (ExecutionException e) {
+					throw new RuntimeException(e.getCause());
+				}
+			}
+			if (search.completed) {
+				results.add(search.values);
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		return !interrupted;
+	}
+
+	/**
+	 * Stops sampling, and the searches of the layouts being solved, as soon
+	 * as they next look.
+	 */
+	public void cancel() {
+		cancelled.set(true);
+		for (SampleSearch search : batch) {
+			DoubleDummySolver solver = search.solver;
+			if (solver != null) {
+				solver.cancel();
+			}
+		}
+	}
+
+	/**
+	 * @return layouts solved by the last choice
+	 */
+	public int getSamplesSolved() {
+		return results.size();
+	}
+
+	/**
+	 * @return tricks, or score, the card averaged in the last choice; cards in
+	 *         sequence with it average the same
+	 */
+	public double getAverage(Card card) {
+		for (int i = 0; i < candidates.size(); i++) {
+			if (candidates.get(i).equals(card)) {
+				return average(i);
+			}
+		}
+		throw new IllegalArgumentException("Not a card compared in the last choice: " + card);
+	}
+
+	/**
+	 * South plays dummy's cards as well
+	 */
+	static int viewer(Deal game) {
+		int seat = game.getNextToPlay().getDirection();
+		return seat == Direction.NORTH_DEPRECATED ? Direction.SOUTH_DEPRECATED : seat;
+	}
+
+	/**
+	 * @return the lowest of each group of legal cards in sequence; two cards
+	 *         are when all the cards between them are held by the player to
+	 *         move, or were played to earlier tricks, so they take the same
+	 *         tricks in every layout
+	 */
+	static List<Card> candidates(Deal game, List<Card> legalMoves) {
+		List<Card> sorted = new ArrayList<Card>(legalMoves);
+		Collections.sort(sorted, new Comparator<Card>() {
+			@Override
+			public int compare(Card card, Card other) {
+				return card.getIndex() - other.getIndex();
+			}
+		});
+		Hand hand = new Hand(game.getNextToPlay().getHand());
+		List<Card> currentTrick = game.getCurrentTrick().getCards();
+		List<Card> result = new ArrayList<Card>();
+		Card previous = null;
+		for (Card card : sorted) {
+			boolean inSequence = previous != null && previous.hasSameColorAs(card);
+			for (int value = card.getValue() - 1; inSequence && value > previous.getValue(); value--) {
+				Card between = new Card(value, card.getDenomination());
+				inSequence = hand.contains(between)
+						|| (game.getPlayedCards().contains(between) && !currentTrick.contains(between));
+			}
+			if (!inSequence) {
+				result.add(card);
+			}
+			previous = card;
+		}
+		return result;
+	}
+
+	/**
+	 * A card dominates when, layout by layout, it beats each other card by
+	 * more than DOMINANCE_STANDARD_ERRORS standard errors on average.
+	 */
+	private boolean isDominant() {
+		int n = results.size();
+		if (n < Math.max(2, minimumSamples)) {
+			return false;
+		}
+		int best = bestCandidate();
+		for (int other = 0; other < candidates.size(); other++) {
+			if (other == best) {
+				continue;
+			}
+			double sum = 0;
+			double sumOfSquares = 0;
+			for (int[] values : results) {
+				int difference = values[best] - values[other];
+				sum += difference;
+				sumOfSquares += difference * difference;
+			}
+			double mean = sum / n;
+			double variance = Math.max(0, (sumOfSquares - n * mean * mean) / (n - 1));
+			if (mean - DOMINANCE_STANDARD_ERRORS * Math.sqrt(variance / n) <= 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Card best() {
+		if (results.isEmpty()) {
+			return null;
+		}
+		return candidates.get(bestCandidate());
+	}
+
+	/**
+	 * highest average, of equal ones the lowest card
+	 */
+	private int bestCandidate() {
+		int result = 0;
+		for (int i = 1; i < candidates.size(); i++) {
+			double difference = average(i) - average(result);
+			if (difference > 0
+					|| (difference == 0 && candidates.get(i).getValue() < candidates.get(result).getValue())) {
+				result = i;
+			}
+		}
+		return result;
+	}
+
+	private double average(int candidate) {
+		if (results.isEmpty()) {
+			return 0;
+		}
+		double sum = 0;
+		for (int[] values : results) {
+			sum += values[candidate];
+		}
+		return sum / results.size();
+	}
+
+	/**
+	 * @param tricks taken by the pair from the deal being played on
+	 */
+	private int value(Deal game, int pair, int tricks) {
+		if (contract == null) {
+			return tricks;
+		}
+		int declarerTricks = game.getDeclarerTricksTaken();
+		int tricksLeft = game.getNextToPlay().getUnplayedCardsCount();
+		declarerTricks += pair == Player.NORTH_SOUTH ? tricks : tricksLeft - tricks;
+		ScoreCalculator score = new ScoreCalculator(contract, declarerTricks, vulnerability);
+		int declarerScore = score.getDeclarerScore() - score.getDefenderScore();
+		return pair == Player.NORTH_SOUTH ? declarerScore : -declarerScore;
+	}
+
+	/**
+	 * The hands the viewer cannot see and what they are known to hold: how
+	 * many cards, and none of the suits they showed out of.
+	 */
+	static class Layouts {
+
+		private final Deal game;
+
+		private final List<Integer> hidden = new ArrayList<Integer>();
+
+		private final List<Card> unseen = new ArrayList<Card>();
+
+		private final boolean[][] voids = new boolean[4][4];
+
+		Layouts(Deal game, int viewer) {
+			this.game = game;
+			boolean dummySeen = !game.getPlayedCards().isEmpty();
+			for (int seat = Direction.WEST_DEPRECATED; seat <= Direction.SOUTH_DEPRECATED; seat++) {
+				if (seat != viewer && !(seat == Direction.NORTH_DEPRECATED && dummySeen)) {
+					hidden.add(seat);
+					unseen.addAll(game.getPlayer(seat).getHand());
+				}
+			}
+			List<Trick> tricks = new ArrayList<Trick>();
+			for (Player player : game.getPlayers()) {
+				tricks.addAll(player.getTricksTaken());
+			}
+			tricks.add(game.getCurrentTrick());
+			for (Trick trick : tricks) {
+				for (Card card : trick.getCards()) {
+					if (!card.hasSameColorAs(trick.getCards().get(0))) {
+						voids[trick.whoPlayed(card).getDirection()][suit(trick.getCards().get(0))] = true;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Deals the cards with the fewest hands to go to first, each to one of
+		 * them at random weighted by the room left in it; with the dealing
+		 * unconstrained that picks every layout with the same chance. Starts
+		 * over when a card has nowhere to go.
+		 */
+		Deal deal(Random random) {
+			List<Card> cards = new ArrayList<Card>(unseen);
+			Collections.shuffle(cards, random);
+			Collections.sort(cards, new Comparator<Card>() {
+				@Override
+				public int compare(Card card, Card other) {
+					return eligibleHands(card) - eligibleHands(other);
+				}
+			});
+			for (int attempt = 0; attempt < ATTEMPTS_TO_DEAL_LAYOUT; attempt++) {
+				List<List<Card>> hands = tryToDeal(cards, random);
+				if (hands != null) {
+					Deal result = game.duplicate();
+					for (int i = 0; i < hidden.size(); i++) {
+						Player player = result.getPlayer(hidden.get(i));
+						player.getHand().clear();
+						player.init(hands.get(i));
+					}
+					return result;
+				}
+			}
+			throw new IllegalStateException("Cannot deal the unseen cards to hands void in their suits: " + unseen);
+		}
+
+		private List<List<Card>> tryToDeal(List<Card> cards, Random random) {
+			List<List<Card>> result = new ArrayList<List<Card>>();
+			int[] room = new int[hidden.size()];
+			for (int i = 0; i < hidden.size(); i++) {
+				result.add(new ArrayList<Card>());
+				room[i] = game.getPlayer(hidden.get(i)).getUnplayedCardsCount();
+			}
+			for (Card card : cards) {
+				int totalRoom = 0;
+				for (int i = 0; i < hidden.size(); i++) {
+					if (canHold(i, card)) {
+						totalRoom += room[i];
+					}
+				}
+				if (totalRoom == 0) {
+					return null;
+				}
+				int pick = random.nextInt(totalRoom);
+				for (int i = 0; i < hidden.size(); i++) {
+					if (canHold(i, card)) {
+						pick -= room[i];
+						if (pick < 0) {
+							result.get(i).add(card);
+							room[i]--;
+							break;
+						}
+					}
+				}
+			}
+			return result;
+		}
+
+		private boolean canHold(int hand, Card card) {
+			return !voids[hidden.get(hand)][suit(card)];
+		}
+
+		private int eligibleHands(Card card) {
+			int result = 0;
+			for (int i = 0; i < hidden.size(); i++) {
+				if (canHold(i, card)) {
+					result++;
+				}
+			}
+			return result;
+		}
+
+		private static int suit(Card card) {
+			return card.getIndex() / (Card.ACE + 1);
+		}
+	}
+
+	/**
+	 * Solves one layout once for each candidate card.
+	 */
+	private class SampleSearch extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Deal layout;
+
+		private final Deal game;
+
+		private final Deadline deadline;
+
+		private final int[] values = new int[candidates.size()];
+
+		private final List<Card> moves = candidates;
+
+		private volatile boolean completed;
+
+		private volatile DoubleDummySolver solver;
+
+		SampleSearch(Deal layout, Deal game, Deadline deadline) {
+			this.layout = layout;
+			this.game = game;
+			this.deadline = deadline;
+		}
+
+		@Override
+		protected void compute() {
+			PositionLookup lookup = spareLookups.poll();
+			if (lookup == null) {
+				lookup = new PositionLookup();
+			} else {
+				lookup.clear();
+			}
+			try {
+				solve(new SolverSession(configurator, lookup));
+			} finally {
+				spareLookups.add(lookup);
+			}
+		}
+
+		private void solve(SolverSession session) {
+			int pair = layout.getNextToPlay().pair();
+			for (int i = 0; i < moves.size(); i++) {
+				if (cancelled.get()) {
+					return;
+				}
+				Deal afterMove = layout.duplicate();
+				afterMove.play(moves.get(i));
+				int tricks = afterMove.getTricksTaken(pair);
+				if (!afterMove.isDone()) {
+					solver = session.newSolver(afterMove);
+					solver.setTerminateIfRootOnlyHasOneValidMove(false);
+					solver.setMaxTricks(maxTricks);
+					if (cancelled.get()) {
+						return;
+					}
+					solver.search(deadline, null);
+					if (!solver.isCompleted()) {
+						return;
+					}
+					tricks += solver.getTricksTaken(pair);
+				}
+				values[i] = value(game, pair, tricks);
+			}
+			completed = true;
+		}
+	}
+
+}
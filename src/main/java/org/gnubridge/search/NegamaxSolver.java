@@ -0,0 +1,426 @@
+package org.gnubridge.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.gnubridge.core.Card;
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.Player;
+import org.gnubridge.search.ordering.MoveOrdering;
+
+/**
+ * Recursive alpha-beta search in negamax form over one Position, played and
+ * taken back as the search goes down and up. Nothing is allocated per
+ * position and only the principal variation is kept, so memory does not grow
+ * with the size of the tree the way DoubleDummySolver's nodes do.
+ * <p>
+ * Scores are north/south tricks counted from the root, negated when east/west
+ * is to play. Since a pair keeps the lead when it wins a trick, a move only
+ * negates the score and swaps the window when the pair to play changes.
+ * <p>
+ * Finds the same tricks and, like DoubleDummySolver, the lowest card of those
+ * that take them.
+ */
+public class NegamaxSolver implements Solver {
+
+	private static final int MAX_DEPTH = Card.COUNT;
+
+	private static final int WIN = Card.COUNT;
+
+	private final Deal game;
+
+	private final TranspositionTable table;
+
+	private final OrderedMoves moves;
+
+	private final TrickBounds bounds = new TrickBounds();
+
+	private Position position;
+
+	private int maxTricks = 13;
+
+	private boolean useTrickBounds;
+
+	private boolean shouldPruneCardsInSequence = true;
+
+	private boolean terminateIfRootOnlyHasOneValidMove = true;
+
+	private int positionsCount;
+
+	private SearchStats stats = new SearchStats();
+
+	private int rootSign;
+
+	private final int[] tricksTaken = new int[2];
+
+	private final int[][] principalVariation = new int[MAX_DEPTH + 1][MAX_DEPTH + 1];
+
+	private final int[] principalVariationLength = new int[MAX_DEPTH + 1];
+
+	private long runningTime;
+
+	private Deadline deadline = Deadline.NONE;
+
+	private ProgressListener listener;
+
+	private boolean stoppedEarly;
+
+	private volatile boolean cancelled;
+
+	private boolean completed;
+
+	private final SearchMonitor searchMonitor;
+
+	public NegamaxSolver(Deal game) {
+		this(game, SolverConfigurator.Default);
+	}
+
+	public NegamaxSolver(Deal game, SolverConfigurator configurator) {
+		this(game, configurator, new PositionLookup(), null);
+	}
+
+	/**
+	 * searches with the position table and move orderings of a session
+	 */
+	public NegamaxSolver(Deal game, SolverSession session) {
+		this(game, session.getConfigurator(), session.getPositionLookup(), session.getMoveOrderings());
+	}
+
+	private NegamaxSolver(Deal game, SolverConfigurator configurator, PositionLookup lookup,
+			List<MoveOrdering> moveOrderings) {
+		this.game = game;
+		table = lookup.getTable();
+		if (moveOrderings == null) {
+			moveOrderings = configurator.createMoveOrderings();
+		}
+		moves = new OrderedMoves(moveOrderings);
+		useTrickBounds = configurator.isUseTrickBounds();
+		searchMonitor = configurator.getSearchMonitor();
+	}
+
+	@Override
+	public void setMaxTricks(int maxTricks) {
+		this.maxTricks = maxTricks;
+	}
+
+	public void setUseTrickBounds(boolean useTrickBounds) {
+		this.useTrickBounds = useTrickBounds;
+	}
+
+	public void setShouldPruneCardsInSequence(boolean shouldPruneCardsInSequence) {
+		this.shouldPruneCardsInSequence = shouldPruneCardsInSequence;
+		moves.setShouldPruneCardsInSequence(shouldPruneCardsInSequence);
+	}
+
+	@Override
+	public void setTerminateIfRootOnlyHasOneValidMove(boolean terminateIfRootOnlyHasOneValidMove) {
+		this.terminateIfRootOnlyHasOneValidMove = terminateIfRootOnlyHasOneValidMove;
+	}
+
+	@Override
+	public Card search(Deadline deadline, ProgressListener listener) {
+		this.deadline = deadline;
+		this.listener = listener;
+		try {
+			search();
+		} finally {
+			this.deadline = Deadline.NONE;
+			this.listener = null;
+		}
+		List<Card> bestMoves = getBestMoves();
+		return bestMoves.isEmpty() ? null : bestMoves.get(0);
+	}
+
+	/**
+	 * Searches the moves at the root lowest card first, each with a window
+	 * just above the best found so far, so a later move only replaces it when
+	 * it takes more tricks.
+	 */
+	@Override
+	public void search() {
+		long start = System.currentTimeMillis();
+		long allocatedBefore = SearchStats.allocatedBytesOfThisThread();
+		stats = new SearchStats();
+		moves.setStats(stats);
+		positionsCount = 1;
+		stats.positionExamined(0);
+		stoppedEarly = false;
+		completed = false;
+		position = new Position(game);
+		position.resetTricks();
+		rootSign = sign();
+		principalVariationLength[0] = 0;
+		tricksTaken[Player.WEST_EAST] = Node.UNITNITIALIZED;
+		tricksTaken[Player.NORTH_SOUTH] = Node.UNITNITIALIZED;
+		long rootMoves = rootMoves();
+		if (rootMoves == 0) {
+			tricksTaken[Player.WEST_EAST] = 0;
+			tricksTaken[Player.NORTH_SOUTH] = 0;
+		} else if (Long.bitCount(rootMoves) == 1 && terminateIfRootOnlyHasOneValidMove) {
+			principalVariation[0][0] = Long.numberOfTrailingZeros(rootMoves);
+			principalVariationLength[0] = 1;
+		} else {
+			int sign = sign();
+			int best = -WIN - 1;
+			int tricksCounted = PositionLookup.tricksCounted(0, Long.bitCount(position.getHand(position
+					.getNextToPlay())), maxTricks);
+			for (int value = 0; value <= Card.ACE && !stoppedEarly; value++) {
+				for (int suit = 0; suit < 4 && !stoppedEarly; suit++) {
+					int card = value + suit * (Card.ACE + 1);
+					if ((rootMoves & Position.bit(card)) == 0) {
+						continue;
+					}
+					position.play(card);
+					int score;
+					if (sign() == sign) {
+						score = search(best, WIN, 1);
+					} else {
+						score = -search(-WIN, -best, 1);
+					}
+					position.unplay();
+					if (stoppedEarly) {
+						if (principalVariationLength[0] == 0) {
+							principalVariation[0][0] = card;
+							principalVariationLength[0] = 1;
+						}
+					} else if (score > best) {
+						best = score;
+						updatePrincipalVariation(0, card);
+						if (listener != null) {
+							int tricks = sign > 0 ? best : tricksCounted + best;
+							listener.bestMoveFound(Position.card(card), tricks, positionsCount);
+						}
+					}
+				}
+			}
+			if (!stoppedEarly) {
+				tricksTaken[Player.NORTH_SOUTH] = sign * best;
+				tricksTaken[Player.WEST_EAST] = tricksCounted - sign * best;
+			}
+		}
+		completed = !stoppedEarly;
+		runningTime = System.currentTimeMillis() - start;
+		stats.allocated(allocatedBefore, SearchStats.allocatedBytesOfThisThread());
+		stats.setRunningTime(runningTime);
+		if (searchMonitor != null) {
+			searchMonitor.searchFinished(stats);
+		}
+	}
+
+	/**
+	 * @return legal moves at the root, of cards in sequence only the highest,
+	 *         the same moves DoubleDummySolver looks at
+	 */
+	private long rootMoves() {
+		long result = position.getLegalMoves();
+		if (shouldPruneCardsInSequence) {
+			for (long rest = result; rest != 0; rest &= rest - 1) {
+				int card = Long.numberOfTrailingZeros(rest);
+				if (Position.value(card) < Card.ACE && (result & Position.bit(card + 1)) != 0) {
+					result &= ~Position.bit(card);
+				}
+			}
+		}
+		return result;
+	}
+
+	private int sign() {
+		return Position.pair(position.getNextToPlay()) == Player.NORTH_SOUTH ? 1 : -1;
+	}
+
+	/**
+	 * @return score of the position for the pair to play: at most alpha when
+	 *         it cannot do better than alpha, at least beta when it can do
+	 *         that well, exact in between
+	 */
+	private int search(int alpha, int beta, int depth) {
+		positionsCount++;
+		stats.positionExamined(depth);
+		// every root move as well, or a search shorter than that would never stop
+		if ((depth == 1 || (positionsCount & 1023) == 0)
+				&& (cancelled || deadline.hasPassed() || Thread.currentThread().isInterrupted())) {
+			stoppedEarly = true;
+		}
+		if (stoppedEarly) {
+			return 0;
+		}
+		principalVariationLength[depth] = depth;
+		int sign = sign();
+		boolean atTrickStart = position.getTrickSize() == 0;
+		int northSouthTaken = position.getTricksTaken(Player.NORTH_SOUTH);
+		int tricksCounted = 0;
+		int lower = 0;
+		int upper = 0;
+		long key = 0;
+		int hashMove = TranspositionTable.NO_CARD;
+		boolean fromTable = false;
+		if (atTrickStart) {
+			tricksCounted = PositionLookup.tricksCounted(position, maxTricks);
+			lower = 0;
+			upper = tricksCounted;
+			if (tricksCounted > 0 && useTrickBounds) {
+				bounds.update(position, tricksCounted);
+				if (sign > 0) {
+					lower = bounds.getLowerBound();
+					upper = bounds.getUpperBound();
+				} else {
+					lower = tricksCounted - bounds.getUpperBound();
+					upper = tricksCounted - bounds.getLowerBound();
+				}
+			}
+			if (lower < upper && table != null) {
+				key = position.getKey();
+				long stored = table.get(key);
+				stats.tableProbe();
+				if (stored != 0) {
+					hashMove = position.absoluteCard(TranspositionTable.getBestCard(stored));
+				}
+				if (TranspositionTable.getTricksCounted(stored) == tricksCounted) {
+					if (TranspositionTable.hasTricks(stored)) {
+						lower = TranspositionTable.getNorthSouth(stored);
+						upper = lower;
+						fromTable = true;
+					} else if (TranspositionTable.hasBounds(stored)) {
+						lower = Math.max(lower, TranspositionTable.getLowerBound(stored));
+						upper = Math.min(upper, TranspositionTable.getUpperBound(stored));
+						fromTable = true;
+					}
+				}
+				if (fromTable) {
+					stats.tableHit();
+				}
+			}
+			int low = sign > 0 ? northSouthTaken + lower : -(northSouthTaken + upper);
+			int high = sign > 0 ? northSouthTaken + upper : -(northSouthTaken + lower);
+			if (low == high || low >= beta || high <= alpha) {
+				if (fromTable) {
+					stats.duplicatePositionCutoff();
+				} else if (useTrickBounds && tricksCounted > 0) {
+					stats.trickBoundsCutoff();
+				}
+				return low == high || low >= beta ? low : high;
+			}
+		}
+		int originalAlpha = alpha;
+		int best = -WIN - 1;
+		int bestCard = hashMove;
+		int count = moves.order(position, depth, hashMove);
+		for (int i = 0; i < count; i++) {
+			int card = moves.get(depth, i);
+			position.play(card);
+			int score;
+			if (sign() == sign) {
+				score = search(alpha, beta, depth + 1);
+			} else {
+				score = -search(-beta, -alpha, depth + 1);
+			}
+			position.unplay();
+			if (stoppedEarly) {
+				return 0;
+			}
+			if (score > best) {
+				best = score;
+				bestCard = card;
+				if (score > alpha) {
+					alpha = score;
+					updatePrincipalVariation(depth, card);
+				}
+				if (score >= beta) {
+					moves.cutoff(card, depth);
+					if (sign == rootSign) {
+						stats.betaCutoff();
+					} else {
+						stats.alphaCutoff();
+					}
+					break;
+				}
+			}
+		}
+		if (key != 0) {
+			int northSouth = sign * best - northSouthTaken;
+			boolean atLeast = best >= beta;
+			boolean atMost = best <= originalAlpha;
+			if (sign < 0) {
+				boolean swap = atLeast;
+				atLeast = atMost;
+				atMost = swap;
+			}
+			if (!atMost) {
+				lower = Math.max(lower, northSouth);
+			}
+			if (!atLeast) {
+				upper = Math.min(upper, northSouth);
+			}
+			table.putBounds(key, lower, upper, tricksCounted, Position.cardsLeft(key), position.relativeCard(bestCard));
+			stats.tableStore();
+		}
+		return best;
+	}
+
+	private void updatePrincipalVariation(int depth, int card) {
+		principalVariation[depth][depth] = card;
+		int length = depth + 1;
+		if (depth < MAX_DEPTH) {
+			for (int i = depth + 1; i < principalVariationLength[depth + 1]; i++) {
+				principalVariation[depth][i] = principalVariation[depth + 1][i];
+			}
+			length = Math.max(length, principalVariationLength[depth + 1]);
+		}
+		principalVariationLength[depth] = length;
+	}
+
+	@Override
+	public void cancel() {
+		cancelled = true;
+	}
+
+	@Override
+	public boolean isCompleted() {
+		return completed;
+	}
+
+	@Override
+	public List<Card> getBestMoves() {
+		List<Card> result = new ArrayList<Card>();
+		if (principalVariationLength[0] > 0) {
+			result.add(Position.card(principalVariation[0][0]));
+		}
+		return result;
+	}
+
+	/**
+	 * @return the cards best play follows from the root, as far as the search
+	 *         looked at them; it stops short where a position was settled by
+	 *         the table or by trick bounds
+	 */
+	public List<Card> getPrincipalVariation() {
+		List<Card> result = new ArrayList<Card>();
+		for (int i = 0; i < principalVariationLength[0]; i++) {
+			result.add(Position.card(principalVariation[0][i]));
+		}
+		return result;
+	}
+
+	@Override
+	public int getTricksTaken(int pair) {
+		return tricksTaken[pair];
+	}
+
+	@Override
+	public int getPositionsExamined() {
+		return positionsCount;
+	}
+
+	@Override
+	public SearchStats getStats() {
+		return stats;
+	}
+
+	public void printStats() {
+		System.out.println("Negamax search took (msec): " + runningTime);
+		System.out.print(stats);
+		System.out.println("West/East tricks taken: " + tricksTaken[Player.WEST_EAST]);
+		System.out.println("North/South tricks taken: " + tricksTaken[Player.NORTH_SOUTH]);
+	}
+
+}
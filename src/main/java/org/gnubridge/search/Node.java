@@ -25,6 +25,8 @@ public class Node {
 
 	private static final byte PRUNE_DUPLICATE_POSITION = PRUNE_SEQUENCE_SIBLINGS_PLAYED + 1;
 
+	private static final long NO_POSITION_KEY = -1;
+
 	int value;
 
 	Node parent;
@@ -49,17 +51,49 @@ public class Node {
 
 	private boolean valueSet = false;
 
-	private Deal position;
+	private final byte[] tricksTakenInPosition = new byte[2];
 
 	private byte[] identicalTwin;
 
+	private long positionKey = NO_POSITION_KEY;
+
+	private long positionCardsLeft;
+
+	private final int depth;
+
 	private Node alphaAtPruneTime;
 
+	private final Node root;
+
+	/**
+	 * nearest ancestors where the max pair and the other pair play, their
+	 * best children so far make this node's alpha and beta
+	 */
+	private Node alphaAncestor;
+
+	private Node betaAncestor;
+
+	/**
+	 * bumped on the root whenever a node of the tree is pruned, so nodes
+	 * know when to look up the pruned ancestor they remember again
+	 */
+	private int pruneGeneration;
+
+	private int prunedNodeGeneration = -1;
+
+	private Node prunedNode;
+
 	public Node(Node parent) {
 		this.parent = parent;
 		children = new ArrayList<Node>();
 		if (parent != null) {
 			parent.children.add(this);
+			depth = parent.depth + 1;
+			root = parent.root;
+			updateAncestors();
+		} else {
+			depth = 0;
+			root = this;
 		}
 		tricksTaken[Player.WEST_EAST] = UNITNITIALIZED;
 		tricksTaken[Player.NORTH_SOUTH] = UNITNITIALIZED;
@@ -85,8 +119,33 @@ public class Node {
 	}
 
 	public void setPlayerTurn(int direction) {
-		this.playerTurn = (byte) direction;
+		if (playerTurn != (byte) direction) {
+			this.playerTurn = (byte) direction;
+			for (Node child : children) {
+				if (child != null) {
+					child.updateAncestorsBelow();
+				}
+			}
+		}
+
+	}
 
+	private void updateAncestors() {
+		alphaAncestor = parent.isAlpha() ? parent : parent.alphaAncestor;
+		betaAncestor = parent.isAlpha() ? parent.betaAncestor : parent;
+	}
+
+	/**
+	 * only needed when a turn is set after children were added, ie. in trees
+	 * built by hand; the solver sets the turn before expanding a node
+	 */
+	private void updateAncestorsBelow() {
+		updateAncestors();
+		for (Node child : children) {
+			if (child != null) {
+				child.updateAncestorsBelow();
+			}
+		}
 	}
 
 	public void setTricksTaken(int pair, int i) {
@@ -94,6 +153,10 @@ public class Node {
 		tricksTaken[pair] = (byte) i;
 	}
 
+	public boolean hasValue() {
+		return valueSet;
+	}
+
 	public boolean isLastVisitedChild(Node child) {
 		boolean hasThisChild = false;
 		for (Node sibling : children) {
@@ -145,7 +208,7 @@ public class Node {
 	}
 
 	public Node getBestMove() {
-		if (children.size() == 0) {
+		if (!hasChildren()) {
 			return this;
 		}
 		int max = getTricksTaken(getCurrentPair());
@@ -158,6 +221,15 @@ public class Node {
 		return getNodeWithLowestValueCard(childrenWithSameTricksTaken);
 	}
 
+	private boolean hasChildren() {
+		for (Node child : children) {
+			if (child != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private Node getNodeWithLowestValueCard(List<Node> nodes) {
 		Node lowest = null;
 		for (Node node : nodes) {
@@ -236,16 +308,28 @@ public class Node {
 	private void setPruned(boolean b, byte type) {
 		this.pruned = b;
 		this.pruneType = type;
+		root.pruneGeneration++;
 	}
 
 	public boolean isPruned() {
-		if (parent == null) {
-			return pruned;
-		} else if (pruned) {
-			return true;
-		} else {
-			return parent.isPruned();
+		return getPrunedNode() != null;
+	}
+
+	/**
+	 * @return this node or its nearest ancestor that is pruned, remembered
+	 *         until another node of the tree is pruned
+	 */
+	private Node getPrunedNode() {
+		if (pruned) {
+			return this;
+		} else if (parent == null) {
+			return null;
 		}
+		if (prunedNodeGeneration != root.pruneGeneration) {
+			prunedNode = parent.getPrunedNode();
+			prunedNodeGeneration = root.pruneGeneration;
+		}
+		return prunedNode;
 	}
 
 	public boolean isAlpha() {
@@ -253,12 +337,7 @@ public class Node {
 	}
 
 	Node getRoot() {
-
-		if (parent == null) {
-			return this;
-		} else {
-			return parent.getRoot();
-		}
+		return root;
 	}
 
 	public boolean isAlphaPruned() {
@@ -270,33 +349,19 @@ public class Node {
 	}
 
 	public int getPruneType() {
-		if (parent == null) {
-			return pruneType;
-		} else if (pruned) {
-			return pruneType;
-		} else {
-			return parent.getPruneType();
+		Node prunedNode = getPrunedNode();
+		if (prunedNode == null) {
+			return root.pruneType;
 		}
+		return prunedNode.pruneType;
 	}
 
 	public boolean hasAlphaAncestor() {
-		if (parent == null) {
-			return false;
-		} else if (parent.isAlpha()) {
-			return true;
-		} else {
-			return parent.hasAlphaAncestor();
-		}
+		return alphaAncestor != null;
 	}
 
 	public boolean hasBetaAncestor() {
-		if (parent == null) {
-			return false;
-		} else if (parent.isBeta()) {
-			return true;
-		} else {
-			return parent.hasBetaAncestor();
-		}
+		return betaAncestor != null;
 	}
 
 	boolean isBeta() {
@@ -335,13 +400,11 @@ public class Node {
 	}
 
 	public boolean hasAncestor(Node ancestor) {
-		if (this == ancestor) {
-			return true;
-		} else if (parent == null) {
-			return false;
-		} else {
-			return parent.hasAncestor(ancestor);
+		Node node = this;
+		while (node != null && node.depth > ancestor.depth) {
+			node = node.parent;
 		}
+		return node == ancestor;
 	}
 
 	//	public int getLocalAlpha() {
@@ -383,21 +446,21 @@ public class Node {
 	}
 
 	private Node getLocalAlphaNode() {
-		if (isAlpha()) {
-			int max = ALPHA_UNINIT;
-			Node result = null;
-			for (Node child : children) {
-				if (child.getTricksTaken(getMaxPlayer()) > max) {
-					max = child.getTricksTaken(getMaxPlayer());
-					result = child;
-				}
+		if (!isAlpha()) {
+			return alphaAncestor == null ? null : alphaAncestor.getLocalAlphaNode();
+		}
+		int max = ALPHA_UNINIT;
+		Node result = null;
+		for (Node child : children) {
+			if (child != null && child.getTricksTaken(getMaxPlayer()) > max) {
+				max = child.getTricksTaken(getMaxPlayer());
+				result = child;
 			}
-			return result;
-		} else {
-			return parent.getLocalAlphaNode();
 		}
+		return result;
 	}
 
+
 	private String getUniqueId() {
 		int myIndex = 0;
 		if (parent != null) {
@@ -407,26 +470,41 @@ public class Node {
 	}
 
 	public int getLocalBeta() {
-		if (isBeta()) {
-			int min = BETA_UNINIT;
-			for (Node child : children) {
-				if (child.getTricksTaken(getMaxPlayer()) != -1 && child.getTricksTaken(getMaxPlayer()) < min) {
-					min = child.getTricksTaken(getMaxPlayer());
-				}
+		if (!isBeta()) {
+			return betaAncestor == null ? BETA_UNINIT : betaAncestor.getLocalBeta();
+		}
+		int min = BETA_UNINIT;
+		for (Node child : children) {
+			if (child != null && child.getTricksTaken(getMaxPlayer()) != -1
+					&& child.getTricksTaken(getMaxPlayer()) < min) {
+				min = child.getTricksTaken(getMaxPlayer());
 			}
-			return min;
-		} else {
-			return parent.getLocalBeta();
 		}
+		return min;
 	}
 
+
 	private int getMaxPlayer() {
 		return getRoot().getCurrentPair();
 	}
 
+	/**
+	 * Below a move at the root, pruning only happens when the value is worse
+	 * than the best move so far, see isRefutedRootMove()
+	 */
 	public boolean shouldBeAlphaPruned() {
-		return valueSet && parent != null && parent.parent != null && hasAlphaAncestor() && !parent.isAlpha()
-				&& (getTricksTaken(getMaxPlayer()) <= parent.getLocalAlpha());
+		if (!valueSet || parent == null || parent.parent == null || !hasAlphaAncestor() || parent.isAlpha()) {
+			return false;
+		}
+		Node localAlpha = parent.getLocalAlphaNode();
+		if (localAlpha == null) {
+			return false;
+		}
+		int alpha = localAlpha.getTricksTaken(getMaxPlayer());
+		if (localAlpha.parent.isRoot()) {
+			return getTricksTaken(getMaxPlayer()) < alpha;
+		}
+		return getTricksTaken(getMaxPlayer()) <= alpha;
 	}
 
 	public boolean shouldBeBetaPruned() {
@@ -446,7 +524,7 @@ public class Node {
 		List<Node> result = new ArrayList<Node>();
 		if (parent != null) {
 			for (Node node : parent.children) {
-				if (!node.equals(this)) {
+				if (node != null && !node.equals(this)) {
 					result.add(node);
 				}
 			}
@@ -530,30 +608,70 @@ public class Node {
 		return result;
 	}
 
-	private int getDepth() {
-		if (parent == null) {
-			return 0;
-		} else {
-			return 1 + parent.getDepth();
+	int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Drops the children of a node whose value is final, except the one its
+	 * value came from, so the line of best play can still be followed. A
+	 * leaf keeps none. Entries are set to null rather than removed, so the
+	 * moves of nodes still to be examined keep their indexes.
+	 * 
+	 * @return number of nodes dropped
+	 */
+	public int nullAllChildrenExceptOne() {
+		Node exception = isLeaf() ? null : getUnprunedChildWithMostTricksForCurrentPair();
+		int dropped = 0;
+		for (int i = 0; i < children.size(); i++) {
+			if (children.get(i) != null && children.get(i) != exception) {
+				dropped += nullChild(i);
+			}
 		}
+		return dropped;
 	}
 
-	public void nullAllChildrenExceptOne() {
-		//		Node exception = getUnprunedChildWithMostTricksForCurrentPair();
-		//		for (int i = 0; i < children.size(); i++) {
-		//			if (exception == null || !exception.equals(children.get(i))) {
-		//				children.get(i).trimmed = true;
-		//				children.set(i, null);
-		//			}
-		//		}
+	/**
+	 * Drops the moves at the root that are pruned or take fewer tricks than
+	 * the best one.
+	 * 
+	 * @return number of nodes dropped
+	 */
+	public int nullAllSubstandardChildren() {
+		Node best = getUnprunedChildWithMostTricksForCurrentPair();
+		int dropped = 0;
+		for (int i = 0; i < children.size(); i++) {
+			Node child = children.get(i);
+			if (child != null
+					&& (best == null || child.isPruned() || child.getTricksTaken(getCurrentPair()) < best
+							.getTricksTaken(getCurrentPair()))) {
+				dropped += nullChild(i);
+			}
+		}
+		return dropped;
+	}
+
+	private int nullChild(int i) {
+		Node child = children.set(i, null);
+		child.trimmed = true;
+		return child.countNodes();
+	}
 
+	private int countNodes() {
+		int result = 1;
+		for (Node child : children) {
+			if (child != null) {
+				result += child.countNodes();
+			}
+		}
+		return result;
 	}
 
 	Node getUnprunedChildWithMostTricksForCurrentPair() {
 		Node maxChild = null;
 		for (Node child : children) {
 			if (child != null
-					&& !child.isPruned()
+					&& (!child.isPruned() || refutesRootMove(child))
 					&& (maxChild == null || child.getTricksTaken(getCurrentPair()) > maxChild
 							.getTricksTaken(getCurrentPair()))) {
 				maxChild = child;
@@ -562,6 +680,24 @@ public class Node {
 		return maxChild;
 	}
 
+	/**
+	 * Moves at the root are not pruned so they can still be compared, but an
+	 * alpha cutoff right below one shows it is worse than the best move so far.
+	 * Such a move takes the value of the cutoff, which is only an upper bound.
+	 */
+	public boolean isRefutedRootMove() {
+		for (Node child : children) {
+			if (child != null && refutesRootMove(child)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean refutesRootMove(Node child) {
+		return parent != null && parent.isRoot() && isBeta() && child.isAlphaPruned();
+	}
+
 	public void calculateValueFromChild() {
 		Node maxChild = getUnprunedChildWithMostTricksForCurrentPair();
 		if (maxChild != null) {
@@ -573,13 +709,28 @@ public class Node {
 	}
 
 	public void calculateValueFromPosition() {
-		setTricksTaken(Player.WEST_EAST, position.getTricksTaken(Player.WEST_EAST));
-		setTricksTaken(Player.NORTH_SOUTH, position.getTricksTaken(Player.NORTH_SOUTH));
+		setTricksTaken(Player.WEST_EAST, tricksTakenInPosition[Player.WEST_EAST]);
+		setTricksTaken(Player.NORTH_SOUTH, tricksTakenInPosition[Player.NORTH_SOUTH]);
 
 	}
 
-	public void setPosition(Deal position) {
-		this.position = position;
+	/**
+	 * the solver's position is mutable and moves on, so only the tricks taken
+	 * are kept
+	 */
+	public void setTricksTakenInPosition(Position position) {
+		tricksTakenInPosition[Player.WEST_EAST] = (byte) position.getTricksTaken(Player.WEST_EAST);
+		tricksTakenInPosition[Player.NORTH_SOUTH] = (byte) position.getTricksTaken(Player.NORTH_SOUTH);
+
+	}
+
+	public int getTricksTakenInPosition(int pair) {
+		return tricksTakenInPosition[pair];
+	}
+
+	public void setTricksTakenInPosition(int westEast, int northSouth) {
+		tricksTakenInPosition[Player.WEST_EAST] = (byte) westEast;
+		tricksTakenInPosition[Player.NORTH_SOUTH] = (byte) northSouth;
 
 	}
 
@@ -615,6 +766,34 @@ public class Node {
 
 	}
 
+	/**
+	 * remembers the position this node was reached in, so its value can be
+	 * stored for transpositions once it is known
+	 *
+	 * @param cardsLeft the cards still in the hands there, to give the best
+	 *            card in the position as Position.relativeCard() does
+	 */
+	public void setPositionKey(long key, long cardsLeft) {
+		positionKey = key;
+		positionCardsLeft = cardsLeft;
+	}
+
+	public long getPositionKey() {
+		return positionKey;
+	}
+
+	public boolean hasPositionKey() {
+		return positionKey != NO_POSITION_KEY;
+	}
+
+	/**
+	 * @return card played from the position this node was reached in, as
+	 *         Position.relativeCard() gives it there
+	 */
+	int getRelativeCard(int card) {
+		return Position.relativeCard(positionCardsLeft, card);
+	}
+
 	public Node getSiblingNodeForCard(Card card) {
 		for (Node sibling : siblings()) {
 			if (sibling.getCardPlayed().equals(card)) {
@@ -627,23 +806,13 @@ public class Node {
 	public int getUnprunedChildCount() {
 		int unprunedChildCount = 0;
 		for (Node child : children) {
-			if (!child.isPruned()) {
+			if (child != null && !child.isPruned()) {
 				unprunedChildCount++;
 			}
 		}
 		return unprunedChildCount;
 	}
 
-	public void nullAllSubstandardChildren() {
-		//		Node best = getUnprunedChildWithMostTricksForCurrentPair();
-		//		for (Node child : children) {
-		//			if (child.isPruned() || child.getTricksTaken(getCurrentPair()) < best.getTricksTaken(getCurrentPair())) {
-		//				children.set(children.indexOf(child), null);
-		//				child.trimmed = true;
-		//			}
-		//		}
-	}
-
 	public void pruneAsSequenceSibling() {
 		setPruned(true, Node.PRUNE_SEQUENCE_SIBLINGS);
 	}
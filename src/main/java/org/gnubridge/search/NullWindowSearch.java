@@ -0,0 +1,267 @@
+package org.gnubridge.search;
+
+import java.util.List;
+
+import org.gnubridge.core.Player;
+import org.gnubridge.search.ordering.MoveOrdering;
+
+/**
+ * Answers whether a pair can take at least some number of tricks, searching
+ * with a null window: each position only has to be shown to reach the target
+ * or not, so a pair stops looking as soon as one card reaches it and the
+ * other pair as soon as one card holds it below. Repeated tests converge on
+ * the exact number of tricks the MTD(f) way, see getTricks().
+ * <p>
+ * What each test learns about a position at the start of a trick is kept in
+ * the transposition table as bounds on the north/south tricks to come, so the
+ * next test with a different target starts from them. Values stored by
+ * DoubleDummySolver in a shared table are used as they are.
+ * <p>
+ * Tricks are counted from the root position within maxTricks, the same way
+ * DoubleDummySolver counts them.
+ */
+public class NullWindowSearch {
+
+	private final Position position;
+
+	private final int maxTricks;
+
+	private final int rootTricksCounted;
+
+	private final int rootPair;
+
+	private final TranspositionTable table;
+
+	private final OrderedMoves moves;
+
+	private final TrickBounds bounds = new TrickBounds();
+
+	private boolean useTrickBounds = true;
+
+	private EndgameTable endgameTable;
+
+	private int positionsCount;
+
+	private SearchStats stats = new SearchStats();
+
+	/**
+	 * @param table where bounds are looked up and kept, may be shared with
+	 *            other searches or null
+	 */
+	public NullWindowSearch(Position root, int maxTricks, TranspositionTable table, List<MoveOrdering> moveOrderings) {
+		position = new Position(root);
+		position.resetTricks();
+		this.maxTricks = maxTricks;
+		this.table = table;
+		moves = new OrderedMoves(moveOrderings);
+		rootTricksCounted = PositionLookup.tricksCounted(0, Long.bitCount(position.getHand(position.getNextToPlay())),
+				maxTricks);
+		rootPair = Position.pair(position.getNextToPlay());
+	}
+
+	public void setUseTrickBounds(boolean useTrickBounds) {
+		this.useTrickBounds = useTrickBounds;
+	}
+
+	/**
+	 * positions at the start of a trick the table covers are looked up when
+	 * the tricks counted go to the end of the deal
+	 */
+	public void setEndgameTable(EndgameTable endgameTable) {
+		this.endgameTable = endgameTable;
+	}
+
+	public void setShouldPruneCardsInSequence(boolean shouldPruneCardsInSequence) {
+		moves.setShouldPruneCardsInSequence(shouldPruneCardsInSequence);
+	}
+
+	/**
+	 * counts what the tests do in stats, ie. those of the solver using them
+	 */
+	public void setStats(SearchStats stats) {
+		this.stats = stats;
+		moves.setStats(stats);
+	}
+
+	public SearchStats getStats() {
+		return stats;
+	}
+
+	/**
+	 * @return number of tricks counted from the root, what both pairs take
+	 *         adds up to it
+	 */
+	public int getTricksCounted() {
+		return rootTricksCounted;
+	}
+
+	public int getPositionsExamined() {
+		return positionsCount;
+	}
+
+	/**
+	 * @return whether pair takes at least tricks from the root position
+	 */
+	public boolean canTake(int pair, int tricks) {
+		if (pair == Player.NORTH_SOUTH) {
+			return northSouthTake(tricks, 0);
+		}
+		return !northSouthTake(rootTricksCounted - tricks + 1, 0);
+	}
+
+	/**
+	 * @return whether pair takes at least tricks from the root position once
+	 *         card is played there
+	 */
+	public boolean canTakeAfter(int card, int pair, int tricks) {
+		position.play(card);
+		boolean result;
+		if (pair == Player.NORTH_SOUTH) {
+			result = northSouthTake(tricks, 1);
+		} else {
+			result = !northSouthTake(rootTricksCounted - tricks + 1, 1);
+		}
+		position.unplay();
+		return result;
+	}
+
+	public int getTricks(int pair) {
+		return getTricks(pair, rootTricksCounted / 2);
+	}
+
+	/**
+	 * Narrows the tricks pair takes down with null window tests, each one
+	 * testing just above the bounds found so far, starting from firstGuess.
+	 * The closer the guess, the fewer tests.
+	 */
+	public int getTricks(int pair, int firstGuess) {
+		int lower = 0;
+		int upper = rootTricksCounted;
+		int northSouth = pair == Player.NORTH_SOUTH ? firstGuess : rootTricksCounted - firstGuess;
+		northSouth = Math.max(lower, Math.min(upper, northSouth));
+		while (lower < upper) {
+			int target = northSouth == lower ? northSouth + 1 : northSouth;
+			if (northSouthTake(target, 0)) {
+				lower = target;
+				northSouth = lower;
+			} else {
+				upper = target - 1;
+				northSouth = upper;
+			}
+		}
+		if (pair == Player.NORTH_SOUTH) {
+			return lower;
+		}
+		return rootTricksCounted - lower;
+	}
+
+	/**
+	 * @param target north/south tricks counted from the root
+	 */
+	private boolean northSouthTake(int target, int depth) {
+		positionsCount++;
+		stats.positionExamined(depth);
+		boolean atTrickStart = position.getTrickSize() == 0;
+		int needed = 0;
+		int tricksCounted = 0;
+		long key = 0;
+		long stored = 0;
+		int hashMove = TranspositionTable.NO_CARD;
+		if (atTrickStart) {
+			needed = target - position.getTricksTaken(Player.NORTH_SOUTH);
+			if (needed <= 0) {
+				return true;
+			}
+			tricksCounted = PositionLookup.tricksCounted(position, maxTricks);
+			if (needed > tricksCounted) {
+				return false;
+			}
+			if (useTrickBounds) {
+				bounds.update(position, tricksCounted);
+				boolean northSouthLead = Position.pair(position.getNextToPlay()) == Player.NORTH_SOUTH;
+				int lower = northSouthLead ? bounds.getLowerBound() : tricksCounted - bounds.getUpperBound();
+				int upper = northSouthLead ? bounds.getUpperBound() : tricksCounted - bounds.getLowerBound();
+				if (lower >= needed || upper < needed) {
+					stats.trickBoundsCutoff();
+					return lower >= needed;
+				}
+			}
+			if (tricksCounted == Long.bitCount(position.getHand(position.getNextToPlay()))) {
+				int leaderTricks = -1;
+				if (endgameTable != null && endgameTable.covers(position)) {
+					stats.endgameTableHit();
+					leaderTricks = endgameTable.getTricks(position);
+				} else if (TwoTrickEnding.isTwoTrickEnding(position)) {
+					leaderTricks = TwoTrickEnding.leaderTricks(position);
+				}
+				if (leaderTricks >= 0) {
+					boolean northSouthLead = Position.pair(position.getNextToPlay()) == Player.NORTH_SOUTH;
+					return (northSouthLead ? leaderTricks : tricksCounted - leaderTricks) >= needed;
+				}
+			}
+			if (table != null) {
+				key = position.getKey();
+				stored = table.get(key);
+				stats.tableProbe();
+				if (stored != 0) {
+					hashMove = position.absoluteCard(TranspositionTable.getBestCard(stored));
+				}
+				if (TranspositionTable.getTricksCounted(stored) != tricksCounted) {
+					stored = 0;
+				} else if (TranspositionTable.hasTricks(stored)) {
+					stats.tableHit();
+					stats.duplicatePositionCutoff();
+					return TranspositionTable.getNorthSouth(stored) >= needed;
+				} else if (TranspositionTable.hasBounds(stored)) {
+					stats.tableHit();
+					if (TranspositionTable.getLowerBound(stored) >= needed
+							|| TranspositionTable.getUpperBound(stored) < needed) {
+						stats.duplicatePositionCutoff();
+						return TranspositionTable.getLowerBound(stored) >= needed;
+					}
+				}
+			}
+		}
+		boolean northSouthToPlay = Position.pair(position.getNextToPlay()) == Player.NORTH_SOUTH;
+		int count = moves.order(position, depth, hashMove);
+		for (int i = 0; i < count; i++) {
+			int card = moves.get(depth, i);
+			position.play(card);
+			boolean taken = northSouthTake(target, depth + 1);
+			position.unplay();
+			if (taken == northSouthToPlay) {
+				moves.cutoff(card, depth);
+				if (Position.pair(position.getNextToPlay()) == rootPair) {
+					stats.betaCutoff();
+				} else {
+					stats.alphaCutoff();
+				}
+				if (atTrickStart && table != null) {
+					storeBound(key, stored, tricksCounted, needed, taken, card);
+				}
+				return taken;
+			}
+		}
+		if (atTrickStart && table != null) {
+			storeBound(key, stored, tricksCounted, needed, !northSouthToPlay, hashMove);
+		}
+		return !northSouthToPlay;
+	}
+
+	private void storeBound(long key, long stored, int tricksCounted, int needed, boolean reached, int bestCard) {
+		int lower = 0;
+		int upper = tricksCounted;
+		if (TranspositionTable.hasBounds(stored)) {
+			lower = TranspositionTable.getLowerBound(stored);
+			upper = TranspositionTable.getUpperBound(stored);
+		}
+		if (reached) {
+			lower = needed;
+		} else {
+			upper = needed - 1;
+		}
+		table.putBounds(key, lower, upper, tricksCounted, Position.cardsLeft(key), position.relativeCard(bestCard));
+		stats.tableStore();
+	}
+
+}
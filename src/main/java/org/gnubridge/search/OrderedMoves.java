@@ -0,0 +1,118 @@
+package org.gnubridge.search;
+
+import java.util.List;
+
+import org.gnubridge.core.Card;
+import org.gnubridge.search.ordering.MoveOrdering;
+
+/**
+ * Cards to try at each depth of a recursive search over a Position, best
+ * first. The arrays are allocated once, so ordering moves produces no garbage.
+ */
+class OrderedMoves {
+
+	private static final int MAX_DEPTH = Card.COUNT;
+
+	private final List<MoveOrdering> moveOrderings;
+
+	private boolean shouldPruneCardsInSequence = true;
+
+	private SearchStats stats = new SearchStats();
+
+	private final int[][] moves = new int[MAX_DEPTH + 1][Card.ACE + 1];
+
+	private final int[][] scores = new int[MAX_DEPTH + 1][Card.ACE + 1];
+
+	OrderedMoves(List<MoveOrdering> moveOrderings) {
+		this.moveOrderings = moveOrderings;
+	}
+
+	void setShouldPruneCardsInSequence(boolean shouldPruneCardsInSequence) {
+		this.shouldPruneCardsInSequence = shouldPruneCardsInSequence;
+	}
+
+	/**
+	 * counts the cards left out for being in sequence there
+	 */
+	void setStats(SearchStats stats) {
+		this.stats = stats;
+	}
+
+	/**
+	 * Fills in the cards to try at depth, the hash move first, then by score
+	 * and highest card first. Of cards equivalent to each other only the
+	 * highest is tried.
+	 *
+	 * @return number of cards to try, see get()
+	 */
+	int order(Position position, int depth, int hashMove) {
+		long legal = position.getLegalMoves();
+		if (shouldPruneCardsInSequence) {
+			long tried = withoutEquivalentCards(position, legal);
+			stats.sequenceCutoffs(Long.bitCount(legal) - Long.bitCount(tried));
+			legal = tried;
+		}
+		int[] cards = moves[depth];
+		int[] cardScores = scores[depth];
+		int count = 0;
+		for (; legal != 0; legal &= ~Long.highestOneBit(legal)) {
+			int card = 63 - Long.numberOfLeadingZeros(legal);
+			int score = 0;
+			if (card == hashMove) {
+				score = Integer.MAX_VALUE;
+			} else {
+				for (MoveOrdering ordering : moveOrderings) {
+					score += ordering.score(position, card, depth);
+				}
+			}
+			int i = count;
+			for (; i > 0 && cardScores[i - 1] < score; i--) {
+				cards[i] = cards[i - 1];
+				cardScores[i] = cardScores[i - 1];
+			}
+			cards[i] = card;
+			cardScores[i] = score;
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * @return the i-th card to try at depth, as ordered by the last call to
+	 *         order() for that depth
+	 */
+	int get(int depth, int i) {
+		return moves[depth][i];
+	}
+
+	/**
+	 * card played at depth cut off the search of its siblings
+	 */
+	void cutoff(int card, int depth) {
+		for (MoveOrdering ordering : moveOrderings) {
+			ordering.cutoff(card, depth);
+		}
+	}
+
+	/**
+	 * A card is as good as the next higher card of its suit still in play when
+	 * both are in the same hand: cards played to earlier tricks in between do
+	 * not matter, cards in the trick being played do.
+	 */
+	private static long withoutEquivalentCards(Position position, long legal) {
+		long live = position.getHand(0) | position.getHand(1) | position.getHand(2) | position.getHand(3);
+		for (int i = 0; i < position.getTrickSize(); i++) {
+			live |= Position.bit(position.getTrickCard(i));
+		}
+		long result = legal;
+		for (long rest = legal; rest != 0; rest &= rest - 1) {
+			long card = Long.lowestOneBit(rest);
+			long higher = live & Position.suitMask(Position.suit(Long.numberOfTrailingZeros(card))) & -(card << 1);
+			if ((Long.lowestOneBit(higher) & legal) != 0) {
+				result &= ~card;
+			}
+		}
+		return result;
+	}
+
+}
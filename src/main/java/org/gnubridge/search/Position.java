@@ -0,0 +1,432 @@
+package org.gnubridge.search;
+
+import java.util.List;
+
+import org.gnubridge.core.Card;
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.Direction;
+import org.gnubridge.core.Player;
+import org.gnubridge.core.Zobrist;
+import org.gnubridge.core.deck.Suit;
+import org.gnubridge.core.deck.Trump;
+
+/**
+ * Compact search position. Each hand is a 52 bit mask indexed by
+ * Card.getIndex(), so iterating set bits from low to high visits cards in the
+ * same order as Player.getPossibleMoves(). The trick in progress is packed into
+ * primitives (6 bits per card, in the order the cards were played).
+ */
+public class Position {
+
+	public static final int NO_TRUMP = -1;
+
+	private static final int CARDS_LEFT_SHIFT = 58;
+
+	private static final long CARDS_LEFT_MASK = (1L << (64 - CARDS_LEFT_SHIFT)) - 1;
+
+	private static final int CARD_BITS = 6;
+
+	private static final int CARD_MASK = (1 << CARD_BITS) - 1;
+
+	private static final long SUIT_MASK = (1L << (Card.ACE + 1)) - 1;
+
+	private static final Card[] cards = new Card[Card.COUNT];
+	static {
+		for (int i = 0; i < Card.COUNT; i++) {
+			cards[i] = new Card(i % (Card.ACE + 1), Suit.reverseList[i / (Card.ACE + 1)]);
+		}
+	}
+
+	private final long[] hands = new long[4];
+
+	private final int trump;
+
+	private long played;
+
+	private int nextToPlay;
+
+	private int trickLeader;
+
+	private int trickSize;
+
+	private int trick;
+
+	private int winningCard;
+
+	private int winningSeat;
+
+	private final int[] tricksTaken = new int[2];
+
+	private int tricksPlayed;
+
+	private final int[] completedTricks = new int[13];
+
+	public Position(Deal deal) {
+		for (int i = Direction.WEST_DEPRECATED; i <= Direction.SOUTH_DEPRECATED; i++) {
+			for (Card card : deal.getPlayer(i).getHand()) {
+				hands[i] |= bit(card.getIndex());
+			}
+		}
+		for (Card card : deal.getPlayedCards().getCardsHighToLow()) {
+			played |= bit(card.getIndex());
+		}
+		trump = trumpIndex(deal.getTrump());
+		tricksTaken[Player.WEST_EAST] = deal.getTricksTaken(Player.WEST_EAST);
+		tricksTaken[Player.NORTH_SOUTH] = deal.getTricksTaken(Player.NORTH_SOUTH);
+		tricksPlayed = deal.getTricksPlayed();
+		List<Card> cardsInTrick = deal.getCurrentTrick().getCards();
+		if (cardsInTrick.isEmpty()) {
+			nextToPlay = deal.getNextToPlay().getDirection();
+		} else {
+			nextToPlay = deal.getCurrentTrick().whoPlayed(cardsInTrick.get(0)).getDirection();
+			for (Card card : cardsInTrick) {
+				addToTrick(card.getIndex());
+			}
+		}
+	}
+
+	/**
+	 * a position at the start of a trick, no tricks taken yet, with every
+	 * card not in one of the hands played
+	 */
+	Position(long[] hands, int trump, int nextToPlay) {
+		long remaining = 0;
+		for (int i = 0; i < this.hands.length; i++) {
+			this.hands[i] = hands[i];
+			remaining |= hands[i];
+		}
+		played = ((1L << Card.COUNT) - 1) & ~remaining;
+		this.trump = trump;
+		this.nextToPlay = nextToPlay;
+	}
+
+	public Position(Position other) {
+		System.arraycopy(other.hands, 0, hands, 0, hands.length);
+		trump = other.trump;
+		played = other.played;
+		nextToPlay = other.nextToPlay;
+		trickLeader = other.trickLeader;
+		trickSize = other.trickSize;
+		trick = other.trick;
+		winningCard = other.winningCard;
+		winningSeat = other.winningSeat;
+		tricksTaken[Player.WEST_EAST] = other.tricksTaken[Player.WEST_EAST];
+		tricksTaken[Player.NORTH_SOUTH] = other.tricksTaken[Player.NORTH_SOUTH];
+		tricksPlayed = other.tricksPlayed;
+		System.arraycopy(other.completedTricks, 0, completedTricks, 0, completedTricks.length);
+	}
+
+	/**
+	 * searches count tricks from their root position, the same way a
+	 * duplicated Deal does
+	 */
+	public void resetTricks() {
+		tricksTaken[Player.WEST_EAST] = 0;
+		tricksTaken[Player.NORTH_SOUTH] = 0;
+		tricksPlayed = 0;
+	}
+
+	public static int trumpIndex(Trump trump) {
+		if (trump != null && trump.isSuit()) {
+			return Suit.getIndex(trump.asSuit());
+		}
+		return NO_TRUMP;
+	}
+
+	public static Card card(int index) {
+		return cards[index];
+	}
+
+	public static int suit(int index) {
+		return index / (Card.ACE + 1);
+	}
+
+	public static long suitMask(int suit) {
+		return SUIT_MASK << (suit * (Card.ACE + 1));
+	}
+
+	public static int value(int index) {
+		return index % (Card.ACE + 1);
+	}
+
+	static long bit(int index) {
+		return 1L << index;
+	}
+
+	public long getLegalMoves() {
+		long hand = hands[nextToPlay];
+		if (trickSize > 0) {
+			long follow = hand & suitMask(suit(getTrickCard(0)));
+			if (follow != 0) {
+				return follow;
+			}
+		}
+		return hand;
+	}
+
+	/**
+	 * replays moves given as indexes into the low to high list of legal moves,
+	 * same convention as Deal.playMoves()
+	 */
+	public void playMoves(List<Integer> moves) {
+		for (int move : moves) {
+			play(nthCard(getLegalMoves(), move));
+		}
+	}
+
+	private static int nthCard(long mask, int n) {
+		for (int i = 0; i < n; i++) {
+			mask &= mask - 1;
+		}
+		return Long.numberOfTrailingZeros(mask);
+	}
+
+	public void play(int card) {
+		hands[nextToPlay] &= ~bit(card);
+		played |= bit(card);
+		addToTrick(card);
+	}
+
+	private void addToTrick(int card) {
+		if (trickSize == 0) {
+			trickLeader = nextToPlay;
+			trick = 0;
+			winningCard = card;
+			winningSeat = nextToPlay;
+		} else if (beats(card, winningCard)) {
+			winningCard = card;
+			winningSeat = nextToPlay;
+		}
+		trick |= card << (CARD_BITS * trickSize);
+		trickSize++;
+		if (trickSize == 4) {
+			completedTricks[tricksPlayed] = trick | (trickLeader << (CARD_BITS * 4));
+			tricksTaken[pair(winningSeat)]++;
+			tricksPlayed++;
+			trickSize = 0;
+			nextToPlay = winningSeat;
+		} else {
+			nextToPlay = (nextToPlay + 1) % 4;
+		}
+	}
+
+	/**
+	 * takes back the last card played, including one that completed a trick
+	 */
+	public void unplay() {
+		if (trickSize == 0) {
+			tricksPlayed--;
+			tricksTaken[pair(nextToPlay)]--;
+			trick = completedTricks[tricksPlayed] & ((1 << (CARD_BITS * 4)) - 1);
+			trickLeader = completedTricks[tricksPlayed] >>> (CARD_BITS * 4);
+			trickSize = 4;
+		}
+		trickSize--;
+		int card = getTrickCard(trickSize);
+		nextToPlay = (trickLeader + trickSize) % 4;
+		trick &= ~(CARD_MASK << (CARD_BITS * trickSize));
+		hands[nextToPlay] |= bit(card);
+		played &= ~bit(card);
+		if (trickSize > 0) {
+			winningCard = getTrickCard(0);
+			winningSeat = trickLeader;
+			for (int i = 1; i < trickSize; i++) {
+				if (beats(getTrickCard(i), winningCard)) {
+					winningCard = getTrickCard(i);
+					winningSeat = (trickLeader + i) % 4;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return whether card would take the lead from the card winning the
+	 *         trick so far
+	 */
+	public boolean beatsTrick(int card) {
+		return trickSize > 0 && beats(card, winningCard);
+	}
+
+	/**
+	 * @return whether no other player holds a higher card in the suit
+	 */
+	public boolean isTopCard(int card) {
+		long higher = suitMask(suit(card)) & ~((bit(card) << 1) - 1);
+		return (higher & ~played & ~hands[nextToPlay]) == 0;
+	}
+
+	private boolean beats(int card, int highest) {
+		if (suit(card) == suit(highest)) {
+			return card > highest;
+		}
+		return suit(card) == trump;
+	}
+
+	public static int pair(int seat) {
+		return Player.matchPair(seat);
+	}
+
+	public int getTrickCard(int i) {
+		return (trick >>> (CARD_BITS * i)) & CARD_MASK;
+	}
+
+	public int getTrickSize() {
+		return trickSize;
+	}
+
+	public int getWinningCard() {
+		return winningCard;
+	}
+
+	public int getWinningSeat() {
+		return winningSeat;
+	}
+
+	public int getTrickLeader() {
+		return trickLeader;
+	}
+
+	public int getNextToPlay() {
+		return nextToPlay;
+	}
+
+	public long getHand(int seat) {
+		return hands[seat];
+	}
+
+	public long getPlayed() {
+		return played;
+	}
+
+	public int getTrump() {
+		return trump;
+	}
+
+	public int getTricksTaken(int pair) {
+		return tricksTaken[pair];
+	}
+
+	public int getTricksPlayed() {
+		return tricksPlayed;
+	}
+
+	public int getDeclarerTricksTaken() {
+		return getTricksTaken(Player.NORTH_SOUTH);
+	}
+
+	public boolean isDone() {
+		return hands[nextToPlay] == 0;
+	}
+
+	public boolean oneTrickLeft() {
+		return trickSize == 0 && Long.bitCount(hands[nextToPlay]) == 1;
+	}
+
+	public String getKeyForWeakHashMap() {
+		StringBuilder result = new StringBuilder();
+		for (int i = Card.COUNT - 1; i >= 0; i--) {
+			if ((played & bit(i)) != 0) {
+				result.append(i).append(',');
+			}
+		}
+		result.append('*').append(getDeclarerTricksTaken()).append('*').append(nextToPlay);
+		return result.toString();
+	}
+
+	/**
+	 * Key of a position at a trick boundary, made of the relative rank and
+	 * holder of every unplayed card in each suit, the player on lead and the
+	 * trump suit.
+	 * Absolute ranks of unplayed cards do not matter: A Q left after the K went
+	 * plays out like A K left after the Q went, so both get the same key.
+	 * Neither do the tricks taken so far, the tricks still to come are the
+	 * same. The top bits hold the number of cards left, the rest is a hash.
+	 */
+	public long getKey() {
+		long result = Zobrist.nextToPlay(nextToPlay);
+		if (trump != NO_TRUMP) {
+			result ^= Zobrist.trump(trump);
+		}
+		long remaining = getCardsLeft();
+		for (int suit = 0; suit < 4; suit++) {
+			int rank = 0;
+			for (long cards = remaining & suitMask(suit); cards != 0; cards &= ~Long.highestOneBit(cards)) {
+				long card = Long.highestOneBit(cards);
+				int holder = 0;
+				while ((hands[holder] & card) == 0) {
+					holder++;
+				}
+				result ^= Zobrist.holding(suit, rank, holder);
+				rank++;
+			}
+		}
+		return (result & ~(CARDS_LEFT_MASK << CARDS_LEFT_SHIFT)) | (long) Long.bitCount(remaining) << CARDS_LEFT_SHIFT;
+	}
+
+	/**
+	 * @return the cards still in the hands
+	 */
+	long getCardsLeft() {
+		return hands[0] | hands[1] | hands[2] | hands[3];
+	}
+
+	/**
+	 * @return card as its suit and the number of cards of the suit left above
+	 *         it, which names the same card in every position with the same
+	 *         key; TranspositionTable.NO_CARD stays as it is
+	 */
+	public int relativeCard(int card) {
+		return relativeCard(getCardsLeft(), card);
+	}
+
+	/**
+	 * @param cardsLeft see getCardsLeft()
+	 */
+	static int relativeCard(long cardsLeft, int card) {
+		if (card == TranspositionTable.NO_CARD) {
+			return card;
+		}
+		int suit = suit(card);
+		return suit * (Card.ACE + 1) + Long.bitCount(cardsLeft & suitMask(suit) & -(bit(card) << 1));
+	}
+
+	/**
+	 * @return index of the card relativeCard() gave, or
+	 *         TranspositionTable.NO_CARD if there is no such card left
+	 */
+	public int absoluteCard(int relativeCard) {
+		if (relativeCard == TranspositionTable.NO_CARD) {
+			return relativeCard;
+		}
+		long cards = getCardsLeft() & suitMask(suit(relativeCard));
+		for (int higher = value(relativeCard); higher > 0 && cards != 0; higher--) {
+			cards &= ~Long.highestOneBit(cards);
+		}
+		return cards == 0 ? TranspositionTable.NO_CARD : 63 - Long.numberOfLeadingZeros(cards);
+	}
+
+	/**
+	 * @return number of cards left in a position with this key
+	 */
+	public static int cardsLeft(long key) {
+		return (int) (key >>> CARDS_LEFT_SHIFT);
+	}
+
+	@Override
+	public String toString() {
+		String result = "";
+		for (int seat = Direction.WEST_DEPRECATED; seat <= Direction.SOUTH_DEPRECATED; seat++) {
+			result += Direction.instance(seat) + ": " + cardsToString(hands[seat]) + "\n";
+		}
+		return result + "next: " + Direction.instance(nextToPlay) + ", tricks WE|NS: "
+				+ tricksTaken[Player.WEST_EAST] + "|" + tricksTaken[Player.NORTH_SOUTH];
+	}
+
+	private String cardsToString(long mask) {
+		String result = "";
+		for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+			result += card(Long.numberOfTrailingZeros(remaining)) + ", ";
+		}
+		return result;
+	}
+}
@@ -1,50 +1,169 @@
 package org.gnubridge.search;
 
-import java.util.Map;
-import java.util.WeakHashMap;
-
 import org.gnubridge.core.Deal;
+import org.gnubridge.core.Player;
 
 public class PositionLookup {
 
-	Map<String, byte[]> positions;
-	private Deal lastGameLookedUp;
-	private byte[] lastNode;
+	private static final int ALL_TRICKS = 13;
+
+	private final TranspositionTable table;
 
 	public PositionLookup() {
-		try {
-			positions = new WeakHashMap<String, byte[]>(20000000, 0.5f);
-		} catch (OutOfMemoryError e) {
-			positions = new WeakHashMap<String, byte[]>();
-		}
+		this(TranspositionTable.DEFAULT_SIZE_MB);
+	}
+
+	public PositionLookup(int sizeMb) {
+		table = new TranspositionTable(sizeMb);
+	}
+
+	/**
+	 * looks positions up in a table that may be shared with other solvers
+	 */
+	public PositionLookup(TranspositionTable table) {
+		this.table = table;
+	}
+
+	TranspositionTable getTable() {
+		return table;
+	}
+
+	/**
+	 * forgets all positions, so the table can be used for another deal
+	 */
+	public void clear() {
+		table.clear();
 	}
 
 	public boolean positionEncountered(Deal g, byte[] bs) {
-		if (g.getCurrentTrick().getHighestCard() != null) {
+		return positionEncountered(new Position(g), bs);
+	}
+
+	public byte[] getNode(Deal g) {
+		return getNode(new Position(g));
+	}
+
+	public boolean positionEncountered(Position g, byte[] bs) {
+		if (g.getTrickSize() != 0) {
 			return false;
 		}
 		byte[] valueToReturn = getNode(g);
 		if (valueToReturn == null) {
-			putNode(g, bs);
+			putNode(g.getKey(), tricksToCome(bs, g.getTricksTaken(Player.WEST_EAST), g
+					.getTricksTaken(Player.NORTH_SOUTH)), tricksCounted(g, ALL_TRICKS), TranspositionTable.NO_CARD);
 			return false;
 		}
 		return true;
 	}
 
-	public byte[] getNode(Deal g) {
-		if (g == lastGameLookedUp) {
-			return lastNode;
+	public byte[] getNode(Position g) {
+		return getNode(g, ALL_TRICKS);
+	}
+
+	/**
+	 * @param maxTricks tricks searched from the position's search root; values
+	 *            counted over a different number of tricks are not returned
+	 * @return tricks taken counted from the position's search root, or null
+	 */
+	public byte[] getNode(Position g, int maxTricks) {
+		if (g.getTrickSize() != 0) {
+			return null;
 		}
-		byte[] result = positions.get(g.getKeyForWeakHashMap());
-		if (result != null) {
-			lastGameLookedUp = g;
-			lastNode = result;
+		long value = table.get(g.getKey());
+		if (!TranspositionTable.hasTricks(value) || TranspositionTable.getTricksCounted(value) != tricksCounted(g, maxTricks)) {
+			return null;
 		}
+		byte[] result = new byte[2];
+		result[Player.WEST_EAST] = (byte) (TranspositionTable.getWestEast(value) + g.getTricksTaken(Player.WEST_EAST));
+		result[Player.NORTH_SOUTH] = (byte) (TranspositionTable.getNorthSouth(value) + g
+				.getTricksTaken(Player.NORTH_SOUTH));
 		return result;
 	}
 
-	private void putNode(Deal g, byte[] value) {
-		positions.put(g.getKeyForWeakHashMap(), value);
+	/**
+	 * @return index of the card found best the last time this position was
+	 *         searched, to any depth, or TranspositionTable.NO_CARD
+	 */
+	public int getBestCard(Position g) {
+		if (g.getTrickSize() != 0) {
+			return TranspositionTable.NO_CARD;
+		}
+		return getBestCard(g, g.getKey());
+	}
+
+	/**
+	 * @param key as returned by Position.getKey() for g, at the start of a
+	 *            trick
+	 */
+	public int getBestCard(Position g, long key) {
+		long value = table.get(key);
+		if (value == 0) {
+			return TranspositionTable.NO_CARD;
+		}
+		return g.absoluteCard(TranspositionTable.getBestCard(value));
+	}
+
+	/**
+	 * Values are kept as the tricks still to come, so they hold wherever the
+	 * position comes up again, in this search or in a later one.
+	 * 
+	 * @param key as returned by Position.getKey()
+	 * @param tricksCounted see tricksCounted()
+	 * @param bestCard as Position.relativeCard() gives it
+	 */
+	public void putNode(long key, byte[] tricksToCome, int tricksCounted, int bestCard) {
+		int westEast = Node.UNITNITIALIZED;
+		int northSouth = Node.UNITNITIALIZED;
+		if (tricksToCome != null) {
+			westEast = tricksToCome[Player.WEST_EAST];
+			northSouth = tricksToCome[Player.NORTH_SOUTH];
+		}
+		table.put(key, westEast, northSouth, tricksCounted, depth(key), bestCard);
+	}
+
+	/**
+	 * @param bestCard as Position.relativeCard() gives it
+	 */
+	public void putBestCard(long key, int bestCard) {
+		table.putBestCard(key, depth(key), bestCard);
+	}
+
+	/**
+	 * @return tricks taken by the end of a search less those taken before the
+	 *         position, or null
+	 */
+	public static byte[] tricksToCome(byte[] tricksTaken, int westEastBefore, int northSouthBefore) {
+		if (tricksTaken == null) {
+			return null;
+		}
+		byte[] result = new byte[2];
+		result[Player.WEST_EAST] = (byte) (tricksTaken[Player.WEST_EAST] - westEastBefore);
+		result[Player.NORTH_SOUTH] = (byte) (tricksTaken[Player.NORTH_SOUTH] - northSouthBefore);
+		return result;
+	}
+
+	/**
+	 * @return number of tricks a search limited to maxTricks from its root
+	 *         counts from the position, at a trick boundary
+	 */
+	public static int tricksCounted(Position g, int maxTricks) {
+		return tricksCounted(g.getTricksPlayed(), Long.bitCount(g.getHand(g.getNextToPlay())), maxTricks);
+	}
+
+	/**
+	 * the solver plays out a last trick left even past maxTricks, so a search
+	 * one trick short of the end counts all the tricks
+	 */
+	public static int tricksCounted(int tricksPlayed, int tricksLeft, int maxTricks) {
+		int tricksSearched = maxTricks - tricksPlayed;
+		if (tricksLeft <= tricksSearched + 1) {
+			return tricksLeft;
+		}
+		return tricksSearched;
+	}
+
+	private int depth(long key) {
+		return Position.cardsLeft(key);
 	}
 
 }
@@ -1,10 +1,19 @@
 package org.gnubridge.search;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
 import org.gnubridge.core.Deal;
 
 public class ProductionSettings  {
     public static final int DEFAULT_MILISECONDS_TO_DISPLAY_LAST_TRICK = 4000;
 	private static int milisecondsToDisplayLastTrick = DEFAULT_MILISECONDS_TO_DISPLAY_LAST_TRICK;
+	private static SolverConfigurator solverConfigurator;
+	private static SolverConfigurator samplingConfigurator;
+	public static final int SINGLE_DUMMY_TRICKS_SEARCH_DEPTH = 4;
+	private static boolean singleDummyPlay = Boolean.getBoolean("gnubridge.singleDummyPlay");
+	private static ForkJoinPool samplingPool;
 
 	public static void setMilisecondsToDisplayLastTrick(int value) {
 		milisecondsToDisplayLastTrick  = value;
@@ -18,4 +27,88 @@ public class ProductionSettings  {
 		return milisecondsToDisplayLastTrick;
 	}
 
+	/**
+	 * alpha-beta pruning, with the root moves split across all available
+	 * processors and the tricks past where a search stops estimated; search
+	 * stats are added up in a SearchMonitor registered over JMX; the last
+	 * tricks are looked up in the endgame table named by the
+	 * gnubridge.endgameTable system property, if any
+	 */
+	public static synchronized SolverConfigurator getSolverConfigurator() {
+		if (solverConfigurator == null) {
+			solverConfigurator = new SolverConfigurator();
+			solverConfigurator.setUseAlphaBetaPruning(true);
+			solverConfigurator.setUseMoveOrdering(true);
+			solverConfigurator.setUseTrickBounds(true);
+			solverConfigurator.setLeafEvaluator(new HeuristicLeafEvaluator());
+			if (Runtime.getRuntime().availableProcessors() > 1) {
+				solverConfigurator.setForkJoinPool(new ForkJoinPool());
+			}
+			SearchMonitor searchMonitor = new SearchMonitor();
+			searchMonitor.register();
+			solverConfigurator.setSearchMonitor(searchMonitor);
+			String endgameTable = System.getProperty("gnubridge.endgameTable");
+			if (endgameTable != null) {
+				try {
+					solverConfigurator.setEndgameTable(EndgameTable.open(new File(endgameTable)));
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}
+		return solverConfigurator;
+	}
+
+	/**
+	 * the computer plays seeing only its own hand and dummy, see
+	 * MonteCarloPlayer, instead of all four; off unless the
+	 * gnubridge.singleDummyPlay system property is true
+	 */
+	public static void setSingleDummyPlay(boolean value) {
+		singleDummyPlay = value;
+	}
+
+	public static boolean isSingleDummyPlay() {
+		return singleDummyPlay;
+	}
+
+	/**
+	 * each layout is searched to the end of the deal once few tricks are left,
+	 * only a few tricks deep before then
+	 */
+	public static int getSingleDummySearchDepthRecommendation(Deal game) {
+		return Math.min(getSearchDepthRecommendation(game), SINGLE_DUMMY_TRICKS_SEARCH_DEPTH);
+	}
+
+	/**
+	 * settings each layout of single dummy play is solved with: those of
+	 * getSolverConfigurator(), sharing its endgame table and SearchMonitor,
+	 * but without a pool of its own as the layouts are already solved in
+	 * parallel on getSamplingPool()
+	 */
+	public static synchronized SolverConfigurator getSamplingConfigurator() {
+		if (samplingConfigurator == null) {
+			SolverConfigurator solver = getSolverConfigurator();
+			samplingConfigurator = new SolverConfigurator();
+			samplingConfigurator.setUseAlphaBetaPruning(solver.isUseAlphaBetaPruning());
+			samplingConfigurator.setUseMoveOrdering(solver.isUseMoveOrdering());
+			samplingConfigurator.setUseTrickBounds(solver.isUseTrickBounds());
+			samplingConfigurator.setLeafEvaluator(solver.getLeafEvaluator());
+			samplingConfigurator.setSearchMonitor(solver.getSearchMonitor());
+			samplingConfigurator.setEndgameTable(solver.getEndgameTable());
+		}
+		return samplingConfigurator;
+	}
+
+	/**
+	 * pool the layouts of single dummy play are solved on, one thread per
+	 * processor
+	 */
+	public static synchronized ForkJoinPool getSamplingPool() {
+		if (samplingPool == null) {
+			samplingPool = new ForkJoinPool();
+		}
+		return samplingPool;
+	}
+
 }
@@ -0,0 +1,18 @@
+package org.gnubridge.search;
+
+import org.gnubridge.core.Card;
+
+/**
+ * Told about the best move at the root as a search finds better ones. May be
+ * called from the threads searching, not only the one that started the
+ * search.
+ */
+public interface ProgressListener {
+
+	/**
+	 * @param tricks the pair to play takes at least this many with move, the
+	 *            exact number once the search is done
+	 */
+	public void bestMoveFound(Card move, int tricks, int positionsExamined);
+
+}
@@ -0,0 +1,152 @@
+package org.gnubridge.search;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Adds up the stats of every search reported to it, so a process that keeps
+ * searching can be watched while it runs, ie. from jconsole once registered.
+ * Solvers report to the monitor of their SolverConfigurator when a search is
+ * done. Searches may report from several threads at once.
+ */
+public class SearchMonitor implements SearchMonitorMBean {
+
+	public static final String OBJECT_NAME = "org.gnubridge:type=SearchStats";
+
+	private SearchStats total = new SearchStats();
+
+	private SearchStats last = new SearchStats();
+
+	private long searches;
+
+	public synchronized void searchFinished(SearchStats stats) {
+		total.add(stats);
+		last = stats;
+		searches++;
+	}
+
+	/**
+	 * Registers with the platform MBean server under OBJECT_NAME, in place of
+	 * a monitor registered there before.
+	 */
+	public void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(this, name);
+		} catch (JMException e) {
+			throw new IllegalStateException("Could not register search statistics as " + OBJECT_NAME, e);
+		}
+	}
+
+	@Override
+	public synchronized void reset() {
+		total = new SearchStats();
+		last = new SearchStats();
+		searches = 0;
+	}
+
+	/**
+	 * @return a copy of the totals
+	 */
+	public synchronized SearchStats getTotal() {
+		SearchStats result = new SearchStats();
+		result.add(total);
+		return result;
+	}
+
+	@Override
+	public synchronized long getSearches() {
+		return searches;
+	}
+
+	@Override
+	public synchronized long getPositionsExamined() {
+		return total.getPositionsExamined();
+	}
+
+	@Override
+	public synchronized long getPositionsPerSecond() {
+		return total.getPositionsPerSecond();
+	}
+
+	@Override
+	public synchronized long getAlphaCutoffs() {
+		return total.getAlphaCutoffs();
+	}
+
+	@Override
+	public synchronized long getBetaCutoffs() {
+		return total.getBetaCutoffs();
+	}
+
+	@Override
+	public synchronized long getSequenceCutoffs() {
+		return total.getSequenceCutoffs();
+	}
+
+	@Override
+	public synchronized long getDuplicatePositionCutoffs() {
+		return total.getDuplicatePositionCutoffs();
+	}
+
+	@Override
+	public synchronized long getTrickBoundsCutoffs() {
+		return total.getTrickBoundsCutoffs();
+	}
+
+	@Override
+	public synchronized long getEndgameTableHits() {
+		return total.getEndgameTableHits();
+	}
+
+	@Override
+	public synchronized long getTableProbes() {
+		return total.getTableProbes();
+	}
+
+	@Override
+	public synchronized long getTableHits() {
+		return total.getTableHits();
+	}
+
+	@Override
+	public synchronized long getTableStores() {
+		return total.getTableStores();
+	}
+
+	@Override
+	public synchronized long getAllocatedBytes() {
+		return total.getAllocatedBytes();
+	}
+
+	/**
+	 * @return the largest tree any one search held
+	 */
+	@Override
+	public synchronized int getPeakRetainedNodes() {
+		return total.getPeakRetainedNodes();
+	}
+
+	@Override
+	public synchronized long getRunningTime() {
+		return total.getRunningTime();
+	}
+
+	@Override
+	public synchronized long getLastSearchRunningTime() {
+		return last.getRunningTime();
+	}
+
+	@Override
+	public synchronized long getLastSearchPositionsExamined() {
+		return last.getPositionsExamined();
+	}
+
+}
@@ -0,0 +1,44 @@
+package org.gnubridge.search;
+
+/**
+ * Totals of the searches reported to a SearchMonitor, as seen over JMX.
+ */
+public interface SearchMonitorMBean {
+
+	public long getSearches();
+
+	public long getPositionsExamined();
+
+	public long getPositionsPerSecond();
+
+	public long getAlphaCutoffs();
+
+	public long getBetaCutoffs();
+
+	public long getSequenceCutoffs();
+
+	public long getDuplicatePositionCutoffs();
+
+	public long getTrickBoundsCutoffs();
+
+	public long getEndgameTableHits();
+
+	public long getTableProbes();
+
+	public long getTableHits();
+
+	public long getTableStores();
+
+	public long getAllocatedBytes();
+
+	public int getPeakRetainedNodes();
+
+	public long getRunningTime();
+
+	public long getLastSearchRunningTime();
+
+	public long getLastSearchPositionsExamined();
+
+	public void reset();
+
+}
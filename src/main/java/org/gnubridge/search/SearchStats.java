@@ -0,0 +1,273 @@
+package org.gnubridge.search;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.gnubridge.core.Card;
+
+/**
+ * What one search did: positions examined at each depth, what cut the tree
+ * short, how the transposition table was used, and what it cost. A solver
+ * fills in its own as it searches; helper threads and root moves searched in
+ * parallel keep theirs apart and they are added up when the search is done.
+ * <p>
+ * Alpha cutoffs are those at the turn of the pair playing against the one to
+ * play at the root, beta cutoffs those at the root pair's turn, the same way
+ * Node prunes them.
+ */
+public class SearchStats {
+
+	public static final long UNKNOWN = -1;
+
+	private final long[] positionsPerDepth = new long[Card.COUNT + 1];
+
+	private long alphaCutoffs;
+
+	private long betaCutoffs;
+
+	private long sequenceCutoffs;
+
+	private long duplicatePositionCutoffs;
+
+	private long trickBoundsCutoffs;
+
+	private long endgameTableHits;
+
+	private long tableProbes;
+
+	private long tableHits;
+
+	private long tableStores;
+
+	private long allocatedBytes;
+
+	private int peakRetainedNodes;
+
+	private long runningTime;
+
+	void positionExamined(int depth) {
+		positionsPerDepth[depth]++;
+	}
+
+	void alphaCutoff() {
+		alphaCutoffs++;
+	}
+
+	void betaCutoff() {
+		betaCutoffs++;
+	}
+
+	void sequenceCutoffs(int count) {
+		sequenceCutoffs += count;
+	}
+
+	void duplicatePositionCutoff() {
+		duplicatePositionCutoffs++;
+	}
+
+	void trickBoundsCutoff() {
+		trickBoundsCutoffs++;
+	}
+
+	void endgameTableHit() {
+		endgameTableHits++;
+	}
+
+	void tableProbe() {
+		tableProbes++;
+	}
+
+	void tableHit() {
+		tableHits++;
+	}
+
+	void tableStore() {
+		tableStores++;
+	}
+
+	/**
+	 * adds what allocatedBytesOfThisThread() went up by between before and
+	 * after, the total stays UNKNOWN once either is
+	 */
+	void allocated(long before, long after) {
+		if (allocatedBytes == UNKNOWN || before == UNKNOWN || after == UNKNOWN) {
+			allocatedBytes = UNKNOWN;
+		} else {
+			allocatedBytes += after - before;
+		}
+	}
+
+	void setPeakRetainedNodes(int peakRetainedNodes) {
+		this.peakRetainedNodes = peakRetainedNodes;
+	}
+
+	void setRunningTime(long runningTime) {
+		this.runningTime = runningTime;
+	}
+
+	/**
+	 * Adds the counts of other to these. Running times add up as well, the
+	 * peak tree size is the larger of the two.
+	 */
+	public void add(SearchStats other) {
+		for (int i = 0; i < positionsPerDepth.length; i++) {
+			positionsPerDepth[i] += other.positionsPerDepth[i];
+		}
+		alphaCutoffs += other.alphaCutoffs;
+		betaCutoffs += other.betaCutoffs;
+		sequenceCutoffs += other.sequenceCutoffs;
+		duplicatePositionCutoffs += other.duplicatePositionCutoffs;
+		trickBoundsCutoffs += other.trickBoundsCutoffs;
+		endgameTableHits += other.endgameTableHits;
+		tableProbes += other.tableProbes;
+		tableHits += other.tableHits;
+		tableStores += other.tableStores;
+		allocated(0, other.allocatedBytes);
+		peakRetainedNodes = Math.max(peakRetainedNodes, other.peakRetainedNodes);
+		runningTime += other.runningTime;
+	}
+
+	public long getPositionsExamined() {
+		long result = 0;
+		for (long positions : positionsPerDepth) {
+			result += positions;
+		}
+		return result;
+	}
+
+	/**
+	 * @param depth cards played from the root
+	 */
+	public long getPositionsExamined(int depth) {
+		return positionsPerDepth[depth];
+	}
+
+	/**
+	 * @return most cards played from the root in a position examined, or -1
+	 *         if none was
+	 */
+	public int getMaxDepth() {
+		for (int i = positionsPerDepth.length - 1; i >= 0; i--) {
+			if (positionsPerDepth[i] > 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public long getPositionsPerSecond() {
+		return getPositionsExamined() * 1000 / Math.max(1, runningTime);
+	}
+
+	public long getAlphaCutoffs() {
+		return alphaCutoffs;
+	}
+
+	public long getBetaCutoffs() {
+		return betaCutoffs;
+	}
+
+	/**
+	 * @return cards not searched because the next higher card of the suit in
+	 *         the same hand is
+	 */
+	public long getSequenceCutoffs() {
+		return sequenceCutoffs;
+	}
+
+	/**
+	 * @return positions not searched because the transposition table gave
+	 *         their value
+	 */
+	public long getDuplicatePositionCutoffs() {
+		return duplicatePositionCutoffs;
+	}
+
+	/**
+	 * @return positions not searched because quick tricks and sure losers
+	 *         settled them, see TrickBounds
+	 */
+	public long getTrickBoundsCutoffs() {
+		return trickBoundsCutoffs;
+	}
+
+	/**
+	 * @return positions looked up in the EndgameTable instead of searched
+	 */
+	public long getEndgameTableHits() {
+		return endgameTableHits;
+	}
+
+	public long getTableProbes() {
+		return tableProbes;
+	}
+
+	/**
+	 * @return probes that found a value or bounds counted over the right
+	 *         number of tricks
+	 */
+	public long getTableHits() {
+		return tableHits;
+	}
+
+	public long getTableStores() {
+		return tableStores;
+	}
+
+	/**
+	 * @return bytes allocated by the threads searching, or UNKNOWN when the
+	 *         JVM does not count them
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * @return most nodes held at once by a search building a tree, 0 for one
+	 *         that does not
+	 */
+	public int getPeakRetainedNodes() {
+		return peakRetainedNodes;
+	}
+
+	/**
+	 * @return miliseconds
+	 */
+	public long getRunningTime() {
+		return runningTime;
+	}
+
+	/**
+	 * @return bytes the calling thread allocated since it started, or UNKNOWN
+	 */
+	static long allocatedBytesOfThisThread() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+			if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+				return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return UNKNOWN;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		result.append("  Positions examined: " + getPositionsExamined() + " (" + getPositionsPerSecond() + "/sec)\n");
+		result.append("    by depth:");
+		for (int i = 0; i <= getMaxDepth(); i++) {
+			result.append(" " + positionsPerDepth[i]);
+		}
+		result.append("\n");
+		result.append("  Cutoffs: alpha " + alphaCutoffs + ", beta " + betaCutoffs + ", sequence " + sequenceCutoffs
+				+ ", duplicate position " + duplicatePositionCutoffs + ", trick bounds " + trickBoundsCutoffs + "\n");
+		result.append("  Endgame table hits: " + endgameTableHits + "\n");
+		result.append("  Table: probes " + tableProbes + ", hits " + tableHits + ", stores " + tableStores + "\n");
+		result.append("  Peak nodes retained: " + peakRetainedNodes + "\n");
+		result.append("  Bytes allocated: " + (allocatedBytes == UNKNOWN ? "unknown" : String.valueOf(allocatedBytes))
+				+ "\n");
+		return result.toString();
+	}
+
+}
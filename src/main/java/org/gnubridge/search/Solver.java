@@ -0,0 +1,66 @@
+package org.gnubridge.search;
+
+import java.util.List;
+
+import org.gnubridge.core.Card;
+
+/**
+ * Finds the best card to play in a deal, assuming every player sees all the
+ * cards. Tricks are counted from the position the search starts in.
+ */
+public interface Solver {
+
+	public void search();
+
+	/**
+	 * Searches until done or until the deadline passes, whichever comes
+	 * first. Each time a move at the root is searched to the end and beats
+	 * the moves searched before it, listener is told, if there is one.
+	 * 
+	 * @return the best move, or when the deadline passed the best of the
+	 *         moves searched to the end so far, and failing that the first
+	 *         move the search started on
+	 */
+	public Card search(Deadline deadline, ProgressListener listener);
+
+	/**
+	 * @return whether the last search got to the end before its deadline,
+	 *         and was not cancelled
+	 */
+	public boolean isCompleted();
+
+	/**
+	 * Stops the search running, or the next one, soon, the same way a
+	 * deadline does. May be called from any thread. Interrupting the thread
+	 * running the search has the same effect.
+	 */
+	public void cancel();
+
+	public List<Card> getBestMoves();
+
+	/**
+	 * @return tricks pair takes with best play, within maxTricks, or
+	 *         Node.UNITNITIALIZED when the search did not need to work it out
+	 */
+	public int getTricksTaken(int pair);
+
+	public int getPositionsExamined();
+
+	/**
+	 * @return what the last search did, see SearchStats
+	 */
+	public SearchStats getStats();
+
+	/**
+	 * only search this many tricks ahead; a last trick left is always played
+	 * out
+	 */
+	public void setMaxTricks(int maxTricks);
+
+	/**
+	 * when the player to move has one sensible card, play it without
+	 * searching
+	 */
+	public void setTerminateIfRootOnlyHasOneValidMove(boolean terminateIfRootOnlyHasOneValidMove);
+
+}
@@ -1,5 +1,13 @@
 package org.gnubridge.search;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.gnubridge.search.ordering.BridgeHeuristics;
+import org.gnubridge.search.ordering.HistoryHeuristic;
+import org.gnubridge.search.ordering.KillerMoves;
+import org.gnubridge.search.ordering.MoveOrdering;
 import org.gnubridge.search.pruning.AlphaBeta;
 
 public class SolverConfigurator {
@@ -7,9 +15,29 @@ public class SolverConfigurator {
 	public static final SolverConfigurator Default = new SolverConfigurator();
 	static {
 		Default.setUseAlphaBetaPruning(true);
+		Default.setUseMoveOrdering(true);
+		Default.setUseTrickBounds(true);
 	}
 	private boolean useAlphaBetaPruning;
 
+	private boolean useMoveOrdering;
+
+	private boolean useTrickBounds;
+
+	private boolean useNullWindowSearch;
+
+	private boolean releaseFinishedSubtrees;
+
+	private ForkJoinPool forkJoinPool;
+
+	private int helperThreads;
+
+	private SearchMonitor searchMonitor;
+
+	private EndgameTable endgameTable;
+
+	private LeafEvaluator leafEvaluator;
+
 	public boolean isUseAlphaBetaPruning() {
 		return useAlphaBetaPruning;
 	}
@@ -19,11 +47,148 @@ public class SolverConfigurator {
 
 	}
 
+	public boolean isUseMoveOrdering() {
+		return useMoveOrdering;
+	}
+
+	/**
+	 * try the hash move, killer cards and bridge rules of thumb first instead
+	 * of the highest card
+	 */
+	public void setUseMoveOrdering(boolean useMoveOrdering) {
+		this.useMoveOrdering = useMoveOrdering;
+	}
+
+	public boolean isUseTrickBounds() {
+		return useTrickBounds;
+	}
+
+	/**
+	 * cut positions at the start of a trick using quick tricks and sure
+	 * losers, see TrickBounds
+	 */
+	public void setUseTrickBounds(boolean useTrickBounds) {
+		this.useTrickBounds = useTrickBounds;
+	}
+
+	public boolean isUseNullWindowSearch() {
+		return useNullWindowSearch;
+	}
+
+	/**
+	 * converge on the tricks taken with null window tests, see
+	 * NullWindowSearch
+	 */
+	public void setUseNullWindowSearch(boolean useNullWindowSearch) {
+		this.useNullWindowSearch = useNullWindowSearch;
+	}
+
+	public boolean isReleaseFinishedSubtrees() {
+		return releaseFinishedSubtrees;
+	}
+
+	/**
+	 * keep memory bounded by dropping the nodes of finished subtrees, see
+	 * DoubleDummySolver.setReleaseFinishedSubtrees()
+	 */
+	public void setReleaseFinishedSubtrees(boolean releaseFinishedSubtrees) {
+		this.releaseFinishedSubtrees = releaseFinishedSubtrees;
+	}
+
+	public ForkJoinPool getForkJoinPool() {
+		return forkJoinPool;
+	}
+
+	/**
+	 * when set, the moves available at the root are searched in parallel on
+	 * this pool
+	 */
+	public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+		this.forkJoinPool = forkJoinPool;
+	}
+
+	public int getHelperThreads() {
+		return helperThreads;
+	}
+
+	/**
+	 * when above zero, this many helper threads search the same root as the
+	 * solver, each trying moves in a different order, and share one
+	 * transposition table. The first to finish gives the result. Takes
+	 * precedence over the fork join pool.
+	 */
+	public void setHelperThreads(int helperThreads) {
+		this.helperThreads = helperThreads;
+	}
+
+	public SearchMonitor getSearchMonitor() {
+		return searchMonitor;
+	}
+
+	/**
+	 * when set, solvers report the stats of each search they finish to it
+	 */
+	public void setSearchMonitor(SearchMonitor searchMonitor) {
+		this.searchMonitor = searchMonitor;
+	}
+
+	public EndgameTable getEndgameTable() {
+		return endgameTable;
+	}
+
+	/**
+	 * when set, solvers look up the last tricks in it, see EndgameTable
+	 */
+	public void setEndgameTable(EndgameTable endgameTable) {
+		this.endgameTable = endgameTable;
+	}
+
+	public LeafEvaluator getLeafEvaluator() {
+		return leafEvaluator;
+	}
+
+	/**
+	 * when set, searches limited to fewer tricks than are left estimate the
+	 * rest with it, see DoubleDummySolver.setLeafEvaluator()
+	 */
+	public void setLeafEvaluator(LeafEvaluator leafEvaluator) {
+		this.leafEvaluator = leafEvaluator;
+	}
+
 	public void configure(DoubleDummySolver doubleDummySolver) {
+		configure(doubleDummySolver, createMoveOrderings());
+
+	}
+
+	/**
+	 * configures a solver that shares move orderings with other searches, see
+	 * SolverSession
+	 */
+	public void configure(DoubleDummySolver doubleDummySolver, List<MoveOrdering> moveOrderings) {
 		if (isUseAlphaBetaPruning()) {
 			doubleDummySolver.addPostEvaluationPruningStrategy(new AlphaBeta());
 		}
+		for (MoveOrdering ordering : moveOrderings) {
+			doubleDummySolver.addMoveOrdering(ordering);
+		}
+		doubleDummySolver.setUseTrickBounds(isUseTrickBounds());
+		doubleDummySolver.setUseNullWindowSearch(isUseNullWindowSearch());
+		doubleDummySolver.setReleaseFinishedSubtrees(isReleaseFinishedSubtrees());
+		doubleDummySolver.setEndgameTable(getEndgameTable());
+		doubleDummySolver.setLeafEvaluator(getLeafEvaluator());
+	}
 
+	/**
+	 * @return the move orderings to use, empty unless move ordering is on
+	 */
+	public List<MoveOrdering> createMoveOrderings() {
+		List<MoveOrdering> result = new ArrayList<MoveOrdering>();
+		if (isUseMoveOrdering()) {
+			result.add(new KillerMoves());
+			result.add(new BridgeHeuristics());
+			result.add(new HistoryHeuristic());
+		}
+		return result;
 	}
 
 }
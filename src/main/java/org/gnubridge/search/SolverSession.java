@@ -0,0 +1,59 @@
+package org.gnubridge.search;
+
+import java.util.List;
+
+import org.gnubridge.core.Deal;
+import org.gnubridge.search.ordering.MoveOrdering;
+
+/**
+ * Keeps the position table and move ordering data of one deal from one search
+ * to the next: across the depths of an iterative deepening search and across
+ * the cards played. Positions already searched are looked up instead of
+ * searched again, and the cards best in them are tried first.
+ * <p>
+ * Positions are keyed on the cards left, not on how the deal got there, so a
+ * session must not be used for more than one deal.
+ */
+public class SolverSession {
+
+	private final SolverConfigurator configurator;
+
+	private final PositionLookup lookup;
+
+	private final List<MoveOrdering> moveOrderings;
+
+	public SolverSession() {
+		this(SolverConfigurator.Default);
+	}
+
+	public SolverSession(SolverConfigurator configurator) {
+		this(configurator, new PositionLookup());
+	}
+
+	public SolverSession(SolverConfigurator configurator, PositionLookup lookup) {
+		this.configurator = configurator;
+		this.lookup = lookup;
+		moveOrderings = configurator.createMoveOrderings();
+	}
+
+	/**
+	 * @return a solver for the deal as it stands now, seeded with what earlier
+	 *         solvers of the session learned
+	 */
+	public DoubleDummySolver newSolver(Deal game) {
+		return new DoubleDummySolver(game, this);
+	}
+
+	public SolverConfigurator getConfigurator() {
+		return configurator;
+	}
+
+	public PositionLookup getPositionLookup() {
+		return lookup;
+	}
+
+	List<MoveOrdering> getMoveOrderings() {
+		return moveOrderings;
+	}
+
+}
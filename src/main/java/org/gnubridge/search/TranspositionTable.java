@@ -0,0 +1,202 @@
+package org.gnubridge.search;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size hash table of position values. Keys and values live in primitive
+ * arrays so the table never grows and produces no garbage while searching.
+ * Entries are grouped in buckets of two: the first slot keeps the entry with
+ * the deepest subtree seen for the bucket, the second always takes the newest
+ * entry.
+ * <p>
+ * Several solvers may share one table without locking: each slot stores its
+ * key XORed with its value, so an entry torn by two threads writing at once no
+ * longer matches its key and reads as missing.
+ */
+public class TranspositionTable {
+
+	public static final int DEFAULT_SIZE_MB = 16;
+
+	private static final int BYTES_PER_ENTRY = 8 + 8;
+
+	public static final int NO_CARD = -1;
+
+	private static final long VALID = 1L << 24;
+
+	private static final long HAS_TRICKS = 1L << 25;
+
+	private static final int BEST_CARD_SHIFT = 26;
+
+	private static final int TRICKS_COUNTED_SHIFT = 32;
+
+	private static final long HAS_BOUNDS = 1L << 36;
+
+	private static final long TRICKS = 0xffffL | 0xfL << TRICKS_COUNTED_SHIFT | HAS_TRICKS | HAS_BOUNDS;
+
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+	private final long[] keys;
+
+	private final long[] values;
+
+	private final int bucketBits;
+
+	public TranspositionTable() {
+		this(DEFAULT_SIZE_MB);
+	}
+
+	public TranspositionTable(int sizeMb) {
+		if (sizeMb < 1) {
+			throw new IllegalArgumentException("Transposition table needs at least 1 Mb, got " + sizeMb);
+		}
+		long entries = sizeMb * 1024L * 1024L / BYTES_PER_ENTRY;
+		int bits = 63 - Long.numberOfLeadingZeros(entries / 2);
+		bucketBits = Math.min(bits, 29);
+		keys = new long[2 << bucketBits];
+		values = new long[2 << bucketBits];
+	}
+
+	/**
+	 * @return the packed value stored for the key, or 0 if there is none. Use
+	 *         hasTricks(), getWestEast(), getNorthSouth(), hasBounds(),
+	 *         getLowerBound(), getUpperBound(), getTricksCounted(), getDepth()
+	 *         and getBestCard() to unpack.
+	 */
+	public long get(long key) {
+		int slot = bucket(key);
+		long value = values[slot];
+		if (value != 0 && (keys[slot] ^ value) == key) {
+			return value;
+		}
+		slot++;
+		value = values[slot];
+		if (value != 0 && (keys[slot] ^ value) == key) {
+			return value;
+		}
+		return 0;
+	}
+
+	public void put(long key, int westEast, int northSouth, int depth) {
+		put(key, westEast, northSouth, depth, NO_CARD);
+	}
+
+	/**
+	 * @param depth size of the subtree the value was computed from; deeper
+	 *            entries are kept in preference to shallow ones
+	 * @param bestCard the card that gave the value, or NO_CARD; the searches
+	 *            store it as Position.relativeCard() gives it, so it names
+	 *            the same card wherever the position comes up
+	 */
+	public void put(long key, int westEast, int northSouth, int depth, int bestCard) {
+		put(key, westEast, northSouth, 0, depth, bestCard);
+	}
+
+	/**
+	 * @param tricksCounted number of tricks the value was counted over, which
+	 *            is less than the tricks left when the search stopped short
+	 *            of the end of the deal
+	 */
+	public void put(long key, int westEast, int northSouth, int tricksCounted, int depth, int bestCard) {
+		store(key, HAS_TRICKS | (long) (tricksCounted & 0xf) << TRICKS_COUNTED_SHIFT | (northSouth & 0xff) << 8
+				| (westEast & 0xff), depth, bestCard);
+	}
+
+	/**
+	 * Stores what null window searches found out about the north/south tricks
+	 * still to come. Bounds that meet are stored as a value.
+	 */
+	public void putBounds(long key, int northSouthLower, int northSouthUpper, int tricksCounted, int depth,
+			int bestCard) {
+		if (northSouthLower == northSouthUpper) {
+			put(key, tricksCounted - northSouthLower, northSouthLower, tricksCounted, depth, bestCard);
+			return;
+		}
+		store(key, HAS_BOUNDS | (long) (tricksCounted & 0xf) << TRICKS_COUNTED_SHIFT | (northSouthUpper & 0xff) << 8
+				| (northSouthLower & 0xff), depth, bestCard);
+	}
+
+	/**
+	 * remembers the card that refuted a position whose value was not worked
+	 * out, so it can be tried first the next time round. A value already
+	 * stored for the position is kept.
+	 */
+	public void putBestCard(long key, int depth, int bestCard) {
+		store(key, get(key) & TRICKS, depth, bestCard);
+	}
+
+	private void store(long key, long tricks, int depth, int bestCard) {
+		long value = VALID | (long) (bestCard + 1) << BEST_CARD_SHIFT | (depth & 0xff) << 16 | tricks;
+		int slot = bucket(key);
+		long deepValue = values[slot];
+		long deepKey = keys[slot] ^ deepValue;
+		if (deepValue == 0 || deepKey == key) {
+			write(slot, key, value);
+		} else if (depth >= getDepth(deepValue)) {
+			write(slot + 1, deepKey, deepValue);
+			write(slot, key, value);
+		} else {
+			write(slot + 1, key, value);
+		}
+	}
+
+	public void clear() {
+		Arrays.fill(values, 0);
+		Arrays.fill(keys, 0);
+	}
+
+	public int capacity() {
+		return keys.length;
+	}
+
+	private void write(int slot, long key, long value) {
+		keys[slot] = key ^ value;
+		values[slot] = value;
+	}
+
+	private int bucket(long key) {
+		return (int) ((key * HASH_MULTIPLIER) >>> (64 - bucketBits)) << 1;
+	}
+
+	public static boolean hasTricks(long value) {
+		return (value & HAS_TRICKS) != 0;
+	}
+
+	public static boolean hasBounds(long value) {
+		return (value & HAS_BOUNDS) != 0;
+	}
+
+	/**
+	 * @return north/south tricks to come at least, of a value with bounds
+	 */
+	public static int getLowerBound(long value) {
+		return (byte) value;
+	}
+
+	/**
+	 * @return north/south tricks to come at most, of a value with bounds
+	 */
+	public static int getUpperBound(long value) {
+		return (byte) (value >>> 8);
+	}
+
+	public static int getWestEast(long value) {
+		return (byte) value;
+	}
+
+	public static int getNorthSouth(long value) {
+		return (byte) (value >>> 8);
+	}
+
+	public static int getDepth(long value) {
+		return (int) (value >>> 16) & 0xff;
+	}
+
+	public static int getBestCard(long value) {
+		return (int) (value >>> BEST_CARD_SHIFT & 0x3f) - 1;
+	}
+
+	public static int getTricksCounted(long value) {
+		return (int) (value >>> TRICKS_COUNTED_SHIFT) & 0xf;
+	}
+
+}
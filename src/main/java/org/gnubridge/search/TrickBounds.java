@@ -0,0 +1,127 @@
+package org.gnubridge.search;
+
+/**
+ * Static bounds on the tricks still to come, worked out at the start of a
+ * trick without searching. Quick tricks are winners the player on lead can
+ * cash straight away; in a suit contract they are limited by how long the
+ * opponents who could ruff can follow. Sure trump winners are the top trumps
+ * held in sequence by one hand, which always take a trick each sooner or
+ * later, so they only count when the search goes to the end of the deal.
+ */
+public class TrickBounds {
+
+	private int lowerBound;
+
+	private int upperBound;
+
+	/**
+	 * bounds to be worked out with update(), so a recursive search can keep
+	 * one instance for all its positions
+	 */
+	public TrickBounds() {
+	}
+
+	/**
+	 * @param tricksLeft tricks left to play within the search horizon
+	 */
+	public TrickBounds(Position position, int tricksLeft) {
+		update(position, tricksLeft);
+	}
+
+	/**
+	 * works the bounds out again for another position
+	 */
+	public void update(Position position, int tricksLeft) {
+		int leader = position.getNextToPlay();
+		int leaderPair = Position.pair(leader);
+		boolean toTheEnd = tricksLeft >= Long.bitCount(position.getHand(leader));
+		int lower = quickTricks(position);
+		int upper = tricksLeft;
+		if (toTheEnd) {
+			lower = Math.max(lower, sureTrumpWinners(position, leaderPair));
+			upper -= sureTrumpWinners(position, 1 - leaderPair);
+		}
+		lowerBound = Math.min(lower, tricksLeft);
+		upperBound = upper;
+	}
+
+	/**
+	 * @return tricks the pair on lead takes at least from here on
+	 */
+	public int getLowerBound() {
+		return lowerBound;
+	}
+
+	/**
+	 * @return tricks the pair on lead takes at most from here on
+	 */
+	public int getUpperBound() {
+		return upperBound;
+	}
+
+	public boolean isExact() {
+		return lowerBound == upperBound;
+	}
+
+	static int quickTricks(Position position) {
+		int leader = position.getNextToPlay();
+		long hand = position.getHand(leader);
+		long remaining = remainingCards(position);
+		int result = 0;
+		for (int suit = 0; suit < 4; suit++) {
+			long suitMask = Position.suitMask(suit);
+			int winners = topSequenceLength(remaining & suitMask, hand);
+			if (winners > 0 && position.getTrump() != Position.NO_TRUMP && suit != position.getTrump()) {
+				winners = Math.min(winners, roundsBeforeRuff(position, leader, suitMask));
+			}
+			result += winners;
+		}
+		return result;
+	}
+
+	static int roundsBeforeRuff(Position position, int leader, long suitMask) {
+		long trumps = Position.suitMask(position.getTrump());
+		int result = Integer.MAX_VALUE;
+		for (int i = 1; i <= 3; i += 2) {
+			long hand = position.getHand((leader + i) % 4);
+			if ((hand & trumps) != 0) {
+				result = Math.min(result, Long.bitCount(hand & suitMask));
+			}
+		}
+		return result;
+	}
+
+	static int sureTrumpWinners(Position position, int pair) {
+		if (position.getTrump() == Position.NO_TRUMP) {
+			return 0;
+		}
+		long trumps = remainingCards(position) & Position.suitMask(position.getTrump());
+		if (trumps == 0) {
+			return 0;
+		}
+		long topTrump = Long.highestOneBit(trumps);
+		for (int seat = 0; seat < 4; seat++) {
+			if ((position.getHand(seat) & topTrump) != 0) {
+				if (Position.pair(seat) != pair) {
+					return 0;
+				}
+				return topSequenceLength(trumps, position.getHand(seat));
+			}
+		}
+		return 0;
+	}
+
+	static int topSequenceLength(long suitCards, long hand) {
+		int result = 0;
+		for (long rest = suitCards; rest != 0 && (hand & Long.highestOneBit(rest)) != 0; rest &= ~Long
+				.highestOneBit(rest)) {
+			result++;
+		}
+		return result;
+	}
+
+	private static long remainingCards(Position position) {
+		return position.getHand(0) | position.getHand(1) | position.getHand(2) | position.getHand(3);
+	}
+
+}
@@ -0,0 +1,68 @@
+package org.gnubridge.search;
+
+/**
+ * Works out the last two tricks of a deal without building nodes. Each hand
+ * has at most two cards to choose from for the first trick and the second
+ * plays itself, so trying every lead and follow on the position and
+ * comparing the cards left for the last trick is quicker than searching.
+ */
+public class TwoTrickEnding {
+
+	/**
+	 * @return whether position starts the second to last trick
+	 */
+	public static boolean isTwoTrickEnding(Position position) {
+		return position.getTrickSize() == 0 && Long.bitCount(position.getHand(position.getNextToPlay())) == 2;
+	}
+
+	/**
+	 * @param position at the start of the second to last trick; played back
+	 *            to where it was before returning
+	 * @return tricks the pair on lead takes of the last two
+	 */
+	public static int leaderTricks(Position position) {
+		return playFirstTrick(position, 0);
+	}
+
+	private static int playFirstTrick(Position position, int cardsPlayed) {
+		if (cardsPlayed == 4) {
+			int leaderPair = Position.pair(position.getTrickLeader());
+			int firstTrick = Position.pair(position.getNextToPlay()) == leaderPair ? 1 : 0;
+			return firstTrick + (Position.pair(lastTrickWinner(position)) == leaderPair ? 1 : 0);
+		}
+		boolean leaderPair = cardsPlayed % 2 == 0;
+		int best = leaderPair ? -1 : 3;
+		for (long moves = position.getLegalMoves(); moves != 0; moves &= moves - 1) {
+			position.play(Long.numberOfTrailingZeros(moves));
+			int tricks = playFirstTrick(position, cardsPlayed + 1);
+			position.unplay();
+			if (leaderPair ? tricks > best : tricks < best) {
+				best = tricks;
+				if (best == (leaderPair ? 2 : 0)) {
+					break;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * the seat whose last card wins, each hand holding one
+	 */
+	private static int lastTrickWinner(Position position) {
+		int leader = position.getNextToPlay();
+		int trump = position.getTrump();
+		int winningCard = Long.numberOfTrailingZeros(position.getHand(leader));
+		int winner = leader;
+		for (int i = 1; i < 4; i++) {
+			int seat = (leader + i) % 4;
+			int card = Long.numberOfTrailingZeros(position.getHand(seat));
+			if (Position.suit(card) == Position.suit(winningCard) ? card > winningCard : Position.suit(card) == trump) {
+				winningCard = card;
+				winner = seat;
+			}
+		}
+		return winner;
+	}
+
+}
@@ -0,0 +1,54 @@
+package org.gnubridge.search.ordering;
+
+import org.gnubridge.core.Card;
+import org.gnubridge.search.Position;
+
+/**
+ * The rules of thumb a player would use: cash winners on lead, second hand
+ * low, cover an honour, otherwise win the trick as cheaply as possible, and
+ * play low when partner has the trick or it cannot be won.
+ */
+public class BridgeHeuristics implements MoveOrdering {
+
+	static final int CASH_WINNER = 5 << 16;
+
+	static final int COVER_HONOUR = 4 << 16;
+
+	static final int WIN_CHEAPLY = 3 << 16;
+
+	static final int PLAY_LOW = 2 << 16;
+
+	@Override
+	public int score(Position position, int card, int depth) {
+		int value = Position.value(card);
+		if (position.getTrickSize() == 0) {
+			if (position.isTopCard(card)) {
+				return CASH_WINNER + value;
+			}
+			return PLAY_LOW - value;
+		}
+		if (Position.pair(position.getWinningSeat()) == Position.pair(position.getNextToPlay())) {
+			return PLAY_LOW - value;
+		}
+		if (!position.beatsTrick(card)) {
+			return PLAY_LOW - value;
+		}
+		if (position.getTrickSize() == 1) {
+			if (Position.value(position.getWinningCard()) >= Card.JACK) {
+				return COVER_HONOUR - value;
+			}
+			return PLAY_LOW - value;
+		}
+		return WIN_CHEAPLY - value;
+	}
+
+	@Override
+	public void cutoff(int card, int depth) {
+	}
+
+	@Override
+	public MoveOrdering forAnotherThread() {
+		return this;
+	}
+
+}
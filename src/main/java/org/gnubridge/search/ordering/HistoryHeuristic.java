@@ -0,0 +1,37 @@
+package org.gnubridge.search.ordering;
+
+import org.gnubridge.core.Card;
+import org.gnubridge.search.Position;
+
+/**
+ * Counts cutoffs per card, weighted towards the ones near the root, and breaks
+ * ties between cards the other orderings like equally.
+ * <p>
+ * Not thread safe: each search running in parallel gets its own copy, see
+ * forAnotherThread().
+ */
+public class HistoryHeuristic implements MoveOrdering {
+
+	static final int MAX_SCORE = (1 << 12) - 1;
+
+	private final int[] history = new int[Card.COUNT];
+
+	@Override
+	public int score(Position position, int card, int depth) {
+		return Math.min(history[card], MAX_SCORE);
+	}
+
+	@Override
+	public void cutoff(int card, int depth) {
+		int cardsLeft = Card.COUNT - depth;
+		history[card] = Math.min(history[card] + cardsLeft * cardsLeft, Integer.MAX_VALUE / 2);
+	}
+
+	@Override
+	public MoveOrdering forAnotherThread() {
+		HistoryHeuristic result = new HistoryHeuristic();
+		System.arraycopy(history, 0, result.history, 0, history.length);
+		return result;
+	}
+
+}
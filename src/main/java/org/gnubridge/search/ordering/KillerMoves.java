@@ -0,0 +1,58 @@
+package org.gnubridge.search.ordering;
+
+import org.gnubridge.core.Card;
+import org.gnubridge.search.Position;
+
+/**
+ * Remembers the last two cards that caused a cutoff at each depth. A card that
+ * refuted one line often refutes its neighbours too.
+ * <p>
+ * Not thread safe: each search running in parallel gets its own copy, see
+ * forAnotherThread().
+ */
+public class KillerMoves implements MoveOrdering {
+
+	static final int FIRST_KILLER_SCORE = 1 << 21;
+
+	static final int SECOND_KILLER_SCORE = 1 << 20;
+
+	private static final int NONE = -1;
+
+	private final int[][] killers = new int[Card.COUNT + 1][2];
+
+	public KillerMoves() {
+		for (int[] killersAtDepth : killers) {
+			killersAtDepth[0] = NONE;
+			killersAtDepth[1] = NONE;
+		}
+	}
+
+	@Override
+	public int score(Position position, int card, int depth) {
+		if (killers[depth][0] == card) {
+			return FIRST_KILLER_SCORE;
+		} else if (killers[depth][1] == card) {
+			return SECOND_KILLER_SCORE;
+		}
+		return 0;
+	}
+
+	@Override
+	public void cutoff(int card, int depth) {
+		if (killers[depth][0] != card) {
+			killers[depth][1] = killers[depth][0];
+			killers[depth][0] = card;
+		}
+	}
+
+	@Override
+	public MoveOrdering forAnotherThread() {
+		KillerMoves result = new KillerMoves();
+		for (int i = 0; i < killers.length; i++) {
+			result.killers[i][0] = killers[i][0];
+			result.killers[i][1] = killers[i][1];
+		}
+		return result;
+	}
+
+}
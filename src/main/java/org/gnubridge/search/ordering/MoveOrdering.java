@@ -0,0 +1,32 @@
+package org.gnubridge.search.ordering;
+
+import org.gnubridge.search.Position;
+
+/**
+ * Decides which cards the solver tries first. Scores from all orderings are
+ * added up, so each ordering keeps to its own range: killer cards above bridge
+ * heuristics, above history. The card found best in the transposition table,
+ * looked up once per position by the search itself, goes before all of them.
+ */
+public interface MoveOrdering {
+
+	/**
+	 * @param depth cards played since the root of the search
+	 * @return how promising it is to play card in position, higher is tried
+	 *         first
+	 */
+	public int score(Position position, int card, int depth);
+
+	/**
+	 * card played at depth was good enough to cut off the search of its
+	 * siblings
+	 */
+	public void cutoff(int card, int depth);
+
+	/**
+	 * @return an ordering for a search running on another thread at the same
+	 *         time: this one if it can be shared, otherwise a copy of what it
+	 *         learned so far
+	 */
+	public MoveOrdering forAnotherThread();
+}
@@ -2,6 +2,11 @@ package org.gnubridge.search.pruning;
 
 import org.gnubridge.search.Node;
 
+/**
+ * Prunes a node once its value is known, and then its ancestors that have a
+ * value as well. An ancestor still being searched has no value yet and is
+ * pruned, if at all, once its own value is known, so the walk stops there.
+ */
 public class AlphaBeta implements PruningStrategy {
 
 	@Override
@@ -14,7 +19,7 @@ public class AlphaBeta implements PruningStrategy {
 			node.betaPrune();
 		}
 
-		if (node.getParent() != null) {
+		if (node.getParent() != null && node.getParent().hasValue()) {
 			prune(node.getParent());
 		}
 
@@ -0,0 +1,121 @@
+package org.gnubridge.batch;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.gnubridge.search.DoubleDummyTable;
+import org.gnubridge.search.SolverConfigurator;
+
+public class BatchSolverTest extends TestCase {
+
+	private static final String[] DEALS = { "N:AK.Q.-.2 QJ.-.A.3 T.AK.-.4 -.J.KQ.5", "N:A.K.Q.J K.Q.J.A Q.J.A.K J.A.K.Q",
+			"W:T9.-.8.- 32.4.-.- -.A.-.AK A.-.-.QJ" };
+
+	private File deals;
+
+	private File results;
+
+	private ByteArrayOutputStream log;
+
+	@Override
+	protected void setUp() throws Exception {
+		deals = File.createTempFile("deals", ".pbn");
+		results = File.createTempFile("results", ".txt");
+		results.delete();
+		log = new ByteArrayOutputStream();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		deals.delete();
+		results.delete();
+	}
+
+	public void testWritesTableOfEveryDealInOrder() throws Exception {
+		write(deals, "% hand records\n[Event \"club night\"]\n[Deal \"" + DEALS[0] + "\"]\n\n" + DEALS[1] + "\n"
+				+ DEALS[2] + "\n");
+		assertEquals(3, newSolver().run());
+		List<String> lines = read(results);
+		assertEquals(3, lines.size());
+		for (int i = 0; i < DEALS.length; i++) {
+			DoubleDummyTable table = DoubleDummyTable.solve(DealFormat.parse(DEALS[i]));
+			assertEquals((i + 1) + "\t" + DEALS[i] + "\t" + BatchSolver.formatTricks(table), lines.get(i));
+		}
+		assertTrue(log.toString().contains("deals/sec"));
+	}
+
+	public void testResumesWithDealsNotSolvedYet() throws Exception {
+		write(deals, DEALS[0] + "\n" + DEALS[1] + "\n" + DEALS[2] + "\n");
+		String first = "1\t" + DEALS[0] + "\t" + BatchSolver.formatTricks(DoubleDummyTable.solve(DealFormat.parse(DEALS[0])));
+		String cutShort = "2\t" + DEALS[1] + "\t1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1 1";
+		write(results, first + "\n" + cutShort);
+		assertEquals(2, newSolver().run());
+		List<String> lines = read(results);
+		assertEquals(4, lines.size());
+		assertEquals(first, lines.get(0));
+		assertEquals(cutShort, lines.get(1));
+		assertTrue(lines.get(2).startsWith("2\t"));
+		assertTrue(lines.get(3).startsWith("3\t"));
+
+		assertEquals(0, newSolver().run());
+		assertEquals(4, read(results).size());
+	}
+
+	public void testReportsDealsItCannotRead() throws Exception {
+		write(deals, "N:AK.-.-.- A.-.-.- -.-.-.- -.-.-.-\n" + DEALS[1] + "\n");
+		assertEquals(1, newSolver().run());
+		assertTrue(read(results).get(0).startsWith("2\t"));
+		assertTrue(log.toString().contains("Deal 1 not solved"));
+	}
+
+	public void testSolvesOnOneThreadWithOneSetOfTables() throws Exception {
+		write(deals, DEALS[0] + "\n" + DEALS[1] + "\n" + DEALS[2] + "\n");
+		BatchSolver solver = new BatchSolver(deals, results, SolverConfigurator.Default, 1);
+		solver.setLog(new PrintStream(log));
+		assertEquals(1, solver.maxLookupSets());
+		assertEquals(3, solver.run());
+	}
+
+	public void testTableSetsFitInHalfTheHeap() {
+		BatchSolver solver = new BatchSolver(deals, results, SolverConfigurator.Default, 1000);
+		assertTrue(solver.maxLookupSets() < 1000);
+	}
+
+	private BatchSolver newSolver() {
+		BatchSolver result = new BatchSolver(deals, results, SolverConfigurator.Default, 2);
+		result.setLog(new PrintStream(log));
+		return result;
+	}
+
+	private static void write(File file, String text) throws IOException {
+		FileWriter out = new FileWriter(file);
+		try {
+			out.write(text);
+		} finally {
+			out.close();
+		}
+	}
+
+	private static List<String> read(File file) throws IOException {
+		List<String> result = new ArrayList<String>();
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		try {
+			for (String line = in.readLine(); line != null; line = in.readLine()) {
+				result.add(line);
+			}
+		} finally {
+			in.close();
+		}
+		return result;
+	}
+
+}
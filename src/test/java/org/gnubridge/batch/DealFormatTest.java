@@ -0,0 +1,66 @@
+package org.gnubridge.batch;
+
+import junit.framework.TestCase;
+
+import org.gnubridge.core.Card;
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.Direction;
+import org.gnubridge.core.deck.Ace;
+import org.gnubridge.core.deck.Clubs;
+import org.gnubridge.core.deck.Hearts;
+import org.gnubridge.core.deck.Spades;
+import org.gnubridge.core.deck.Ten;
+import org.gnubridge.core.deck.Two;
+
+public class DealFormatTest extends TestCase {
+
+	public void testParsesHandsClockwiseFromFirstSeat() {
+		Deal deal = DealFormat.parse("E:A.-.-.- T.-.-.- -.2.-.- -.-.-.A");
+		assertTrue(deal.getPlayer(Direction.EAST_DEPRECATED).getHand().contains(Ace.of(Spades.i())));
+		assertTrue(deal.getPlayer(Direction.SOUTH_DEPRECATED).getHand().contains(Ten.of(Spades.i())));
+		assertTrue(deal.getPlayer(Direction.WEST_DEPRECATED).getHand().contains(Two.of(Hearts.i())));
+		assertTrue(deal.getPlayer(Direction.NORTH_DEPRECATED).getHand().contains(Ace.of(Clubs.i())));
+	}
+
+	public void testFormatsWhatItParses() {
+		String text = "N:AKQJT98765432... .AKQJT98765432.. ..AKQJT98765432. ...AKQJT98765432";
+		assertEquals(text, DealFormat.format(DealFormat.parse(text)));
+		assertEquals(text, DealFormat.format(DealFormat
+				.parse("W:...AKQJT98765432 AKQJT98765432... .AKQJT98765432.. ..AKQJT98765432.")));
+	}
+
+	public void testFullDeal() {
+		Deal deal = DealFormat.parse("N:K843.T542.J6.863 AQJ.K3.AKQ95.AK9 T92.AQ8.T82.QJT4 765.J976.743.752");
+		for (int seat = Direction.WEST_DEPRECATED; seat <= Direction.SOUTH_DEPRECATED; seat++) {
+			assertEquals(13, deal.getPlayer(seat).getHand().size());
+		}
+		Card aceOfSpades = Ace.of(Spades.i());
+		assertTrue(deal.getPlayer(Direction.EAST_DEPRECATED).getHand().contains(aceOfSpades));
+	}
+
+	public void testRejectsCardDealtTwice() {
+		assertRejected("N:A... A... ... ...");
+	}
+
+	public void testRejectsHandsOfDifferentSizes() {
+		assertRejected("N:AK... Q... J... T...");
+	}
+
+	public void testRejectsMissingSeat() {
+		assertRejected("A... K... Q... J...");
+	}
+
+	public void testRejectsUnknownCard() {
+		assertRejected("N:X... K... Q... J...");
+	}
+
+	private void assertRejected(String text) {
+		try {
+			DealFormat.parse(text);
+			fail(text);
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,87 @@
+package org.gnubridge.core.bidding;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.gnubridge.core.Direction;
+import org.gnubridge.core.North;
+import org.gnubridge.core.Player;
+import org.gnubridge.core.West;
+import org.gnubridge.core.deck.Diamonds;
+import org.gnubridge.core.deck.Hearts;
+import org.gnubridge.core.deck.Spades;
+
+public class ParCalculatorTest extends TestCase {
+
+	/**
+	 * both players of a pair take the same tricks, clubs to notrump
+	 */
+	private int[][] tricks(int[] northSouth, int[] westEast) {
+		int[][] result = new int[ParCalculator.STRAINS.length][4];
+		for (int strain = 0; strain < ParCalculator.STRAINS.length; strain++) {
+			for (int declarer = Direction.WEST_DEPRECATED; declarer <= Direction.SOUTH_DEPRECATED; declarer++) {
+				result[strain][declarer] = Player.matchPair(declarer) == Player.NORTH_SOUTH ? northSouth[strain]
+						: westEast[strain];
+			}
+		}
+		return result;
+	}
+
+	public void testPassedOutWhenNeitherPairCanMakeAnything() {
+		ParCalculator par = new ParCalculator(tricks(new int[] { 6, 6, 6, 6, 6 }, new int[] { 6, 6, 6, 6, 6 }),
+				new UsThemVulnerability(false, false), North.i());
+		assertEquals(0, par.getNorthSouthScore());
+		assertTrue(par.getParContracts().isEmpty());
+	}
+
+	public void testGameMadeWithOvertrickBidAtLowestLevel() {
+		ParCalculator par = new ParCalculator(tricks(new int[] { 7, 6, 8, 11, 9 }, new int[] { 2, 4, 3, 2, 3 }),
+				new UsThemVulnerability(false, false), West.i());
+		assertEquals(450, par.getNorthSouthScore());
+		List<ParContract> contracts = par.getParContracts();
+		assertEquals(1, contracts.size());
+		assertEquals(new Bid(4, Spades.i()), contracts.get(0).getBid());
+		assertFalse(contracts.get(0).getBid().isDoubled());
+		assertEquals(Player.NORTH_SOUTH, contracts.get(0).getPair());
+		assertEquals("4 SPADES by NS +1", contracts.get(0).toString());
+	}
+
+	public void testSacrificeCheaperThanGame() {
+		ParCalculator par = new ParCalculator(tricks(new int[] { 5, 4, 4, 10, 7 }, new int[] { 6, 8, 8, 3, 5 }),
+				new UsThemVulnerability(true, false), North.i());
+		assertEquals(500, par.getNorthSouthScore());
+		List<ParContract> contracts = par.getParContracts();
+		assertEquals(2, contracts.size());
+		assertEquals(new Bid(5, Diamonds.i()), contracts.get(0).getBid());
+		assertEquals(new Bid(5, Hearts.i()), contracts.get(1).getBid());
+		assertTrue(contracts.get(1).getBid().isDoubled());
+		assertEquals(Player.WEST_EAST, contracts.get(1).getPair());
+		assertEquals("5 HEARTS (Doubled) by WE -3", contracts.get(1).toString());
+	}
+
+	public void testNoSacrificeWhenItCostsMoreThanGame() {
+		ParCalculator par = new ParCalculator(tricks(new int[] { 5, 4, 4, 10, 7 }, new int[] { 6, 8, 8, 3, 5 }),
+				new UsThemVulnerability(false, true), North.i());
+		assertEquals(420, par.getNorthSouthScore());
+		assertEquals(1, par.getParContracts().size());
+		assertEquals(new Bid(4, Spades.i()), par.getParContracts().get(0).getBid());
+	}
+
+	public void testDeclarerIsBetterPlayerOfPair() {
+		int[][] tricks = tricks(new int[] { 6, 6, 6, 6, 6 }, new int[] { 6, 6, 6, 6, 6 });
+		tricks[3][Direction.SOUTH_DEPRECATED] = 9;
+		ParCalculator par = new ParCalculator(tricks, new UsThemVulnerability(false, false), North.i());
+		assertEquals(140, par.getNorthSouthScore());
+		assertEquals(9, par.getParContracts().get(0).getTricks());
+	}
+
+	public void testDealerPairBidsFirstWhenBothCanMakeTheSame() {
+		int[] makesOneNotrump = { 6, 6, 6, 6, 7 };
+		int[][] tricks = tricks(makesOneNotrump, makesOneNotrump);
+		UsThemVulnerability vulnerability = new UsThemVulnerability(false, false);
+		assertEquals(90, new ParCalculator(tricks, vulnerability, North.i()).getNorthSouthScore());
+		assertEquals(-90, new ParCalculator(tricks, vulnerability, West.i()).getNorthSouthScore());
+	}
+
+}
@@ -163,4 +163,22 @@ public class ScoreCalculatorTest extends TestCase {
 		assertEquals(100 + 200, actualDefenderScore);
 	}
 
+	public void testDoubledContractUndertricksNotVulnerable() {
+		int[] defenderScores = { 100, 300, 500, 800, 1100 };
+		for (int underTricks = 1; underTricks <= defenderScores.length; underTricks++) {
+			ScoreCalculator calculator = new ScoreCalculator(new Bid(4, Spades.i()).makeDoubled(), 10 - underTricks,
+					new Vulnerability(false, true));
+			assertEquals(defenderScores[underTricks - 1], calculator.getDefenderScore());
+		}
+	}
+
+	public void testDoubledContractUndertricksVulnerable() {
+		int[] defenderScores = { 200, 500, 800, 1100 };
+		for (int underTricks = 1; underTricks <= defenderScores.length; underTricks++) {
+			ScoreCalculator calculator = new ScoreCalculator(new Bid(4, Spades.i()).makeDoubled(), 10 - underTricks,
+					new Vulnerability(true, false));
+			assertEquals(defenderScores[underTricks - 1], calculator.getDefenderScore());
+		}
+	}
+
 }
@@ -1,6 +1,8 @@
 package org.gnubridge.search;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import junit.framework.TestCase;
 
@@ -236,6 +238,51 @@ public class DoubleDummySolverTest extends TestCase {
 		assertEquals(Ace.of(Hearts.i()), search.getRoot().getBestMove().getCardPlayed());
 	}
 
+	public void testParallelSearchAgreesWithSingleThreaded() {
+		Deal game = new Deal(Spades.i());
+		game.getWest().init(new Hand("3", "A,4", "K,2", "9"));
+		game.getNorth().init(new Hand("A,K", "10", "5", "8,7"));
+		game.getEast().init(new Hand("", "Q,J,2", "Q,3", "5"));
+		game.getSouth().init(new Hand("2", "9", "A,4", "A,Q"));
+		game.setNextToPlay(Direction.WEST_DEPRECATED);
+		DoubleDummySolver single = new DoubleDummySolver(game.duplicate());
+		single.search();
+		SolverConfigurator configurator = new SolverConfigurator();
+		configurator.setUseAlphaBetaPruning(true);
+		configurator.setForkJoinPool(new ForkJoinPool(2));
+		DoubleDummySolver parallel = new DoubleDummySolver(game.duplicate(), configurator);
+		parallel.search();
+		assertEquals(single.getRoot().getTricksTaken(Player.NORTH_SOUTH), parallel.getRoot().getTricksTaken(
+				Player.NORTH_SOUTH));
+		assertEquals(single.getBestMoves(), parallel.getBestMoves());
+		assertTrue(parallel.getPositionsExamined() > 1);
+	}
+
+	public void testHelperThreadsAgreeWithSingleThreaded() {
+		Deal game = new Deal(Spades.i());
+		game.getWest().init(new Hand("3", "A,4", "K,2", "9"));
+		game.getNorth().init(new Hand("A,K", "10", "5", "8,7"));
+		game.getEast().init(new Hand("", "Q,J,2", "Q,3", "5"));
+		game.getSouth().init(new Hand("2", "9", "A,4", "A,Q"));
+		game.setNextToPlay(Direction.WEST_DEPRECATED);
+		DoubleDummySolver single = new DoubleDummySolver(game.duplicate());
+		single.search();
+		SolverConfigurator configurator = new SolverConfigurator();
+		configurator.setUseAlphaBetaPruning(true);
+		configurator.setHelperThreads(3);
+		DoubleDummySolver lazySmp = new DoubleDummySolver(game.duplicate(), configurator);
+		lazySmp.search();
+		assertEquals(single.getRoot().getTricksTaken(Player.NORTH_SOUTH), lazySmp.getRoot().getTricksTaken(
+				Player.NORTH_SOUTH));
+		assertEquals(single.getBestMoves(), lazySmp.getBestMoves());
+		assertEquals(4, lazySmp.getPositionsExaminedPerThread().length);
+		int total = 0;
+		for (int positions : lazySmp.getPositionsExaminedPerThread()) {
+			total += positions;
+		}
+		assertEquals(total, lazySmp.getPositionsExamined());
+	}
+
 	public void testTricksTallyIsTrickLimit() {
 		Deal game = new Deal(NoTrump.i());
 		game.getPlayer(Direction.WEST_DEPRECATED).init(new String[] { "3", "A", "4" });
@@ -412,6 +459,155 @@ public class DoubleDummySolverTest extends TestCase {
 		assertEquals(maxWestTricks, root.getTricksTaken(Player.WEST_EAST));
 	}
 
+	public void testReleasingFinishedSubtreesKeepsChildValueCameFrom() {
+		Node root = new Node(null);
+		root.setPlayerTurn(Direction.WEST_DEPRECATED);
+		Node child = new Node(root);
+		child.setPlayerTurn(Direction.NORTH_DEPRECATED);
+		Node worse = new Node(child);
+		worse.setTricksTaken(Player.WEST_EAST, 2);
+		worse.setTricksTaken(Player.NORTH_SOUTH, 1);
+		new Node(worse);
+		Node better = new Node(child);
+		better.setTricksTaken(Player.WEST_EAST, 1);
+		better.setTricksTaken(Player.NORTH_SOUTH, 2);
+		new Node(root);
+		DoubleDummySolver s = new DoubleDummySolver(root);
+		s.setReleaseFinishedSubtrees(true);
+		s.trim(child);
+		assertNull(child.children.get(0));
+		assertEquals(better, child.children.get(1));
+		assertEquals(2, child.getTricksTaken(Player.NORTH_SOUTH));
+	}
+
+	public void testReleasingFinishedSubtreesFindsSameResult() {
+		for (int i = 0; i < 5; i++) {
+			Deal game = new Deal(NoTrump.i());
+			GameUtils.initializeRandom(game, 5);
+			game.doNextCard(0);
+			SolverConfigurator configurator = new SolverConfigurator();
+			configurator.setUseAlphaBetaPruning(true);
+			configurator.setUseMoveOrdering(true);
+			DoubleDummySolver full = new DoubleDummySolver(game.duplicate(), configurator);
+			full.setTerminateIfRootOnlyHasOneValidMove(false);
+			full.search();
+			configurator.setReleaseFinishedSubtrees(true);
+			DoubleDummySolver released = new DoubleDummySolver(game.duplicate(), configurator);
+			released.setTerminateIfRootOnlyHasOneValidMove(false);
+			released.search();
+			assertEquals(full.getTricksTaken(Player.NORTH_SOUTH), released.getTricksTaken(Player.NORTH_SOUTH));
+			assertEquals(full.getTricksTaken(Player.WEST_EAST), released.getTricksTaken(Player.WEST_EAST));
+			assertEquals(full.getBestMoves(), released.getBestMoves());
+			assertTrue(released.getPeakRetainedNodes() < full.getPeakRetainedNodes());
+		}
+	}
+
+	public void testReportsBestMoveAsItImproves() {
+		for (int i = 0; i < 5; i++) {
+			Deal game = new Deal(NoTrump.i());
+			GameUtils.initializeRandom(game, 5);
+			game.doNextCard(0);
+			DoubleDummySolver s = new DoubleDummySolver(game);
+			s.setTerminateIfRootOnlyHasOneValidMove(false);
+			final List<Card> moves = new ArrayList<Card>();
+			final List<Integer> tricks = new ArrayList<Integer>();
+			Card move = s.search(Deadline.NONE, new ProgressListener() {
+				@Override
+				public void bestMoveFound(Card bestMove, int tricksTaken, int positionsExamined) {
+					moves.add(bestMove);
+					tricks.add(tricksTaken);
+				}
+			});
+			assertTrue(s.isCompleted());
+			assertEquals(s.getBestMoves().get(0), move);
+			assertEquals(move, moves.get(moves.size() - 1));
+			assertEquals(s.getTricksTaken(s.getRoot().getCurrentPair()), tricks.get(tricks.size() - 1).intValue());
+		}
+	}
+
+	public void testStopsAtDeadlineWithBestMoveSoFar() {
+		Deal game = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(game, 8);
+		game.doNextCard(0);
+		DoubleDummySolver s = new DoubleDummySolver(game);
+		s.setTerminateIfRootOnlyHasOneValidMove(false);
+		Card move = s.search(Deadline.in(0), null);
+		assertFalse(s.isCompleted());
+		assertTrue(game.getNextToPlay().getPossibleMoves(game.getCurrentTrick()).contains(move));
+		assertEquals(Node.UNITNITIALIZED, s.getTricksTaken(Player.NORTH_SOUTH));
+	}
+
+	public void testStopsAtDeadlineSearchingRootMovesInParallel() {
+		Deal game = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(game, 8);
+		game.doNextCard(0);
+		SolverConfigurator configurator = new SolverConfigurator();
+		configurator.setUseAlphaBetaPruning(true);
+		configurator.setForkJoinPool(new ForkJoinPool(2));
+		DoubleDummySolver s = new DoubleDummySolver(game, configurator);
+		s.setTerminateIfRootOnlyHasOneValidMove(false);
+		Card move = s.search(Deadline.in(0), null);
+		assertFalse(s.isCompleted());
+		assertTrue(game.getNextToPlay().getPossibleMoves(game.getCurrentTrick()).contains(move));
+	}
+
+	public void testStatsCountPositionsExaminedByDepth() {
+		Deal game = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(game, 6);
+		DoubleDummySolver s = new DoubleDummySolver(game);
+		s.search();
+		SearchStats stats = s.getStats();
+		assertEquals(s.getPositionsExamined(), stats.getPositionsExamined());
+		assertEquals(1, stats.getPositionsExamined(0));
+		assertTrue(stats.getAlphaCutoffs() + stats.getBetaCutoffs() > 0);
+		assertTrue(stats.getTableStores() > 0);
+		assertTrue(stats.getTableHits() <= stats.getTableProbes());
+		assertEquals(s.getPeakRetainedNodes(), stats.getPeakRetainedNodes());
+	}
+
+	public void testStatsAddUpRootMovesSearchedInParallel() {
+		Deal game = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(game, 6);
+		SolverConfigurator configurator = new SolverConfigurator();
+		configurator.setUseAlphaBetaPruning(true);
+		configurator.setForkJoinPool(new ForkJoinPool(2));
+		DoubleDummySolver s = new DoubleDummySolver(game, configurator);
+		s.setTerminateIfRootOnlyHasOneValidMove(false);
+		s.search();
+		assertEquals(s.getPositionsExamined(), s.getStats().getPositionsExamined());
+		assertEquals(1, s.getStats().getPositionsExamined(0));
+	}
+
+	public void testStopsWhenCancelled() {
+		Deal game = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(game, 8);
+		game.doNextCard(0);
+		DoubleDummySolver s = new DoubleDummySolver(game);
+		s.setTerminateIfRootOnlyHasOneValidMove(false);
+		s.cancel();
+		Card move = s.search(Deadline.NONE, null);
+		assertFalse(s.isCompleted());
+		assertTrue(game.getNextToPlay().getPossibleMoves(game.getCurrentTrick()).contains(move));
+	}
+
+	public void testStopsSearchingRootMovesInParallelWhenThreadInterrupted() {
+		Deal game = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(game, 8);
+		game.doNextCard(0);
+		SolverConfigurator configurator = new SolverConfigurator();
+		configurator.setUseAlphaBetaPruning(true);
+		configurator.setForkJoinPool(new ForkJoinPool(2));
+		DoubleDummySolver s = new DoubleDummySolver(game, configurator);
+		s.setTerminateIfRootOnlyHasOneValidMove(false);
+		Thread.currentThread().interrupt();
+		try {
+			s.search(Deadline.NONE, null);
+		} finally {
+			assertTrue(Thread.interrupted());
+		}
+		assertFalse(s.isCompleted());
+	}
+
 	public void testLastChildCallsParentTrim() {
 		Node root = new Node(null);
 		root.setPlayerTurn(Direction.WEST_DEPRECATED);
@@ -0,0 +1,117 @@
+package org.gnubridge.search;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.Direction;
+import org.gnubridge.core.Player;
+import org.gnubridge.core.deck.NoTrump;
+import org.gnubridge.core.deck.Trump;
+import org.gnubridge.presentation.GameUtils;
+
+public class DoubleDummyTableTest extends TestCase {
+
+	public void testSameTricksAsSolvingEachStrainAndDeclarerOnItsOwn() {
+		Deal deal = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(deal, 5, new Random(19));
+		DoubleDummyTable table = DoubleDummyTable.solve(deal);
+		int coldPositions = 0;
+		for (Trump strain : DoubleDummyTable.STRAINS) {
+			for (int declarer = Direction.WEST_DEPRECATED; declarer <= Direction.SOUTH_DEPRECATED; declarer++) {
+				Deal game = deal.duplicate();
+				game.setTrump(strain);
+				game.setNextToPlay((declarer + 1) % 4);
+				DoubleDummySolver solver = new DoubleDummySolver(game);
+				solver.setTerminateIfRootOnlyHasOneValidMove(false);
+				solver.search();
+				coldPositions += solver.getPositionsExamined();
+				assertEquals(strain + " " + Direction.instance(declarer), solver.getTricksTaken(Player
+						.matchPair(declarer)), table.getTricks(strain, Direction.instance(declarer)));
+			}
+		}
+		assertTrue(table.getPositionsExamined() < coldPositions);
+	}
+
+	public void testSameTricksReusingLookupsForAnotherDeal() {
+		PositionLookup[] lookups = DoubleDummyTable.newLookups();
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			for (int seed = 5; seed < 8; seed++) {
+				Deal deal = new Deal(NoTrump.i());
+				GameUtils.initializeRandom(deal, 4, new Random(seed));
+				DoubleDummyTable reused = DoubleDummyTable.solve(deal, SolverConfigurator.Default, pool, lookups);
+				assertTrue(Arrays.deepEquals(DoubleDummyTable.solve(deal).getTricks(), reused.getTricks()));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	public void testNoSearchGoesOnAfterOneFails() throws InterruptedException {
+		final AtomicInteger searchesFinished = new AtomicInteger();
+		SolverConfigurator configurator = new SolverConfigurator();
+		configurator.setSearchMonitor(new SearchMonitor() {
+			@Override
+			public synchronized void searchFinished(SearchStats stats) {
+				if (searchesFinished.incrementAndGet() == 1) {
+					throw new IllegalStateException("first search fails");
+				}
+			}
+		});
+		Deal deal = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(deal, 4, new Random(3));
+		ForkJoinPool pool = new ForkJoinPool(1);
+		int finishedWhenFailed = -1;
+		try {
+			DoubleDummyTable.solve(deal, configurator, pool, DoubleDummyTable.newLookups());
+		} catch (RuntimeException expected) {
+			finishedWhenFailed = searchesFinished.get();
+		}
+		pool.shutdown();
+		pool.awaitTermination(10, TimeUnit.SECONDS);
+		assertTrue(finishedWhenFailed > 0);
+		assertEquals(finishedWhenFailed, searchesFinished.get());
+	}
+
+	public void testLeavesDealAsItWas() {
+		Deal deal = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(deal, 4, new Random(3));
+		String key = deal.getKeyForWeakHashMap();
+		DoubleDummyTable.solve(deal);
+		assertEquals(NoTrump.i(), deal.getTrump());
+		assertEquals(key, deal.getKeyForWeakHashMap());
+		assertEquals(4, deal.getWest().getHand().size());
+	}
+
+	public void testTricksByStrainThenDeclarer() {
+		Deal deal = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(deal, 3, new Random(11));
+		DoubleDummyTable table = DoubleDummyTable.solve(deal);
+		int[][] tricks = table.getTricks();
+		for (int strain = 0; strain < DoubleDummyTable.STRAINS.length; strain++) {
+			for (int declarer = Direction.WEST_DEPRECATED; declarer <= Direction.SOUTH_DEPRECATED; declarer++) {
+				assertEquals(table.getTricks(DoubleDummyTable.STRAINS[strain], Direction.instance(declarer)),
+						tricks[strain][declarer]);
+			}
+		}
+	}
+
+	public void testNeedsTrickStart() {
+		Deal deal = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(deal, 4, new Random(3));
+		deal.doNextCard(0);
+		try {
+			DoubleDummyTable.solve(deal);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+}
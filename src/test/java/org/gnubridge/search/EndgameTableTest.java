@@ -0,0 +1,159 @@
+package org.gnubridge.search;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.Player;
+import org.gnubridge.core.deck.Clubs;
+import org.gnubridge.core.deck.Hearts;
+import org.gnubridge.core.deck.NoTrump;
+import org.gnubridge.core.deck.Spades;
+import org.gnubridge.core.deck.Trump;
+import org.gnubridge.presentation.GameUtils;
+import org.gnubridge.search.ordering.MoveOrdering;
+
+public class EndgameTableTest extends TestCase {
+
+	private static final Trump[] TRUMPS = { NoTrump.i(), Clubs.i(), Hearts.i(), Spades.i() };
+
+	private static EndgameTable table;
+
+	/**
+	 * two cards per hand, worked out once for all tests
+	 */
+	private static synchronized EndgameTable table() {
+		if (table == null) {
+			table = EndgameTable.generate(2);
+		}
+		return table;
+	}
+
+	private Deal randomDeal(int cardsPerHand, Random random) {
+		Deal deal = new Deal(TRUMPS[random.nextInt(TRUMPS.length)]);
+		GameUtils.initializeRandom(deal, cardsPerHand, random);
+		deal.setNextToPlay(random.nextInt(4));
+		return deal;
+	}
+
+	private int solve(Deal deal, int pair) {
+		DoubleDummySolver solver = new DoubleDummySolver(deal.duplicate());
+		solver.setTerminateIfRootOnlyHasOneValidMove(false);
+		solver.search();
+		return solver.getRoot().getTricksTaken(pair);
+	}
+
+	public void testSameTricksAsSolver() {
+		Random random = new Random(3);
+		for (int i = 0; i < 200; i++) {
+			Deal deal = randomDeal(1 + i % 2, random);
+			Position position = new Position(deal);
+			assertTrue(table().covers(position));
+			int leaderPair = Player.matchPair(deal.getNextToPlay().getDirection());
+			assertEquals(deal.toString(), solve(deal, leaderPair), table().getTricks(position));
+		}
+	}
+
+	public void testDoesNotCoverTrickInProgressOrMoreCards() {
+		Random random = new Random(4);
+		Deal deal = randomDeal(2, random);
+		deal.playMoves(Arrays.asList(0));
+		assertFalse(table().covers(new Position(deal)));
+		assertFalse(table().covers(new Position(randomDeal(3, random))));
+	}
+
+	public void testSolverFindsSameTricksAndMovesLookingUpEndings() {
+		SolverConfigurator configurator = new SolverConfigurator();
+		configurator.setUseAlphaBetaPruning(true);
+		SolverConfigurator withTable = new SolverConfigurator();
+		withTable.setUseAlphaBetaPruning(true);
+		withTable.setEndgameTable(table());
+		Random random = new Random(5);
+		for (int i = 0; i < 8; i++) {
+			Deal deal = randomDeal(4, random);
+			DoubleDummySolver searched = new DoubleDummySolver(deal.duplicate(), configurator);
+			searched.setTerminateIfRootOnlyHasOneValidMove(false);
+			searched.search();
+			DoubleDummySolver lookedUp = new DoubleDummySolver(deal.duplicate(), withTable);
+			lookedUp.setTerminateIfRootOnlyHasOneValidMove(false);
+			lookedUp.search();
+			assertEquals(searched.getRoot().getTricksTaken(Player.NORTH_SOUTH), lookedUp.getRoot().getTricksTaken(
+					Player.NORTH_SOUTH));
+			assertEquals(searched.getRoot().getTricksTaken(Player.WEST_EAST), lookedUp.getRoot().getTricksTaken(
+					Player.WEST_EAST));
+			assertEquals(searched.getBestMoves(), lookedUp.getBestMoves());
+			assertTrue(lookedUp.getPositionsExamined() <= searched.getPositionsExamined());
+			assertTrue(lookedUp.getStats().getEndgameTableHits() > 0);
+		}
+	}
+
+	public void testSolverDoesNotLookUpPastMaxTricks() {
+		SolverConfigurator withTable = new SolverConfigurator();
+		withTable.setEndgameTable(table());
+		Random random = new Random(6);
+		for (int i = 0; i < 8; i++) {
+			Deal deal = randomDeal(3, random);
+			DoubleDummySolver searched = new DoubleDummySolver(deal.duplicate());
+			searched.setMaxTricks(1);
+			searched.setTerminateIfRootOnlyHasOneValidMove(false);
+			searched.search();
+			DoubleDummySolver lookedUp = new DoubleDummySolver(deal.duplicate(), withTable);
+			lookedUp.setMaxTricks(1);
+			lookedUp.setTerminateIfRootOnlyHasOneValidMove(false);
+			lookedUp.search();
+			assertEquals(searched.getRoot().getTricksTaken(Player.NORTH_SOUTH), lookedUp.getRoot().getTricksTaken(
+					Player.NORTH_SOUTH));
+			assertEquals(0, lookedUp.getStats().getEndgameTableHits());
+		}
+	}
+
+	public void testNullWindowSearchFindsSameTricks() {
+		Random random = new Random(7);
+		for (int i = 0; i < 8; i++) {
+			Deal deal = randomDeal(4, random);
+			NullWindowSearch search = new NullWindowSearch(new Position(deal), 13, null,
+					new ArrayList<MoveOrdering>());
+			search.setUseTrickBounds(false);
+			search.setEndgameTable(table());
+			assertEquals(solve(deal, Player.NORTH_SOUTH), search.getTricks(Player.NORTH_SOUTH));
+			assertTrue(search.getStats().getEndgameTableHits() > 0);
+		}
+	}
+
+	public void testMapsWrittenTable() throws IOException {
+		File file = File.createTempFile("endgame", ".table");
+		try {
+			EndgameTable.generate(1).write(file);
+			EndgameTable mapped = EndgameTable.open(file);
+			assertEquals(1, mapped.getMaxCardsPerHand());
+			Random random = new Random(8);
+			for (int i = 0; i < 50; i++) {
+				Position position = new Position(randomDeal(1, random));
+				assertEquals(table().getTricks(position), mapped.getTricks(position));
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	public void testDoesNotOpenOtherFiles() throws IOException {
+		File file = File.createTempFile("endgame", ".table");
+		try {
+			FileOutputStream out = new FileOutputStream(file);
+			out.write(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13 });
+			out.close();
+			EndgameTable.open(file);
+			fail("opened a file that is not an endgame table");
+		} catch (IOException expected) {
+		} finally {
+			file.delete();
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+package org.gnubridge.search;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.Direction;
+import org.gnubridge.core.Hand;
+import org.gnubridge.core.Player;
+import org.gnubridge.core.deck.NoTrump;
+import org.gnubridge.core.deck.Spades;
+import org.gnubridge.presentation.GameUtils;
+
+public class HeuristicLeafEvaluatorTest extends TestCase {
+
+	private final LeafEvaluator evaluator = new HeuristicLeafEvaluator();
+
+	public void testLongCardsCountOnceOpponentsAreOut() {
+		Deal deal = new Deal(NoTrump.i());
+		deal.getWest().init(new Hand("A,K,4,3,2", "", "", ""));
+		deal.getNorth().init(new Hand("", "", "", "9,8,7,6,5"));
+		deal.getEast().init(new Hand("Q,J", "5,4,3", "", ""));
+		deal.getSouth().init(new Hand("", "A,K,Q", "3,2", ""));
+		deal.setNextToPlay(Direction.WEST_DEPRECATED);
+		assertEquals(5, evaluator.evaluate(new Position(deal)));
+	}
+
+	public void testOpponentsRuffSideSuitWinners() {
+		Deal notrump = new Deal(NoTrump.i());
+		Deal spades = new Deal(Spades.i());
+		for (Deal deal : new Deal[] { notrump, spades }) {
+			deal.getWest().init(new Hand("", "A,K,Q", "", ""));
+			deal.getNorth().init(new Hand("2", "", "", "4,3"));
+			deal.getEast().init(new Hand("", "4,3,2", "", ""));
+			deal.getSouth().init(new Hand("", "", "4,3,2", ""));
+			deal.setNextToPlay(Direction.WEST_DEPRECATED);
+		}
+		assertEquals(3, evaluator.evaluate(new Position(notrump)));
+		assertTrue(evaluator.evaluate(new Position(spades)) < 3);
+	}
+
+	public void testWinnersOfPartnerCountOnlyWithEntry() {
+		Deal blocked = new Deal(NoTrump.i());
+		blocked.getWest().init(new Hand("", "", "", "4,3,2"));
+		Deal reached = new Deal(NoTrump.i());
+		reached.getWest().init(new Hand("2", "", "", "3,2"));
+		for (Deal deal : new Deal[] { blocked, reached }) {
+			deal.getNorth().init(new Hand("", "", "", "A,K,Q"));
+			deal.getEast().init(new Hand("A,K,Q", "", "", ""));
+			deal.getSouth().init(new Hand("", "A,K,Q", "", ""));
+			deal.setNextToPlay(Direction.WEST_DEPRECATED);
+		}
+		assertEquals(0, evaluator.evaluate(new Position(blocked)));
+		assertEquals(3, evaluator.evaluate(new Position(reached)));
+	}
+
+	public void testEstimatesStayWithinTrickBounds() {
+		Random random = new Random(2);
+		for (int i = 0; i < 200; i++) {
+			Deal deal = new Deal(i % 2 == 0 ? NoTrump.i() : Spades.i());
+			GameUtils.initializeRandom(deal, 1 + random.nextInt(13), random);
+			deal.setNextToPlay(random.nextInt(4));
+			Position position = new Position(deal);
+			int tricksLeft = Long.bitCount(position.getHand(position.getNextToPlay()));
+			TrickBounds bounds = new TrickBounds(position, tricksLeft);
+			int estimate = evaluator.evaluate(position);
+			assertTrue(estimate >= bounds.getLowerBound());
+			assertTrue(estimate <= bounds.getUpperBound());
+		}
+	}
+
+	public void testDepthLimitedSearchCountsTricksToEndOfDeal() {
+		SolverConfigurator configurator = new SolverConfigurator();
+		configurator.setUseAlphaBetaPruning(true);
+		configurator.setLeafEvaluator(evaluator);
+		Random random = new Random(3);
+		for (int i = 0; i < 6; i++) {
+			Deal deal = new Deal(i % 2 == 0 ? NoTrump.i() : Spades.i());
+			GameUtils.initializeRandom(deal, 6, random);
+			DoubleDummySolver solver = new DoubleDummySolver(deal.duplicate(), configurator);
+			solver.setMaxTricks(2);
+			solver.search();
+			assertEquals(6, solver.getRoot().getTricksTaken(Player.WEST_EAST)
+					+ solver.getRoot().getTricksTaken(Player.NORTH_SOUTH));
+		}
+	}
+
+	public void testFullSearchDoesNotEstimate() {
+		SolverConfigurator configurator = new SolverConfigurator();
+		configurator.setUseAlphaBetaPruning(true);
+		configurator.setLeafEvaluator(evaluator);
+		Random random = new Random(4);
+		for (int i = 0; i < 6; i++) {
+			Deal deal = new Deal(i % 2 == 0 ? NoTrump.i() : Spades.i());
+			GameUtils.initializeRandom(deal, 4, random);
+			DoubleDummySolver searched = new DoubleDummySolver(deal.duplicate(), SolverConfigurator.Default);
+			searched.setTerminateIfRootOnlyHasOneValidMove(false);
+			searched.search();
+			DoubleDummySolver evaluated = new DoubleDummySolver(deal.duplicate(), configurator);
+			evaluated.setTerminateIfRootOnlyHasOneValidMove(false);
+			evaluated.search();
+			assertEquals(searched.getRoot().getTricksTaken(Player.NORTH_SOUTH), evaluated.getRoot().getTricksTaken(
+					Player.NORTH_SOUTH));
+		}
+	}
+
+}
@@ -0,0 +1,173 @@
+package org.gnubridge.search;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.gnubridge.core.Card;
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.Direction;
+import org.gnubridge.core.Player;
+import org.gnubridge.core.bidding.Bid;
+import org.gnubridge.core.bidding.Vulnerability;
+import org.gnubridge.core.deck.Hearts;
+import org.gnubridge.core.deck.NoTrump;
+
+public class MonteCarloPlayerTest extends TestCase {
+
+	private ForkJoinPool pool;
+
+	@Override
+	protected void setUp() throws Exception {
+		pool = new ForkJoinPool(2);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		pool.shutdown();
+	}
+
+	/**
+	 * South leads, west sees dummy; the ace of diamonds takes both tricks
+	 * whoever holds the clubs, the three loses the first
+	 */
+	private Deal southLeadsTheTwoOfDiamonds() {
+		Deal game = new Deal(NoTrump.i());
+		game.getWest().init(Card.get("AD"), Card.get("3D"));
+		game.getNorth().init(Card.get("KD"), Card.get("5C"));
+		game.getEast().init(Card.get("6C"), Card.get("7C"));
+		game.getSouth().init(Card.get("2D"), Card.get("4C"));
+		game.setNextToPlay(Direction.SOUTH_DEPRECATED);
+		game.play("2D");
+		return game;
+	}
+
+	public void testPlaysCardBestInEveryLayoutAndStopsSamplingEarly() {
+		MonteCarloPlayer player = new MonteCarloPlayer(SolverConfigurator.Default, pool, new Random(1));
+		player.setSamples(50);
+		assertEquals(Card.get("AD"), player.choose(southLeadsTheTwoOfDiamonds()));
+		assertEquals(2.0, player.getAverage(Card.get("AD")));
+		assertTrue(player.getAverage(Card.get("3D")) < 1.0);
+		assertTrue(player.getSamplesSolved() >= MonteCarloPlayer.DEFAULT_MINIMUM_SAMPLES);
+		assertTrue(player.getSamplesSolved() < 50);
+	}
+
+	public void testComparesScoreOfContract() {
+		MonteCarloPlayer player = new MonteCarloPlayer(SolverConfigurator.Default, pool, new Random(1));
+		player.setContract(new Bid(1, NoTrump.i()), new Vulnerability(false, false));
+		assertEquals(Card.get("AD"), player.choose(southLeadsTheTwoOfDiamonds()));
+		assertEquals(7 * 50.0, player.getAverage(Card.get("AD")));
+	}
+
+	public void testDoesNotSampleWithOnlyOneCardToCompare() {
+		Deal game = new Deal(NoTrump.i());
+		game.getWest().init(Card.get("AS"), Card.get("KS"));
+		game.getNorth().init(Card.get("2S"), Card.get("3S"));
+		game.getEast().init(Card.get("4S"), Card.get("5S"));
+		game.getSouth().init(Card.get("6S"), Card.get("7S"));
+		MonteCarloPlayer player = new MonteCarloPlayer(SolverConfigurator.Default, pool, new Random(1));
+		assertEquals(Card.get("KS"), player.choose(game));
+		assertEquals(0, player.getSamplesSolved());
+	}
+
+	public void testNoCardWhenDeadlinePassesBeforeAnyLayoutIsSolved() {
+		MonteCarloPlayer player = new MonteCarloPlayer(SolverConfigurator.Default, pool, new Random(1));
+		assertNull(player.choose(southLeadsTheTwoOfDiamonds(), Deadline.in(0)));
+		assertEquals(0, player.getSamplesSolved());
+	}
+
+	/**
+	 * seven cards each, so a four trick search stops with three tricks to
+	 * estimate rather than two TwoTrickEnding would settle
+	 */
+	public void testLayoutsSearchedShortOfTheEndAreEstimated() {
+		final AtomicInteger evaluations = new AtomicInteger();
+		SolverConfigurator configurator = new SolverConfigurator();
+		configurator.setUseAlphaBetaPruning(true);
+		configurator.setUseMoveOrdering(true);
+		configurator.setUseTrickBounds(true);
+		configurator.setLeafEvaluator(new LeafEvaluator() {
+			private final LeafEvaluator heuristic = new HeuristicLeafEvaluator();
+
+			@Override
+			public int evaluate(Position position) {
+				evaluations.incrementAndGet();
+				return heuristic.evaluate(position);
+			}
+		});
+		Deal game = new Deal(NoTrump.i());
+		game.getWest().hand("A,Q,J", "5,4", "3,2", "");
+		game.getNorth().hand("K,3", "K,Q", "", "6,5,4");
+		game.getEast().hand("10,9", "A,J,8", "9,8", "");
+		game.getSouth().hand("8,7", "10,9", "", "A,K,Q");
+		game.setNextToPlay(Direction.SOUTH_DEPRECATED);
+		MonteCarloPlayer player = new MonteCarloPlayer(configurator, pool, new Random(1));
+		player.setSamples(MonteCarloPlayer.DEFAULT_MINIMUM_SAMPLES);
+		player.setMaxTricks(ProductionSettings.SINGLE_DUMMY_TRICKS_SEARCH_DEPTH);
+		assertNotNull(player.choose(game));
+		assertTrue(player.getSamplesSolved() > 0);
+		assertTrue(evaluations.get() > 0);
+	}
+
+	public void testCardsInSequenceAreComparedOnce() {
+		Deal game = new Deal(NoTrump.i());
+		game.getWest().hand("A,Q,J,9,2", "", "", "");
+		game.getNorth().hand("K", "", "", "5,4,3,2");
+		game.getEast().hand("10,3", "", "", "8,7,6");
+		game.getSouth().hand("", "", "", "A,K,Q,J,10");
+		game.play("2S");
+		game.play("KS");
+		game.play("3S");
+		game.play("TC");
+		game.play("5C");
+		game.play("6C");
+		game.play("AC");
+		List<Card> candidates = MonteCarloPlayer.candidates(game, game.getPossibleMoves());
+		assertEquals(2, candidates.size());
+		assertEquals(Card.get("9S"), candidates.get(0));
+		assertEquals(Card.get("JS"), candidates.get(1));
+	}
+
+	public void testCardInTrickBeingPlayedBreaksSequence() {
+		Deal game = new Deal(NoTrump.i());
+		game.getWest().hand("A,Q", "", "", "");
+		game.getNorth().hand("", "", "", "3,2");
+		game.getEast().hand("", "", "", "5,4");
+		game.getSouth().hand("K", "", "", "6");
+		game.setNextToPlay(Direction.SOUTH_DEPRECATED);
+		game.play("KS");
+		List<Card> candidates = MonteCarloPlayer.candidates(game, game.getPossibleMoves());
+		assertEquals(2, candidates.size());
+	}
+
+	public void testLayoutsKeepToSuitsShownOutOfAndHandSizes() {
+		Deal game = new Deal(NoTrump.i());
+		game.getWest().hand("", "2,5", "", "A");
+		game.getNorth().hand("", "3,6", "", "K");
+		game.getEast().hand("", "", "Q", "Q,J");
+		game.getSouth().hand("", "4,A", "", "2");
+		game.play("2H");
+		game.play("3H");
+		game.play("QD");
+		game.play("4H");
+		assertEquals(Direction.SOUTH_DEPRECATED, game.getNextToPlay().getDirection());
+		MonteCarloPlayer.Layouts layouts = new MonteCarloPlayer.Layouts(game, Direction.SOUTH_DEPRECATED);
+		Random random = new Random(5);
+		for (int i = 0; i < 50; i++) {
+			Deal layout = layouts.deal(random);
+			assertEquals(game.getSouth().getHand(), layout.getSouth().getHand());
+			assertEquals(game.getNorth().getHand(), layout.getNorth().getHand());
+			for (Player player : layout.getPlayers()) {
+				assertEquals(2, player.getUnplayedCardsCount());
+			}
+			for (Card card : layout.getEast().getHand()) {
+				assertFalse(card.getDenomination().equals(Hearts.i()));
+			}
+			assertEquals(Direction.SOUTH_DEPRECATED, layout.getNextToPlay().getDirection());
+		}
+	}
+
+}
@@ -0,0 +1,314 @@
+package org.gnubridge.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.gnubridge.core.Card;
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.Direction;
+import org.gnubridge.core.Hand;
+import org.gnubridge.core.Player;
+import org.gnubridge.core.deck.Ace;
+import org.gnubridge.core.deck.Clubs;
+import org.gnubridge.core.deck.Diamonds;
+import org.gnubridge.core.deck.Eight;
+import org.gnubridge.core.deck.Five;
+import org.gnubridge.core.deck.Four;
+import org.gnubridge.core.deck.Hearts;
+import org.gnubridge.core.deck.King;
+import org.gnubridge.core.deck.Nine;
+import org.gnubridge.core.deck.NoTrump;
+import org.gnubridge.core.deck.Queen;
+import org.gnubridge.core.deck.Seven;
+import org.gnubridge.core.deck.Six;
+import org.gnubridge.core.deck.Spades;
+import org.gnubridge.core.deck.Ten;
+import org.gnubridge.core.deck.Three;
+import org.gnubridge.core.deck.Trump;
+import org.gnubridge.core.deck.Two;
+import org.gnubridge.presentation.GameUtils;
+
+/**
+ * The scenarios of DoubleDummySolverTest that check what a search finds,
+ * searched by NegamaxSolver
+ */
+public class NegamaxSolverTest extends TestCase {
+
+	public void testWhenPruningPlayedSequenceDoNotConsiderCardsInCurrentTrickAsPlayed() {
+		Deal game = new Deal(Spades.i());
+		game.getWest().init(new Hand("", "A,Q", "", ""));
+		game.getNorth().init(new Hand("", "K,J", "", ""));
+		game.getEast().init(new Hand("", "3,2", "", ""));
+		game.getSouth().init(new Hand("2", "4", "", ""));
+		game.setNextToPlay(Direction.WEST_DEPRECATED);
+		NegamaxSolver search = new NegamaxSolver(game);
+		search.search();
+		assertEquals(1, search.getTricksTaken(Player.WEST_EAST));
+		assertEquals(Ace.of(Hearts.i()), search.getBestMoves().get(0));
+	}
+
+	public void testTricksTallyIsTrickLimit() {
+		Deal game = new Deal(NoTrump.i());
+		game.getPlayer(Direction.WEST_DEPRECATED).init(new String[] { "3", "A", "4" });
+		game.getPlayer(Direction.NORTH_DEPRECATED).init(new String[] { "2", "9", "6" });
+		game.getPlayer(Direction.SOUTH_DEPRECATED).init(new String[] { "10", "5", "J" });
+		game.getPlayer(Direction.EAST_DEPRECATED).init(new String[] { "K", "7", "Q" });
+		game.setNextToPlay(Direction.SOUTH_DEPRECATED);
+		NegamaxSolver s = new NegamaxSolver(game);
+		s.setMaxTricks(1);
+		s.search();
+		assertEquals(1, s.getTricksTaken(Player.WEST_EAST) + s.getTricksTaken(Player.NORTH_SOUTH));
+	}
+
+	public void testTwoTricks() {
+		Deal game = new Deal(NoTrump.i());
+		game.getPlayer(Direction.WEST_DEPRECATED).init(new String[] { "2" }, new String[] { "3" });
+		game.getPlayer(Direction.NORTH_DEPRECATED).init(new String[] { "3" }, new String[] { "2" });
+		game.getPlayer(Direction.SOUTH_DEPRECATED).init(new String[] {}, new String[] { "K", "10" });
+		game.getPlayer(Direction.EAST_DEPRECATED).init(new String[] { "A" }, new String[] {}, new String[] { "J" });
+		game.setNextToPlay(Direction.NORTH_DEPRECATED);
+		NegamaxSolver s = new NegamaxSolver(game);
+		s.search();
+		assertEquals(1, s.getBestMoves().size());
+		assertEquals(Two.of(Hearts.i()), s.getBestMoves().get(0));
+	}
+
+	public void testTwoTricks2() {
+		Deal game = new Deal(NoTrump.i());
+		game.getPlayer(Direction.WEST_DEPRECATED).init(new String[] { "3" }, new String[] { "2" });
+		game.getPlayer(Direction.NORTH_DEPRECATED).init(new String[] { "2" }, new String[] { "3" });
+		game.getPlayer(Direction.SOUTH_DEPRECATED).init(new String[] { "K", "10" });
+		game.getPlayer(Direction.EAST_DEPRECATED).init(new String[] {}, new String[] { "A" }, new String[] { "J" });
+		game.setNextToPlay(Direction.NORTH_DEPRECATED);
+		NegamaxSolver s = new NegamaxSolver(game);
+		s.search();
+		assertEquals(1, s.getBestMoves().size());
+		assertEquals(Two.of(Spades.i()), s.getBestMoves().get(0));
+	}
+
+	public void testOneTrick() {
+		Deal game = new Deal(NoTrump.i());
+		game.getPlayer(Direction.WEST_DEPRECATED).init(new String[] { "3" });
+		game.getPlayer(Direction.NORTH_DEPRECATED).init(new String[] { "2" });
+		game.getPlayer(Direction.SOUTH_DEPRECATED).init(new String[] { "K" });
+		game.getPlayer(Direction.EAST_DEPRECATED).init(new String[] { "J" });
+		game.setNextToPlay(Direction.NORTH_DEPRECATED);
+		NegamaxSolver s = new NegamaxSolver(game);
+		s.setTerminateIfRootOnlyHasOneValidMove(false);
+		s.search();
+		assertEquals(1, s.getTricksTaken(Player.NORTH_SOUTH));
+	}
+
+	public void testAlphaBetaScenario1() {
+		Deal game = new Deal(NoTrump.i());
+		game.getPlayer(Direction.WEST_DEPRECATED).init(
+				new Card[] { Nine.of(Clubs.i()), Four.of(Spades.i()), Six.of(Spades.i()), Nine.of(Spades.i()) });
+		game.getPlayer(Direction.NORTH_DEPRECATED).init(
+				new Card[] { Seven.of(Spades.i()), Ace.of(Spades.i()), Eight.of(Spades.i()), Five.of(Clubs.i()) });
+		game.getPlayer(Direction.EAST_DEPRECATED).init(
+				new Card[] { Ten.of(Hearts.i()), Three.of(Hearts.i()), Two.of(Spades.i()), Eight.of(Clubs.i()) });
+		game.getPlayer(Direction.SOUTH_DEPRECATED).init(
+				new Card[] { Six.of(Hearts.i()), Two.of(Hearts.i()), Queen.of(Spades.i()), King.of(Clubs.i()) });
+		NegamaxSolver s = new NegamaxSolver(game);
+		s.search();
+		assertEquals(2, s.getTricksTaken(Player.WEST_EAST));
+	}
+
+	public void testAlphaBetaScenario2() {
+		Deal game = new Deal(NoTrump.i());
+		game.getPlayer(Direction.WEST_DEPRECATED).init(new Card[] { Six.of(Spades.i()), Nine.of(Spades.i()) });
+		game.getPlayer(Direction.NORTH_DEPRECATED).init(new Card[] { Ace.of(Spades.i()), Eight.of(Spades.i()) });
+		game.getPlayer(Direction.EAST_DEPRECATED).init(new Card[] { Ten.of(Hearts.i()), Three.of(Hearts.i()) });
+		game.getPlayer(Direction.SOUTH_DEPRECATED).init(new Card[] { Six.of(Hearts.i()), Two.of(Hearts.i()) });
+		game.setNextToPlay(Direction.SOUTH_DEPRECATED);
+		NegamaxSolver s = new NegamaxSolver(game);
+		s.search();
+		assertEquals(2, s.getTricksTaken(Player.WEST_EAST));
+	}
+
+	public void testBestMoveWhenRootDoesNotStartTrick() {
+		Deal game = new Deal(NoTrump.i());
+		game.getPlayer(Direction.WEST_DEPRECATED).init(new Card[] { Nine.of(Clubs.i()), Four.of(Spades.i()) });
+		game.getPlayer(Direction.NORTH_DEPRECATED).init(new Card[] { Seven.of(Spades.i()), Queen.of(Hearts.i()) });
+		game.getPlayer(Direction.EAST_DEPRECATED).init(new Card[] { Three.of(Clubs.i()), Three.of(Hearts.i()) });
+		game.getPlayer(Direction.SOUTH_DEPRECATED).init(new Card[] { Four.of(Clubs.i()), Two.of(Spades.i()) });
+		game.doNextCard(0);
+		NegamaxSolver s = new NegamaxSolver(game);
+		s.search();
+		assertEquals(1, s.getBestMoves().size());
+		assertEquals(Queen.of(Hearts.i()), s.getBestMoves().get(0));
+	}
+
+	public void testNorthTrumps() {
+		Deal game = new Deal(Spades.i());
+		game.getPlayer(Direction.WEST_DEPRECATED).init(new Card[] { Nine.of(Clubs.i()), Four.of(Spades.i()) });
+		game.getPlayer(Direction.NORTH_DEPRECATED).init(new Card[] { Two.of(Spades.i()), Two.of(Hearts.i()) });
+		game.getPlayer(Direction.EAST_DEPRECATED).init(new Card[] { Three.of(Clubs.i()), Three.of(Diamonds.i()) });
+		game.getPlayer(Direction.SOUTH_DEPRECATED).init(new Card[] { Six.of(Clubs.i()), Five.of(Diamonds.i()) });
+		game.play(Nine.of(Clubs.i()));
+		NegamaxSolver s = new NegamaxSolver(game);
+		s.search();
+		assertEquals(1, s.getBestMoves().size());
+		assertEquals(Two.of(Spades.i()), s.getBestMoves().get(0));
+	}
+
+	public void testNorthCannotTrumpBecauseHasColor() {
+		Deal game = new Deal(Spades.i());
+		game.getPlayer(Direction.WEST_DEPRECATED).init(new Card[] { Nine.of(Clubs.i()), Four.of(Spades.i()) });
+		game.getPlayer(Direction.NORTH_DEPRECATED).init(new Card[] { Two.of(Spades.i()), Two.of(Clubs.i()) });
+		game.getPlayer(Direction.EAST_DEPRECATED).init(new Card[] { Three.of(Diamonds.i()), Three.of(Hearts.i()) });
+		game.getPlayer(Direction.SOUTH_DEPRECATED).init(new Card[] { Six.of(Diamonds.i()), Five.of(Hearts.i()) });
+		game.doNextCard(0);
+		NegamaxSolver s = new NegamaxSolver(game);
+		s.search();
+		assertEquals(1, s.getBestMoves().size());
+		assertEquals(Two.of(Clubs.i()), s.getBestMoves().get(0));
+	}
+
+	public void testBestMoveForOneTrickRootDidNotStartTrick() {
+		Deal game = new Deal(NoTrump.i());
+		game.getPlayer(Direction.WEST_DEPRECATED).init(new String[] { "3" });
+		game.getPlayer(Direction.NORTH_DEPRECATED).init(new String[] { "2" });
+		game.getPlayer(Direction.SOUTH_DEPRECATED).init(new String[] { "A" });
+		game.getPlayer(Direction.EAST_DEPRECATED).init(new String[] { "K" });
+		game.setNextToPlay(Direction.SOUTH_DEPRECATED);
+		game.doNextCard(0);
+		NegamaxSolver s = new NegamaxSolver(game);
+		s.search();
+		assertEquals(1, s.getBestMoves().size());
+		assertEquals(Three.of(Spades.i()), s.getBestMoves().get(0));
+	}
+
+	public void testShortCircuitIfRootOnlyHasOneValidMove() {
+		Deal game = new Deal(NoTrump.i());
+		game.getPlayer(Direction.WEST_DEPRECATED).init(new Card[] { Ace.of(Spades.i()), Nine.of(Spades.i()) });
+		game.getPlayer(Direction.NORTH_DEPRECATED).init(new Card[] { Six.of(Spades.i()), Four.of(Hearts.i()) });
+		game.getPlayer(Direction.EAST_DEPRECATED).init(new Card[] { Ten.of(Hearts.i()), Three.of(Hearts.i()) });
+		game.getPlayer(Direction.SOUTH_DEPRECATED).init(new Card[] { Six.of(Hearts.i()), Two.of(Hearts.i()) });
+		game.setNextToPlay(Direction.WEST_DEPRECATED);
+		game.play(Ace.of(Spades.i()));
+		NegamaxSolver s = new NegamaxSolver(game);
+		s.search();
+		assertEquals(1, s.getPositionsExamined());
+		assertEquals(Six.of(Spades.i()), s.getBestMoves().get(0));
+	}
+
+	public void testIfAllMovesTheSameChooseLowestValueCard() {
+		Deal game = new Deal(NoTrump.i());
+		game.getPlayer(Direction.WEST_DEPRECATED).init(new Card[] { Queen.of(Spades.i()), Ace.of(Spades.i()) });
+		game.getPlayer(Direction.NORTH_DEPRECATED).init(new Card[] { Six.of(Spades.i()), Four.of(Spades.i()) });
+		game.getPlayer(Direction.EAST_DEPRECATED).init(new Card[] { Ten.of(Hearts.i()), Three.of(Hearts.i()) });
+		game.getPlayer(Direction.SOUTH_DEPRECATED).init(new Card[] { Six.of(Hearts.i()), Two.of(Hearts.i()) });
+		game.setNextToPlay(Direction.WEST_DEPRECATED);
+		NegamaxSolver s = new NegamaxSolver(game);
+		s.search();
+		assertEquals(Queen.of(Spades.i()), s.getBestMoves().get(0));
+	}
+
+	public void testIfAllMovesLoseSameChooseLowestValueCard() {
+		Deal game = new Deal(NoTrump.i());
+		game.getPlayer(Direction.WEST_DEPRECATED).init(new Card[] { Ace.of(Spades.i()), King.of(Spades.i()) });
+		game.getPlayer(Direction.NORTH_DEPRECATED).init(new Card[] { Six.of(Diamonds.i()), Four.of(Hearts.i()) });
+		game.getPlayer(Direction.EAST_DEPRECATED).init(new Card[] { Ten.of(Hearts.i()), Three.of(Hearts.i()) });
+		game.getPlayer(Direction.SOUTH_DEPRECATED).init(new Card[] { Six.of(Hearts.i()), Two.of(Hearts.i()) });
+		game.setNextToPlay(Direction.WEST_DEPRECATED);
+		game.play(Ace.of(Spades.i()));
+		NegamaxSolver s = new NegamaxSolver(game);
+		s.search();
+		assertEquals(Four.of(Hearts.i()), s.getBestMoves().get(0));
+	}
+
+	public void testPrincipalVariationStartsWithBestMove() {
+		Deal game = new Deal(NoTrump.i());
+		game.getPlayer(Direction.WEST_DEPRECATED).init(new Card[] { Six.of(Spades.i()), Nine.of(Spades.i()) });
+		game.getPlayer(Direction.NORTH_DEPRECATED).init(new Card[] { Ace.of(Spades.i()), Eight.of(Spades.i()) });
+		game.getPlayer(Direction.EAST_DEPRECATED).init(new Card[] { Ten.of(Hearts.i()), Three.of(Hearts.i()) });
+		game.getPlayer(Direction.SOUTH_DEPRECATED).init(new Card[] { Six.of(Hearts.i()), Two.of(Hearts.i()) });
+		game.setNextToPlay(Direction.SOUTH_DEPRECATED);
+		NegamaxSolver s = new NegamaxSolver(game);
+		s.search();
+		assertFalse(s.getPrincipalVariation().isEmpty());
+		assertEquals(s.getBestMoves().get(0), s.getPrincipalVariation().get(0));
+	}
+
+	public void testSameResultsAsDoubleDummySolver() {
+		Trump[] trumps = { NoTrump.i(), Spades.i(), Hearts.i() };
+		for (int i = 0; i < 6; i++) {
+			Deal game = new Deal(trumps[i % trumps.length]);
+			GameUtils.initializeRandom(game, 5);
+			game.playOneTrick();
+			game.doNextCard(0);
+			for (int maxTricks = 1; maxTricks <= 4; maxTricks++) {
+				Solver expected = new DoubleDummySolver(game.duplicate());
+				Solver actual = new NegamaxSolver(game.duplicate());
+				for (Solver solver : new Solver[] { expected, actual }) {
+					solver.setMaxTricks(maxTricks);
+					solver.setTerminateIfRootOnlyHasOneValidMove(false);
+					solver.search();
+				}
+				assertEquals(expected.getTricksTaken(Player.NORTH_SOUTH), actual.getTricksTaken(Player.NORTH_SOUTH));
+				assertEquals(expected.getTricksTaken(Player.WEST_EAST), actual.getTricksTaken(Player.WEST_EAST));
+				assertEquals(expected.getBestMoves(), actual.getBestMoves());
+			}
+		}
+	}
+
+	public void testReportsBestMoveAsItImproves() {
+		Deal game = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(game, 5);
+		game.doNextCard(0);
+		NegamaxSolver s = new NegamaxSolver(game);
+		s.setTerminateIfRootOnlyHasOneValidMove(false);
+		final List<Card> moves = new ArrayList<Card>();
+		final List<Integer> tricks = new ArrayList<Integer>();
+		Card move = s.search(Deadline.NONE, new ProgressListener() {
+			@Override
+			public void bestMoveFound(Card bestMove, int tricksTaken, int positionsExamined) {
+				moves.add(bestMove);
+				tricks.add(tricksTaken);
+			}
+		});
+		assertTrue(s.isCompleted());
+		assertEquals(move, moves.get(moves.size() - 1));
+		assertEquals(s.getTricksTaken(game.getNextToPlay().pair()), tricks.get(tricks.size() - 1).intValue());
+	}
+
+	public void testStopsAtDeadlineWithBestMoveSoFar() {
+		Deal game = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(game, 8);
+		game.doNextCard(0);
+		NegamaxSolver s = new NegamaxSolver(game);
+		s.setTerminateIfRootOnlyHasOneValidMove(false);
+		Card move = s.search(Deadline.in(0), null);
+		assertFalse(s.isCompleted());
+		assertTrue(game.getNextToPlay().getPossibleMoves(game.getCurrentTrick()).contains(move));
+		assertEquals(Node.UNITNITIALIZED, s.getTricksTaken(Player.NORTH_SOUTH));
+	}
+
+	public void testStopsWhenCancelled() {
+		Deal game = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(game, 8);
+		game.doNextCard(0);
+		NegamaxSolver s = new NegamaxSolver(game);
+		s.setTerminateIfRootOnlyHasOneValidMove(false);
+		s.cancel();
+		Card move = s.search(Deadline.NONE, null);
+		assertFalse(s.isCompleted());
+		assertTrue(game.getNextToPlay().getPossibleMoves(game.getCurrentTrick()).contains(move));
+	}
+
+	public void testStatsCountPositionsExaminedByDepth() {
+		Deal game = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(game, 6);
+		NegamaxSolver s = new NegamaxSolver(game);
+		s.search();
+		SearchStats stats = s.getStats();
+		assertEquals(s.getPositionsExamined(), stats.getPositionsExamined());
+		assertEquals(1, stats.getPositionsExamined(0));
+		assertTrue(stats.getAlphaCutoffs() + stats.getBetaCutoffs() > 0);
+		assertTrue(stats.getTableHits() <= stats.getTableProbes());
+	}
+
+}
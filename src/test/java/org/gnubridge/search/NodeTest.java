@@ -80,6 +80,34 @@ public class NodeTest extends TestCase {
 		assertFalse(child.isAlphaPruned());
 	}
 
+	public void testPrunedIfAncestorPrunedAfterNodeWasChecked() {
+		Node root = new Node(null);
+		Node child = new Node(root);
+		Node grandChild = new Node(child);
+		assertFalse(grandChild.isPruned());
+		child.pruneAsBeta();
+		assertTrue(grandChild.isPruned());
+		assertTrue(grandChild.isBetaPruned());
+	}
+
+	public void testAncestorsFollowTurnsSetAfterChildrenWereAdded() {
+		Node root = new Node(null);
+		Node n_1 = new Node(root);
+		Node n_1_1 = new Node(n_1);
+		root.setPlayerTurn(Direction.WEST_DEPRECATED);
+		n_1.setPlayerTurn(Direction.NORTH_DEPRECATED);
+		n_1_1.setPlayerTurn(Direction.EAST_DEPRECATED);
+		assertTrue(n_1_1.hasAlphaAncestor());
+		assertTrue(n_1_1.hasBetaAncestor());
+		assertTrue(n_1.hasAlphaAncestor());
+		assertFalse(n_1.hasBetaAncestor());
+
+		root.setPlayerTurn(Direction.NORTH_DEPRECATED);
+		assertTrue(n_1.hasAlphaAncestor());
+		assertFalse(n_1_1.isAlpha());
+		assertFalse(n_1_1.hasBetaAncestor());
+	}
+
 }
 
 class MockNode extends Node {
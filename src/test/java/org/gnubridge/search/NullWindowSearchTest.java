@@ -0,0 +1,121 @@
+package org.gnubridge.search;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.Direction;
+import org.gnubridge.core.Hand;
+import org.gnubridge.core.Player;
+import org.gnubridge.core.deck.Hearts;
+import org.gnubridge.core.deck.NoTrump;
+import org.gnubridge.core.deck.Spades;
+import org.gnubridge.core.deck.Trump;
+import org.gnubridge.presentation.GameUtils;
+import org.gnubridge.search.ordering.MoveOrdering;
+
+public class NullWindowSearchTest extends TestCase {
+
+	private Deal cashingDeal() {
+		Deal deal = new Deal(NoTrump.i());
+		deal.getWest().init(new Hand("A,K,2", "", "", ""));
+		deal.getNorth().init(new Hand("Q", "A,K", "", ""));
+		deal.getEast().init(new Hand("3,4,5", "", "", ""));
+		deal.getSouth().init(new Hand("6", "Q,J", "", ""));
+		deal.setNextToPlay(Direction.WEST_DEPRECATED);
+		return deal;
+	}
+
+	private NullWindowSearch searchOf(Deal deal, int maxTricks) {
+		return new NullWindowSearch(new Position(deal), maxTricks, new TranspositionTable(1),
+				new ArrayList<MoveOrdering>());
+	}
+
+	public void testCanTakeUpToTheTricksOfThePosition() {
+		NullWindowSearch search = searchOf(cashingDeal(), 13);
+		assertEquals(3, search.getTricksCounted());
+		assertTrue(search.canTake(Player.WEST_EAST, 3));
+		assertFalse(search.canTake(Player.NORTH_SOUTH, 1));
+		assertTrue(search.canTake(Player.NORTH_SOUTH, 0));
+	}
+
+	public void testGetTricksConvergesFromAnyGuess() {
+		for (int guess = 0; guess <= 3; guess++) {
+			NullWindowSearch search = searchOf(cashingDeal(), 13);
+			assertEquals(3, search.getTricks(Player.WEST_EAST, guess));
+			assertEquals(0, search.getTricks(Player.NORTH_SOUTH, guess));
+		}
+	}
+
+	public void testCountsTricksWithinHorizon() {
+		NullWindowSearch search = searchOf(cashingDeal(), 1);
+		assertEquals(1, search.getTricksCounted());
+		assertEquals(1, search.getTricks(Player.WEST_EAST));
+	}
+
+	public void testTestsLeaveWhatTheyFoundInTable() {
+		Deal deal = cashingDeal();
+		TranspositionTable table = new TranspositionTable(1);
+		NullWindowSearch search = new NullWindowSearch(new Position(deal), 13, table,
+				new ArrayList<MoveOrdering>());
+		search.setUseTrickBounds(false);
+		assertFalse(search.canTake(Player.NORTH_SOUTH, 1));
+		long value = table.get(new Position(deal).getKey());
+		assertTrue(TranspositionTable.hasTricks(value));
+		assertEquals(0, TranspositionTable.getNorthSouth(value));
+		assertEquals(3, TranspositionTable.getWestEast(value));
+		assertEquals(3, TranspositionTable.getTricksCounted(value));
+	}
+
+	public void testSameTricksAsFullSearch() {
+		Trump[] trumps = { NoTrump.i(), Spades.i(), Hearts.i() };
+		for (int i = 0; i < 6; i++) {
+			Deal deal = new Deal(trumps[i % trumps.length]);
+			GameUtils.initializeRandom(deal, 5);
+			deal.playOneTrick();
+			for (int maxTricks = 1; maxTricks <= 4; maxTricks++) {
+				DoubleDummySolver full = new DoubleDummySolver(deal.duplicate());
+				full.setMaxTricks(maxTricks);
+				full.setTerminateIfRootOnlyHasOneValidMove(false);
+				full.search();
+				NullWindowSearch search = searchOf(deal, maxTricks);
+				int northSouth = full.getRoot().getTricksTaken(Player.NORTH_SOUTH);
+				assertEquals(northSouth, search.getTricks(Player.NORTH_SOUTH));
+				assertEquals(full.getRoot().getTricksTaken(Player.WEST_EAST), search.getTricks(Player.WEST_EAST));
+				assertTrue(search.canTake(Player.NORTH_SOUTH, northSouth));
+				assertFalse(search.canTake(Player.NORTH_SOUTH, northSouth + 1));
+			}
+		}
+	}
+
+	public void testSolverInNullWindowModeFindsSameTricksAndMove() {
+		SolverConfigurator configurator = new SolverConfigurator();
+		configurator.setUseMoveOrdering(true);
+		configurator.setUseTrickBounds(true);
+		configurator.setUseNullWindowSearch(true);
+		for (int i = 0; i < 6; i++) {
+			Deal deal = new Deal(i % 2 == 0 ? NoTrump.i() : Spades.i());
+			GameUtils.initializeRandom(deal, 5);
+			DoubleDummySolver full = new DoubleDummySolver(deal.duplicate());
+			full.setTerminateIfRootOnlyHasOneValidMove(false);
+			full.search();
+			DoubleDummySolver nullWindow = new DoubleDummySolver(deal.duplicate(), configurator);
+			nullWindow.setTerminateIfRootOnlyHasOneValidMove(false);
+			nullWindow.search();
+			assertEquals(full.getRoot().getTricksTaken(Player.NORTH_SOUTH), nullWindow.getRoot().getTricksTaken(
+					Player.NORTH_SOUTH));
+			assertEquals(full.getRoot().getTricksTaken(Player.WEST_EAST), nullWindow.getRoot().getTricksTaken(
+					Player.WEST_EAST));
+			assertEquals(full.getBestMoves(), nullWindow.getBestMoves());
+		}
+	}
+
+	public void testSolverAnswersWhetherPairCanTakeTricks() {
+		DoubleDummySolver solver = new DoubleDummySolver(cashingDeal());
+		assertTrue(solver.canTake(Player.WEST_EAST, 3));
+		assertFalse(solver.canTake(Player.NORTH_SOUTH, 1));
+		assertTrue(solver.getPositionsExamined() > 0);
+	}
+
+}
@@ -0,0 +1,129 @@
+package org.gnubridge.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.gnubridge.core.Card;
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.Direction;
+import org.gnubridge.core.Hand;
+import org.gnubridge.core.Player;
+import org.gnubridge.core.deck.Clubs;
+import org.gnubridge.core.deck.Hearts;
+import org.gnubridge.core.deck.NoTrump;
+import org.gnubridge.core.deck.Spades;
+import org.gnubridge.core.deck.Three;
+import org.gnubridge.core.deck.Two;
+import org.gnubridge.presentation.GameUtils;
+
+public class PositionTest extends TestCase {
+
+	public void testLegalMovesOrderedLowToHighLikePlayer() {
+		Deal deal = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(deal, 13);
+		Position position = new Position(deal);
+		assertEquals(deal.getPossibleMoves(), toCards(position.getLegalMoves()));
+	}
+
+	public void testMustFollowSuit() {
+		Deal deal = new Deal(NoTrump.i());
+		deal.getWest().init(new Hand("2", "3", "", ""));
+		deal.getNorth().init(new Hand("5", "A", "", ""));
+		deal.setNextToPlay(Direction.WEST_DEPRECATED);
+		deal.play(Two.of(Spades.i()));
+		Position position = new Position(deal);
+		assertEquals(Direction.NORTH_DEPRECATED, position.getNextToPlay());
+		assertEquals(1, Long.bitCount(position.getLegalMoves()));
+		assertEquals(Position.card(Long.numberOfTrailingZeros(position.getLegalMoves())).getDenomination(),
+				Spades.i());
+	}
+
+	public void testTrumpWinsTrick() {
+		Deal deal = new Deal(Clubs.i());
+		deal.getWest().init(new Hand("A", "", "", ""));
+		deal.getNorth().init(new Hand("", "", "", "2"));
+		deal.getEast().init(new Hand("K", "", "", ""));
+		deal.getSouth().init(new Hand("Q", "", "", ""));
+		deal.setNextToPlay(Direction.WEST_DEPRECATED);
+		Position position = new Position(deal);
+		for (int i = 0; i < 4; i++) {
+			position.play(Long.numberOfTrailingZeros(position.getLegalMoves()));
+		}
+		assertEquals(1, position.getTricksTaken(Player.NORTH_SOUTH));
+		assertEquals(0, position.getTricksTaken(Player.WEST_EAST));
+		assertEquals(Direction.NORTH_DEPRECATED, position.getNextToPlay());
+		assertTrue(position.isDone());
+	}
+
+	public void testStartFromTrickInProgress() {
+		Deal deal = new Deal(NoTrump.i());
+		deal.getWest().init(new Hand("2", "", "", ""));
+		deal.getNorth().init(new Hand("", "3", "", ""));
+		deal.getEast().init(new Hand("3", "", "", ""));
+		deal.getSouth().init(new Hand("4", "", "", ""));
+		deal.setNextToPlay(Direction.WEST_DEPRECATED);
+		deal.play(Two.of(Spades.i()));
+		deal.play(Three.of(Hearts.i()));
+		Position position = new Position(deal);
+		assertEquals(2, position.getTrickSize());
+		assertEquals(Direction.WEST_DEPRECATED, position.getTrickLeader());
+		assertEquals(Direction.EAST_DEPRECATED, position.getNextToPlay());
+		assertEquals(Two.of(Spades.i()), Position.card(position.getTrickCard(0)));
+	}
+
+	public void testPlaysSameGameAsDeal() {
+		for (int i = 0; i < 20; i++) {
+			Deal deal = new Deal(i % 2 == 0 ? NoTrump.i() : Hearts.i());
+			GameUtils.initializeRandom(deal, 13);
+			Position position = new Position(deal);
+			while (!deal.isDone()) {
+				int move = (int) Math.floor(Math.random() * deal.getPossibleMoves().size());
+				Card card = deal.getPossibleMoves().get(move);
+				deal.play(card);
+				position.play(card.getIndex());
+				assertEquals(deal.getNextToPlay().getDirection(), position.getNextToPlay());
+				assertEquals(deal.getTricksTaken(Player.NORTH_SOUTH), position.getTricksTaken(Player.NORTH_SOUTH));
+				assertEquals(deal.getTricksTaken(Player.WEST_EAST), position.getTricksTaken(Player.WEST_EAST));
+				assertEquals(deal.getKeyForWeakHashMap(), position.getKeyForWeakHashMap());
+				if (!deal.isDone()) {
+					assertEquals(deal.getPossibleMoves(), toCards(position.getLegalMoves()));
+				}
+			}
+			assertTrue(position.isDone());
+		}
+	}
+
+	public void testUnplayRestoresEveryPositionOnTheWayBack() {
+		for (int i = 0; i < 20; i++) {
+			Deal deal = new Deal(i % 2 == 0 ? NoTrump.i() : Spades.i());
+			GameUtils.initializeRandom(deal, 13);
+			Position position = new Position(deal);
+			List<String> visited = new ArrayList<String>();
+			while (!position.isDone()) {
+				visited.add(position.toString() + position.getLegalMoves());
+				long moves = position.getLegalMoves();
+				int move = (int) Math.floor(Math.random() * Long.bitCount(moves));
+				for (int j = 0; j < move; j++) {
+					moves &= moves - 1;
+				}
+				position.play(Long.numberOfTrailingZeros(moves));
+			}
+			for (int j = visited.size() - 1; j >= 0; j--) {
+				position.unplay();
+				assertEquals(visited.get(j), position.toString() + position.getLegalMoves());
+			}
+			assertEquals(0, position.getTricksPlayed());
+			assertEquals(0, position.getPlayed());
+		}
+	}
+
+	private List<Card> toCards(long mask) {
+		List<Card> result = new ArrayList<Card>();
+		for (; mask != 0; mask &= mask - 1) {
+			result.add(Position.card(Long.numberOfTrailingZeros(mask)));
+		}
+		return result;
+	}
+}
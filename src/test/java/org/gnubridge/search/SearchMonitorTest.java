@@ -0,0 +1,67 @@
+package org.gnubridge.search;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.deck.NoTrump;
+import org.gnubridge.presentation.GameUtils;
+
+public class SearchMonitorTest extends TestCase {
+
+	public void testAddsUpSearchesReported() {
+		SearchMonitor monitor = new SearchMonitor();
+		SearchStats first = new SearchStats();
+		first.positionExamined(0);
+		first.setRunningTime(2);
+		SearchStats second = new SearchStats();
+		second.positionExamined(0);
+		second.positionExamined(1);
+		second.setRunningTime(3);
+		monitor.searchFinished(first);
+		monitor.searchFinished(second);
+		assertEquals(2, monitor.getSearches());
+		assertEquals(3, monitor.getPositionsExamined());
+		assertEquals(5, monitor.getRunningTime());
+		assertEquals(2, monitor.getLastSearchPositionsExamined());
+		assertEquals(3, monitor.getLastSearchRunningTime());
+		monitor.reset();
+		assertEquals(0, monitor.getSearches());
+		assertEquals(0, monitor.getPositionsExamined());
+	}
+
+	public void testSolversReportToConfiguredMonitor() {
+		Deal game = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(game, 4);
+		SolverConfigurator configurator = new SolverConfigurator();
+		configurator.setUseAlphaBetaPruning(true);
+		SearchMonitor monitor = new SearchMonitor();
+		configurator.setSearchMonitor(monitor);
+		DoubleDummySolver nodeSolver = new DoubleDummySolver(game, configurator);
+		nodeSolver.search();
+		NegamaxSolver negamaxSolver = new NegamaxSolver(game, configurator);
+		negamaxSolver.search();
+		assertEquals(2, monitor.getSearches());
+		assertEquals(nodeSolver.getStats().getPositionsExamined() + negamaxSolver.getStats().getPositionsExamined(),
+				monitor.getPositionsExamined());
+	}
+
+	public void testRegisteredOverJmx() throws Exception {
+		SearchMonitor monitor = new SearchMonitor();
+		monitor.register();
+		SearchStats stats = new SearchStats();
+		stats.positionExamined(0);
+		monitor.searchFinished(stats);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(SearchMonitor.OBJECT_NAME);
+		assertEquals(Long.valueOf(1), server.getAttribute(name, "PositionsExamined"));
+		server.invoke(name, "reset", null, null);
+		assertEquals(0, monitor.getSearches());
+		server.unregisterMBean(name);
+	}
+
+}
@@ -0,0 +1,60 @@
+package org.gnubridge.search;
+
+import junit.framework.TestCase;
+
+public class SearchStatsTest extends TestCase {
+
+	public void testAddSumsCountsAndKeepsLargerPeak() {
+		SearchStats stats = new SearchStats();
+		stats.positionExamined(0);
+		stats.positionExamined(1);
+		stats.alphaCutoff();
+		stats.tableProbe();
+		stats.setPeakRetainedNodes(10);
+		stats.setRunningTime(5);
+		SearchStats other = new SearchStats();
+		other.positionExamined(1);
+		other.positionExamined(3);
+		other.betaCutoff();
+		other.sequenceCutoffs(2);
+		other.tableProbe();
+		other.tableHit();
+		other.tableStore();
+		other.setPeakRetainedNodes(7);
+		other.setRunningTime(3);
+
+		stats.add(other);
+
+		assertEquals(4, stats.getPositionsExamined());
+		assertEquals(2, stats.getPositionsExamined(1));
+		assertEquals(3, stats.getMaxDepth());
+		assertEquals(1, stats.getAlphaCutoffs());
+		assertEquals(1, stats.getBetaCutoffs());
+		assertEquals(2, stats.getSequenceCutoffs());
+		assertEquals(2, stats.getTableProbes());
+		assertEquals(1, stats.getTableHits());
+		assertEquals(1, stats.getTableStores());
+		assertEquals(10, stats.getPeakRetainedNodes());
+		assertEquals(8, stats.getRunningTime());
+		assertEquals(500, stats.getPositionsPerSecond());
+	}
+
+	public void testAllocationStaysUnknownOnceNotCounted() {
+		SearchStats stats = new SearchStats();
+		stats.allocated(100, 150);
+		assertEquals(50, stats.getAllocatedBytes());
+		SearchStats other = new SearchStats();
+		other.allocated(SearchStats.UNKNOWN, 200);
+		stats.add(other);
+		assertEquals(SearchStats.UNKNOWN, stats.getAllocatedBytes());
+		stats.allocated(0, 10);
+		assertEquals(SearchStats.UNKNOWN, stats.getAllocatedBytes());
+	}
+
+	public void testNoPositionsExamined() {
+		SearchStats stats = new SearchStats();
+		assertEquals(-1, stats.getMaxDepth());
+		assertEquals(0, stats.getPositionsPerSecond());
+	}
+
+}
@@ -0,0 +1,64 @@
+package org.gnubridge.search;
+
+import junit.framework.TestCase;
+
+import org.gnubridge.core.Card;
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.Player;
+import org.gnubridge.core.deck.NoTrump;
+import org.gnubridge.core.deck.Spades;
+import org.gnubridge.presentation.GameUtils;
+
+public class SolverSessionTest extends TestCase {
+
+	public void testSolversShareTheSessionTable() {
+		Deal game = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(game, 3);
+		SolverSession session = new SolverSession();
+		assertSame(session.getPositionLookup(), session.newSolver(game).getPositionLookup());
+		assertSame(session.getPositionLookup(), session.newSolver(game).getPositionLookup());
+	}
+
+	public void testSearchingSamePositionAgainReusesPositions() {
+		Deal game = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(game, 5);
+		SolverSession session = new SolverSession();
+		DoubleDummySolver first = session.newSolver(game);
+		first.search();
+		DoubleDummySolver second = session.newSolver(game);
+		second.search();
+		assertTrue(second.getPositionsExamined() < first.getPositionsExamined());
+		assertSameResult(first, second);
+	}
+
+	public void testSameResultsAsFreshSolversThroughoutDeal() {
+		for (int deal = 0; deal < 3; deal++) {
+			Deal game = new Deal(deal % 2 == 0 ? NoTrump.i() : Spades.i());
+			GameUtils.initializeRandom(game, 4);
+			SolverSession session = new SolverSession();
+			while (!game.isDone()) {
+				Card bestMove = null;
+				for (int depth = 1; depth <= 4; depth++) {
+					DoubleDummySolver fresh = new DoubleDummySolver(game.duplicate());
+					fresh.setMaxTricks(depth);
+					fresh.setTerminateIfRootOnlyHasOneValidMove(false);
+					fresh.search();
+					DoubleDummySolver seeded = session.newSolver(game);
+					seeded.setMaxTricks(depth);
+					seeded.setTerminateIfRootOnlyHasOneValidMove(false);
+					seeded.search();
+					assertSameResult(fresh, seeded);
+					bestMove = seeded.getBestMoves().get(0);
+				}
+				game.play(bestMove);
+			}
+		}
+	}
+
+	private void assertSameResult(DoubleDummySolver expected, DoubleDummySolver actual) {
+		assertEquals(expected.getRoot().getTricksTaken(Player.WEST_EAST), actual.getRoot().getTricksTaken(
+				Player.WEST_EAST));
+		assertEquals(expected.getRoot().getTricksTaken(Player.NORTH_SOUTH), actual.getRoot().getTricksTaken(
+				Player.NORTH_SOUTH));
+	}
+}
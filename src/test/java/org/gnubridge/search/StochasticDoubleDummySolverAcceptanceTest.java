@@ -2,6 +2,7 @@ package org.gnubridge.search;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import junit.framework.TestCase;
 
@@ -23,6 +24,7 @@ public class StochasticDoubleDummySolverAcceptanceTest extends TestCase {
 	static final int SEARCH_DEPTH_CUTOFF = 13;
 	static final int CARDS_TO_DEAL = 4;
 	private static final int DEALS_TO_TRY = 25;
+	private static final ForkJoinPool pool = new ForkJoinPool(4);
 	private Deal g;
 	List<SearchMonkey> monkeys;
 
@@ -152,7 +154,10 @@ public class StochasticDoubleDummySolverAcceptanceTest extends TestCase {
 //		NoSequencePruning, 
 //		NoPlayedSequencePruning, 
 //		NoDeepAlphaBeta, 
-		AllPruning;
+		AllPruning,
+		Parallel,
+		LazySmp,
+		NullWindow;
 	}
 
 	class SearchMonkey {
@@ -194,6 +199,25 @@ public class StochasticDoubleDummySolverAcceptanceTest extends TestCase {
 				assertTrue(search.getConfigurator().isUseAlphaBetaPruning());
 				search.setShouldPruneCardsInSequence(true);
 			}
+			if (config == SearchConfiguration.Parallel) {
+				SolverConfigurator configurator = new SolverConfigurator();
+				configurator.setUseAlphaBetaPruning(true);
+				configurator.setForkJoinPool(pool);
+				search = new DoubleDummySolver(g, configurator);
+			}
+			if (config == SearchConfiguration.LazySmp) {
+				SolverConfigurator configurator = new SolverConfigurator();
+				configurator.setUseAlphaBetaPruning(true);
+				configurator.setHelperThreads(3);
+				search = new DoubleDummySolver(g, configurator);
+			}
+			if (config == SearchConfiguration.NullWindow) {
+				SolverConfigurator configurator = new SolverConfigurator();
+				configurator.setUseMoveOrdering(true);
+				configurator.setUseTrickBounds(true);
+				configurator.setUseNullWindowSearch(true);
+				search = new DoubleDummySolver(g, configurator);
+			}
 			search.setMaxTricks(SEARCH_DEPTH_CUTOFF);
 			search.setTerminateIfRootOnlyHasOneValidMove(false);
 			search.search();
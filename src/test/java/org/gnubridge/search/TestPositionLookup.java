@@ -6,6 +6,7 @@ import org.gnubridge.core.East;
 import org.gnubridge.core.Deal;
 import org.gnubridge.core.Hand;
 import org.gnubridge.core.North;
+import org.gnubridge.core.Player;
 import org.gnubridge.core.South;
 import org.gnubridge.core.West;
 import org.gnubridge.core.deck.Ace;
@@ -34,7 +35,7 @@ public class TestPositionLookup extends TestCase {
 		Node node = new Node(null);
 		assertFalse(pl.positionEncountered(g, node.getTricksTaken()));
 		assertTrue(pl.positionEncountered(g, node.getTricksTaken()));
-		assertEquals(node.getTricksTaken(), pl.getNode(g));
+		assertSameTricks(node.getTricksTaken(), pl.getNode(g));
 	}
 
 	@SuppressWarnings("unused")
@@ -53,26 +54,90 @@ public class TestPositionLookup extends TestCase {
 
 		Node identicalTwinNode = new Node(null);
 		assertTrue(pl.positionEncountered(identicalTwin, identicalTwinNode.getTricksTaken()));
-		assertEquals(node.getTricksTaken(), pl.getNode(identicalTwin));
+		assertSameTricks(node.getTricksTaken(), pl.getNode(identicalTwin));
 
 	}
 
 	@SuppressWarnings("unused")
 	public void testDistinguishDifferentPlays() {
 		Deal g = new Deal(NoTrump.i());
-		GameUtils.initializeSingleColorSuits(g);
+		initializeInterleavedSpades(g);
 		g.playOneTrick();
 
 		PositionLookup pl = new PositionLookup();
 		boolean justPresentThePosition = pl.positionEncountered(g, null);
 
 		Deal g2 = new Deal(NoTrump.i());
-		GameUtils.initializeSingleColorSuits(g2);
+		initializeInterleavedSpades(g2);
 		playOneTrickWithSlightTwist(g2);
 
 		assertFalse(pl.positionEncountered(g2, null));
 	}
 
+	public void testSameRelativeRanksShareKey() {
+		Deal g = new Deal(NoTrump.i());
+		GameUtils.initializeSingleColorSuits(g);
+		g.playOneTrick();
+
+		PositionLookup pl = new PositionLookup();
+		Node node = new Node(null);
+		@SuppressWarnings("unused")
+		boolean justPresentThePosition = pl.positionEncountered(g, node.getTricksTaken());
+
+		Deal kingInsteadOfAce = new Deal(NoTrump.i());
+		GameUtils.initializeSingleColorSuits(kingInsteadOfAce);
+		playOneTrickWithSlightTwist(kingInsteadOfAce);
+
+		assertTrue(pl.positionEncountered(kingInsteadOfAce, null));
+		assertSameTricks(node.getTricksTaken(), pl.getNode(kingInsteadOfAce));
+	}
+
+	private void initializeInterleavedSpades(Deal g) {
+		g.getPlayer(West.i()).init(new Hand("A,J,9,7", "", "", "").getCardsHighToLow());
+		g.getPlayer(North.i()).init(new Hand("K,Q,10,8", "", "", "").getCardsHighToLow());
+		g.getPlayer(East.i()).init(new Hand("", "A,K,Q,J", "", "").getCardsHighToLow());
+		g.getPlayer(South.i()).init(new Hand("", "", "A,K,Q,J", "").getCardsHighToLow());
+	}
+
+	private void assertSameTricks(byte[] expected, byte[] actual) {
+		assertNotNull(actual);
+		assertEquals(expected[Player.WEST_EAST], actual[Player.WEST_EAST]);
+		assertEquals(expected[Player.NORTH_SOUTH], actual[Player.NORTH_SOUTH]);
+	}
+
+	public void testBestCardNamesSameCardWhereRanksShifted() {
+		Deal g = new Deal(NoTrump.i());
+		GameUtils.initializeSingleColorSuits(g);
+		g.playOneTrick();
+		Deal threeInsteadOfTwo = new Deal(NoTrump.i());
+		GameUtils.initializeSingleColorSuits(threeInsteadOfTwo);
+		playOneTrickWithSlightTwist(threeInsteadOfTwo);
+		Position position = new Position(g);
+		Position equivalent = new Position(threeInsteadOfTwo);
+		int lowest = Long.numberOfTrailingZeros(position.getHand(position.getNextToPlay()));
+		int equivalentLowest = Long.numberOfTrailingZeros(equivalent.getHand(equivalent.getNextToPlay()));
+		assertFalse(lowest == equivalentLowest);
+
+		PositionLookup pl = new PositionLookup();
+		pl.putBestCard(position.getKey(), position.relativeCard(lowest));
+		assertEquals(lowest, pl.getBestCard(position));
+		assertEquals(equivalentLowest, pl.getBestCard(equivalent));
+	}
+
+	public void testDistinguishTrump() {
+		Deal g = new Deal(NoTrump.i());
+		GameUtils.initializeSingleColorSuits(g);
+		g.playOneTrick();
+		Deal spades = new Deal(Spades.i());
+		GameUtils.initializeSingleColorSuits(spades);
+		spades.playOneTrick();
+
+		PositionLookup pl = new PositionLookup();
+		@SuppressWarnings("unused")
+		boolean justPresentThePosition = pl.positionEncountered(g, new Node(null).getTricksTaken());
+		assertFalse(pl.positionEncountered(spades, null));
+	}
+
 	private void playOneTrickWithSlightTwist(Deal g2) {
 		g2.play(g2.getNextToPlay().getHand().get(1));
 		for (int i = 0; i < 3; i++) {
@@ -95,7 +160,7 @@ public class TestPositionLookup extends TestCase {
 		GameUtils.initializeSingleColorSuits(g2);
 		g2.playOneTrick();
 		assertTrue(pl.positionEncountered(g2, null));
-		assertEquals(node.getTricksTaken(), pl.getNode(g2));
+		assertSameTricks(node.getTricksTaken(), pl.getNode(g2));
 	}
 
 	public void testOneCardPlayedDifferentCards() {
@@ -116,36 +181,38 @@ public class TestPositionLookup extends TestCase {
 	@SuppressWarnings("unused")
 	public void testCanRememberMoreThanOnePosition() {
 		Deal g = new Deal(NoTrump.i());
-		GameUtils.initializeSingleColorSuits(g);
+		initializeInterleavedSpades(g);
 		g.playOneTrick();
 
 		PositionLookup pl = new PositionLookup();
 
 		Deal gameWithDifferentCardPlayed = new Deal(NoTrump.i());
-		GameUtils.initializeSingleColorSuits(gameWithDifferentCardPlayed);
+		initializeInterleavedSpades(gameWithDifferentCardPlayed);
 		playOneTrickWithSlightTwist(gameWithDifferentCardPlayed);
 
 		Node node = new Node(null);
+		node.setTricksTaken(Player.NORTH_SOUTH, 1);
 		Node nodeWithDifferentCardPlayed = new Node(null);
+		nodeWithDifferentCardPlayed.setTricksTaken(Player.NORTH_SOUTH, 0);
 		boolean justPresentThePosition = pl.positionEncountered(gameWithDifferentCardPlayed,
 				nodeWithDifferentCardPlayed.getTricksTaken());
 		justPresentThePosition = pl.positionEncountered(g, node.getTricksTaken());
 
 		assertTrue(pl.positionEncountered(g, null));
-		assertEquals(node.getTricksTaken(), pl.getNode(g));
+		assertSameTricks(node.getTricksTaken(), pl.getNode(g));
 		assertTrue(pl.positionEncountered(gameWithDifferentCardPlayed, null));
-		assertEquals(nodeWithDifferentCardPlayed.getTricksTaken(), pl.getNode(gameWithDifferentCardPlayed));
+		assertSameTricks(nodeWithDifferentCardPlayed.getTricksTaken(), pl.getNode(gameWithDifferentCardPlayed));
 	}
 
 	@SuppressWarnings("unused")
 	public void testTwoTricksPlayedSameFirstTrick() {
 		Deal g = new Deal(NoTrump.i());
-		GameUtils.initializeSingleColorSuits(g);
+		initializeInterleavedSpades(g);
 		g.playOneTrick();
 		g.playOneTrick();
 
 		Deal sameFirstTrick = new Deal(NoTrump.i());
-		GameUtils.initializeSingleColorSuits(sameFirstTrick);
+		initializeInterleavedSpades(sameFirstTrick);
 		sameFirstTrick.playOneTrick();
 		playOneTrickWithSlightTwist(sameFirstTrick);
 
@@ -156,7 +223,7 @@ public class TestPositionLookup extends TestCase {
 
 	}
 
-	public void testDistinguishNumberOfTricks() {
+	public void testSameCardsLeftAfterDifferentTricksShareTricksToCome() {
 		Deal g = new Deal(Spades.i());
 		g.getPlayer(West.i()).init(new Hand("", "3,2", "", "").getCardsHighToLow());
 		g.getPlayer(North.i()).init(new Hand("7", "", "8", "").getCardsHighToLow());
@@ -177,10 +244,12 @@ public class TestPositionLookup extends TestCase {
 
 		PositionLookup pl = new PositionLookup();
 		Node node = new Node(null);
+		node.setTricksTaken(Player.WEST_EAST, 1);
+		node.setTricksTaken(Player.NORTH_SOUTH, 1);
 		@SuppressWarnings("unused")
 		boolean justPresentThePosition = pl.positionEncountered(g, node.getTricksTaken());
 		assertTrue(pl.positionEncountered(g, null));
-		assertEquals(node.getTricksTaken(), pl.getNode(g));
+		assertSameTricks(node.getTricksTaken(), pl.getNode(g));
 
 		differentOrder.play(Three.of(Hearts.i()));
 		differentOrder.play(Seven.of(Spades.i()));
@@ -192,8 +261,26 @@ public class TestPositionLookup extends TestCase {
 		differentOrder.play(Nine.of(Clubs.i()));
 		differentOrder.play(Two.of(Hearts.i()));
 		Node differentOrderNode = new Node(null);
-		assertFalse(pl.positionEncountered(differentOrder, differentOrderNode.getTricksTaken()));
-		assertEquals(differentOrderNode.getTricksTaken(), pl.getNode(differentOrder));
+		differentOrderNode.setTricksTaken(Player.WEST_EAST, 0);
+		differentOrderNode.setTricksTaken(Player.NORTH_SOUTH, 2);
+		assertTrue(pl.positionEncountered(differentOrder, null));
+		assertSameTricks(differentOrderNode.getTricksTaken(), pl.getNode(differentOrder));
+	}
+
+	public void testValueCountedOverFewerTricksIsNotReturned() {
+		Deal g = new Deal(NoTrump.i());
+		GameUtils.initializeSingleColorSuits(g);
+		g.playOneTrick();
+		Position position = new Position(g);
+		position.resetTricks();
+
+		PositionLookup pl = new PositionLookup();
+		pl.putNode(position.getKey(), new byte[] { 2, 0 }, PositionLookup.tricksCounted(position, 2), position
+				.relativeCard(51));
+		assertNull(pl.getNode(position, 3));
+		assertNull(pl.getNode(position));
+		assertSameTricks(new byte[] { 2, 0 }, pl.getNode(position, 2));
+		assertEquals(51, pl.getBestCard(position));
 	}
 
 	public void testDistinguishPlayerTurn() {
@@ -0,0 +1,119 @@
+package org.gnubridge.search;
+
+import junit.framework.TestCase;
+
+public class TranspositionTableTest extends TestCase {
+
+	public void testEmptyTableHasNoValue() {
+		TranspositionTable table = new TranspositionTable(1);
+		assertEquals(0, table.get(0));
+		assertEquals(0, table.get(12345));
+	}
+
+	public void testStoresAndUnpacksValue() {
+		TranspositionTable table = new TranspositionTable(1);
+		table.put(0, 3, 10, 20);
+		long value = table.get(0);
+		assertEquals(3, TranspositionTable.getWestEast(value));
+		assertEquals(10, TranspositionTable.getNorthSouth(value));
+		assertEquals(20, TranspositionTable.getDepth(value));
+	}
+
+	public void testUninitializedTricksSurvivePacking() {
+		TranspositionTable table = new TranspositionTable(1);
+		table.put(7, Node.UNITNITIALIZED, Node.UNITNITIALIZED, 0);
+		long value = table.get(7);
+		assertEquals(Node.UNITNITIALIZED, TranspositionTable.getWestEast(value));
+		assertEquals(Node.UNITNITIALIZED, TranspositionTable.getNorthSouth(value));
+	}
+
+	public void testSameKeyIsOverwritten() {
+		TranspositionTable table = new TranspositionTable(1);
+		table.put(5, 1, 2, 8);
+		table.put(5, 2, 1, 4);
+		assertEquals(2, TranspositionTable.getWestEast(table.get(5)));
+	}
+
+	public void testSizeIsBounded() {
+		TranspositionTable table = new TranspositionTable(1);
+		for (long key = 0; key < 10 * table.capacity(); key++) {
+			table.put(key, 0, 0, 0);
+		}
+		assertTrue(table.capacity() * 16 <= 1024 * 1024);
+	}
+
+	public void testDeepestEntryInBucketSurvives() {
+		TranspositionTable table = new TranspositionTable(1);
+		long deep = 1;
+		table.put(deep, 1, 1, 40);
+		for (long key = 2; key < 10 * table.capacity(); key++) {
+			table.put(key, 0, 0, 4);
+		}
+		assertEquals(40, TranspositionTable.getDepth(table.get(deep)));
+	}
+
+	public void testStoresBestCard() {
+		TranspositionTable table = new TranspositionTable(1);
+		table.put(5, 1, 2, 8, 51);
+		assertEquals(51, TranspositionTable.getBestCard(table.get(5)));
+		table.put(6, 1, 2, 8);
+		assertEquals(TranspositionTable.NO_CARD, TranspositionTable.getBestCard(table.get(6)));
+	}
+
+	public void testBestCardWithoutTricks() {
+		TranspositionTable table = new TranspositionTable(1);
+		table.putBestCard(5, 8, 0);
+		assertFalse(TranspositionTable.hasTricks(table.get(5)));
+		assertEquals(0, TranspositionTable.getBestCard(table.get(5)));
+		table.put(5, 1, 2, 8);
+		assertTrue(TranspositionTable.hasTricks(table.get(5)));
+	}
+
+	public void testStoresTricksCounted() {
+		TranspositionTable table = new TranspositionTable(1);
+		table.put(5, 1, 2, 3, 8, 51);
+		assertEquals(3, TranspositionTable.getTricksCounted(table.get(5)));
+		assertEquals(51, TranspositionTable.getBestCard(table.get(5)));
+		assertEquals(2, TranspositionTable.getNorthSouth(table.get(5)));
+	}
+
+	public void testBestCardKeepsTricks() {
+		TranspositionTable table = new TranspositionTable(1);
+		table.put(5, 1, 2, 3, 8, 51);
+		table.putBestCard(5, 8, 0);
+		long value = table.get(5);
+		assertTrue(TranspositionTable.hasTricks(value));
+		assertEquals(1, TranspositionTable.getWestEast(value));
+		assertEquals(3, TranspositionTable.getTricksCounted(value));
+		assertEquals(0, TranspositionTable.getBestCard(value));
+	}
+
+	public void testStoresBounds() {
+		TranspositionTable table = new TranspositionTable(1);
+		table.putBounds(5, 1, 3, 4, 8, 51);
+		long value = table.get(5);
+		assertFalse(TranspositionTable.hasTricks(value));
+		assertTrue(TranspositionTable.hasBounds(value));
+		assertEquals(1, TranspositionTable.getLowerBound(value));
+		assertEquals(3, TranspositionTable.getUpperBound(value));
+		assertEquals(4, TranspositionTable.getTricksCounted(value));
+		table.putBestCard(5, 8, 0);
+		assertTrue(TranspositionTable.hasBounds(table.get(5)));
+	}
+
+	public void testBoundsThatMeetAreStoredAsTricks() {
+		TranspositionTable table = new TranspositionTable(1);
+		table.putBounds(5, 3, 3, 4, 8, 51);
+		long value = table.get(5);
+		assertTrue(TranspositionTable.hasTricks(value));
+		assertEquals(3, TranspositionTable.getNorthSouth(value));
+		assertEquals(1, TranspositionTable.getWestEast(value));
+	}
+
+	public void testClear() {
+		TranspositionTable table = new TranspositionTable(1);
+		table.put(5, 1, 2, 8);
+		table.clear();
+		assertEquals(0, table.get(5));
+	}
+}
@@ -0,0 +1,82 @@
+package org.gnubridge.search;
+
+import junit.framework.TestCase;
+
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.Direction;
+import org.gnubridge.core.Hand;
+import org.gnubridge.core.Player;
+import org.gnubridge.core.deck.Hearts;
+import org.gnubridge.core.deck.NoTrump;
+import org.gnubridge.core.deck.Spades;
+
+public class TrickBoundsTest extends TestCase {
+
+	public void testCashTopSequencesInNoTrump() {
+		Deal deal = new Deal(NoTrump.i());
+		deal.getWest().init(new Hand("A,K,2", "A", "", ""));
+		deal.getNorth().init(new Hand("Q,3", "K,2", "", ""));
+		deal.getEast().init(new Hand("J,4,5", "3", "", ""));
+		deal.getSouth().init(new Hand("10,6", "4,5", "", ""));
+		deal.setNextToPlay(Direction.WEST_DEPRECATED);
+		assertEquals(3, TrickBounds.quickTricks(new Position(deal)));
+	}
+
+	public void testSideSuitWinnersStopWhenOpponentCanRuff() {
+		Deal deal = new Deal(Hearts.i());
+		deal.getWest().init(new Hand("A,K,Q", "", "", ""));
+		deal.getNorth().init(new Hand("2", "2,3", "", ""));
+		deal.getEast().init(new Hand("3,4,5", "", "", ""));
+		deal.getSouth().init(new Hand("6", "4,5", "", ""));
+		deal.setNextToPlay(Direction.WEST_DEPRECATED);
+		assertEquals(1, TrickBounds.quickTricks(new Position(deal)));
+	}
+
+	public void testOpponentWithoutTrumpsCannotRuff() {
+		Deal deal = new Deal(Hearts.i());
+		deal.getWest().init(new Hand("A,K,Q", "", "", ""));
+		deal.getNorth().init(new Hand("2", "", "2,3", ""));
+		deal.getEast().init(new Hand("3,4,5", "", "", ""));
+		deal.getSouth().init(new Hand("6", "", "4,5", ""));
+		deal.setNextToPlay(Direction.WEST_DEPRECATED);
+		assertEquals(3, TrickBounds.quickTricks(new Position(deal)));
+	}
+
+	public void testTopTrumpsInOneHandAlwaysWin() {
+		Deal deal = new Deal(Spades.i());
+		deal.getWest().init(new Hand("2", "A,K", "", ""));
+		deal.getNorth().init(new Hand("A,K", "2", "", ""));
+		deal.getEast().init(new Hand("3", "Q,J", "", ""));
+		deal.getSouth().init(new Hand("4,5", "3", "", ""));
+		deal.setNextToPlay(Direction.WEST_DEPRECATED);
+		Position position = new Position(deal);
+		assertEquals(2, TrickBounds.sureTrumpWinners(position, Player.NORTH_SOUTH));
+		assertEquals(0, TrickBounds.sureTrumpWinners(position, Player.WEST_EAST));
+		TrickBounds bounds = new TrickBounds(position, 3);
+		assertEquals(1, bounds.getUpperBound());
+	}
+
+	public void testSureTrumpWinnersIgnoredWithinShorterHorizon() {
+		Deal deal = new Deal(Spades.i());
+		deal.getWest().init(new Hand("2", "A,K", "", ""));
+		deal.getNorth().init(new Hand("A,K", "2", "", ""));
+		deal.getEast().init(new Hand("3", "Q,J", "", ""));
+		deal.getSouth().init(new Hand("4,5", "3", "", ""));
+		deal.setNextToPlay(Direction.WEST_DEPRECATED);
+		TrickBounds bounds = new TrickBounds(new Position(deal), 1);
+		assertEquals(1, bounds.getLowerBound());
+		assertEquals(1, bounds.getUpperBound());
+	}
+
+	public void testAllWinnersIsExact() {
+		Deal deal = new Deal(NoTrump.i());
+		deal.getWest().init(new Hand("A,K", "", "", ""));
+		deal.getNorth().init(new Hand("2,3", "", "", ""));
+		deal.getEast().init(new Hand("4,5", "", "", ""));
+		deal.getSouth().init(new Hand("6,7", "", "", ""));
+		deal.setNextToPlay(Direction.WEST_DEPRECATED);
+		TrickBounds bounds = new TrickBounds(new Position(deal), 2);
+		assertTrue(bounds.isExact());
+		assertEquals(2, bounds.getLowerBound());
+	}
+}
@@ -0,0 +1,70 @@
+package org.gnubridge.search;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.Direction;
+import org.gnubridge.core.Hand;
+import org.gnubridge.core.Player;
+import org.gnubridge.core.deck.Clubs;
+import org.gnubridge.core.deck.Hearts;
+import org.gnubridge.core.deck.NoTrump;
+import org.gnubridge.core.deck.Spades;
+import org.gnubridge.core.deck.Trump;
+import org.gnubridge.presentation.GameUtils;
+
+public class TwoTrickEndingTest extends TestCase {
+
+	private Deal ruffingEnding(Trump trump) {
+		Deal deal = new Deal(trump);
+		deal.getWest().init(new Hand("", "A,K", "", ""));
+		deal.getNorth().init(new Hand("2", "3", "", ""));
+		deal.getEast().init(new Hand("", "", "", "3,2"));
+		deal.getSouth().init(new Hand("", "", "3,2", ""));
+		deal.setNextToPlay(Direction.WEST_DEPRECATED);
+		return deal;
+	}
+
+	public void testTopCardsTakeBothTricksInNoTrump() {
+		assertEquals(2, TwoTrickEnding.leaderTricks(new Position(ruffingEnding(NoTrump.i()))));
+	}
+
+	public void testSecondTopCardIsRuffed() {
+		assertEquals(1, TwoTrickEnding.leaderTricks(new Position(ruffingEnding(Spades.i()))));
+	}
+
+	public void testOnlyStartOfSecondToLastTrickIsTwoTrickEnding() {
+		Deal deal = ruffingEnding(NoTrump.i());
+		assertTrue(TwoTrickEnding.isTwoTrickEnding(new Position(deal)));
+		deal.play("AH");
+		assertFalse(TwoTrickEnding.isTwoTrickEnding(new Position(deal)));
+		Deal longer = new Deal(NoTrump.i());
+		GameUtils.initializeRandom(longer, 3);
+		assertFalse(TwoTrickEnding.isTwoTrickEnding(new Position(longer)));
+	}
+
+	public void testSameTricksAsSearchAndPositionLeftAsItWas() {
+		Trump[] trumps = { NoTrump.i(), Clubs.i(), Hearts.i(), Spades.i() };
+		Random random = new Random(9);
+		for (int i = 0; i < 100; i++) {
+			Deal deal = new Deal(trumps[i % trumps.length]);
+			GameUtils.initializeRandom(deal, 2, random);
+			deal.setNextToPlay(random.nextInt(4));
+			DoubleDummySolver solver = new DoubleDummySolver(deal.duplicate());
+			solver.setTerminateIfRootOnlyHasOneValidMove(false);
+			solver.search();
+			Position position = new Position(deal);
+			int leader = position.getNextToPlay();
+			assertEquals(solver.getRoot().getTricksTaken(Player.matchPair(leader)), TwoTrickEnding
+					.leaderTricks(position));
+			assertEquals(leader, position.getNextToPlay());
+			assertEquals(0, position.getTricksPlayed());
+			for (int seat = 0; seat < 4; seat++) {
+				assertEquals(new Position(deal).getHand(seat), position.getHand(seat));
+			}
+		}
+	}
+
+}
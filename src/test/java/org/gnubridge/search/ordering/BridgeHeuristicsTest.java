@@ -0,0 +1,74 @@
+package org.gnubridge.search.ordering;
+
+import junit.framework.TestCase;
+
+import org.gnubridge.core.Card;
+import org.gnubridge.core.Deal;
+import org.gnubridge.core.Direction;
+import org.gnubridge.core.Hand;
+import org.gnubridge.core.deck.Ace;
+import org.gnubridge.core.deck.Four;
+import org.gnubridge.core.deck.Jack;
+import org.gnubridge.core.deck.King;
+import org.gnubridge.core.deck.NoTrump;
+import org.gnubridge.core.deck.Queen;
+import org.gnubridge.core.deck.Spades;
+import org.gnubridge.core.deck.Ten;
+import org.gnubridge.core.deck.Three;
+import org.gnubridge.core.deck.Two;
+import org.gnubridge.search.Position;
+
+public class BridgeHeuristicsTest extends TestCase {
+
+	private final BridgeHeuristics heuristics = new BridgeHeuristics();
+
+	private Deal deal;
+
+	@Override
+	protected void setUp() {
+		deal = new Deal(NoTrump.i());
+		deal.getWest().init(new Hand("J,2", "", "", ""));
+		deal.getNorth().init(new Hand("A,3", "", "", ""));
+		deal.getEast().init(new Hand("K,10", "", "", ""));
+		deal.getSouth().init(new Hand("Q,4", "", "", ""));
+		deal.setNextToPlay(Direction.WEST_DEPRECATED);
+	}
+
+	public void testCashTopCardOnLead() {
+		deal.setNextToPlay(Direction.NORTH_DEPRECATED);
+		assertPreferred(Ace.of(Spades.i()), Three.of(Spades.i()));
+	}
+
+	public void testLeadLowWithoutTopCard() {
+		assertPreferred(Two.of(Spades.i()), Jack.of(Spades.i()));
+	}
+
+	public void testSecondHandLow() {
+		deal.play(Two.of(Spades.i()));
+		assertPreferred(Three.of(Spades.i()), Ace.of(Spades.i()));
+	}
+
+	public void testCoverAnHonour() {
+		deal.play(Jack.of(Spades.i()));
+		assertPreferred(Ace.of(Spades.i()), Three.of(Spades.i()));
+	}
+
+	public void testWinTrickCheaply() {
+		deal.play(Two.of(Spades.i()));
+		deal.play(Three.of(Spades.i()));
+		assertPreferred(Ten.of(Spades.i()), King.of(Spades.i()));
+	}
+
+	public void testPlayLowWhenPartnerWins() {
+		deal.play(Jack.of(Spades.i()));
+		deal.play(Ace.of(Spades.i()));
+		deal.play(King.of(Spades.i()));
+		assertPreferred(Four.of(Spades.i()), Queen.of(Spades.i()));
+	}
+
+	private void assertPreferred(Card better, Card worse) {
+		Position position = new Position(deal);
+		assertTrue(better + " should come before " + worse, heuristics.score(position, better.getIndex(), 0) > heuristics
+				.score(position, worse.getIndex(), 0));
+	}
+}
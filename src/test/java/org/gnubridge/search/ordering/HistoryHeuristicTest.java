@@ -0,0 +1,24 @@
+package org.gnubridge.search.ordering;
+
+import junit.framework.TestCase;
+
+public class HistoryHeuristicTest extends TestCase {
+
+	public void testHistoryFavoursCutoffsNearRoot() {
+		HistoryHeuristic history = new HistoryHeuristic();
+		history.cutoff(5, 40);
+		history.cutoff(6, 2);
+		assertTrue(history.score(null, 6, 0) > history.score(null, 5, 0));
+		assertTrue(history.score(null, 6, 0) <= HistoryHeuristic.MAX_SCORE);
+	}
+
+	public void testCopyForAnotherThreadKeepsCountsApart() {
+		HistoryHeuristic history = new HistoryHeuristic();
+		history.cutoff(5, 40);
+		MoveOrdering copy = history.forAnotherThread();
+		copy.cutoff(6, 40);
+		assertEquals(history.score(null, 5, 0), copy.score(null, 5, 0));
+		assertEquals(0, history.score(null, 6, 0));
+		assertTrue(copy.score(null, 6, 0) > 0);
+	}
+}
@@ -0,0 +1,45 @@
+package org.gnubridge.search.ordering;
+
+import junit.framework.TestCase;
+
+public class KillerMovesTest extends TestCase {
+
+	public void testNoKillersAtStart() {
+		assertEquals(0, new KillerMoves().score(null, 5, 3));
+	}
+
+	public void testKillerOnlyAppliesAtItsDepth() {
+		KillerMoves killers = new KillerMoves();
+		killers.cutoff(5, 3);
+		assertEquals(KillerMoves.FIRST_KILLER_SCORE, killers.score(null, 5, 3));
+		assertEquals(0, killers.score(null, 5, 4));
+	}
+
+	public void testKeepsTwoMostRecentKillers() {
+		KillerMoves killers = new KillerMoves();
+		killers.cutoff(5, 3);
+		killers.cutoff(6, 3);
+		killers.cutoff(7, 3);
+		assertEquals(KillerMoves.FIRST_KILLER_SCORE, killers.score(null, 7, 3));
+		assertEquals(KillerMoves.SECOND_KILLER_SCORE, killers.score(null, 6, 3));
+		assertEquals(0, killers.score(null, 5, 3));
+	}
+
+	public void testRepeatedKillerDoesNotEvictOther() {
+		KillerMoves killers = new KillerMoves();
+		killers.cutoff(5, 3);
+		killers.cutoff(6, 3);
+		killers.cutoff(6, 3);
+		assertEquals(KillerMoves.SECOND_KILLER_SCORE, killers.score(null, 5, 3));
+	}
+
+	public void testCopyForAnotherThreadKeepsKillersApart() {
+		KillerMoves killers = new KillerMoves();
+		killers.cutoff(5, 3);
+		MoveOrdering copy = killers.forAnotherThread();
+		copy.cutoff(6, 3);
+		assertEquals(KillerMoves.FIRST_KILLER_SCORE, killers.score(null, 5, 3));
+		assertEquals(0, killers.score(null, 6, 3));
+		assertEquals(KillerMoves.SECOND_KILLER_SCORE, copy.score(null, 5, 3));
+	}
+}
@@ -312,6 +312,48 @@ public class AlphaBetaTest extends PruningTestCase {
 		assertFalse(node_1.isPruned());
 	}
 
+	public void testRootsChildTakesValueOfAlphaCutoffBelowIt() {
+		Node root = new Node(null, Direction.WEST_DEPRECATED);
+		Node node_0 = new Node(root, Direction.SOUTH_DEPRECATED);
+		node_0.setTricksTaken(Player.WEST_EAST, 1);
+		Node node_1 = new Node(root, Direction.SOUTH_DEPRECATED);
+		Node node_1_0 = new Node(node_1, Direction.NORTH_DEPRECATED);
+		Node node_1_1 = new Node(node_1, Direction.NORTH_DEPRECATED);
+		node_1_1.setTricksTaken(Player.WEST_EAST, 1);
+		node_1_1.setTricksTaken(Player.NORTH_SOUTH, 0);
+		Node node_1_0_0 = new Node(node_1_0, Direction.EAST_DEPRECATED);
+		@SuppressWarnings("unused")
+		Node node_1_0_1 = new Node(node_1_0, Direction.EAST_DEPRECATED);
+
+		node_1_0_0.setTricksTaken(Player.NORTH_SOUTH, 1);
+		node_1_0_0.setTricksTaken(Player.WEST_EAST, 0);
+		AlphaBeta ab = new AlphaBeta();
+		ab.prune(node_1_0_0);
+		node_1.calculateValueFromChild();
+		assertTrue(node_1_0.isAlphaPruned());
+		assertFalse(node_1.isPruned());
+		assertTrue(node_1.isRefutedRootMove());
+		assertEquals(0, node_1.getTricksTaken(Player.WEST_EAST));
+	}
+
+	public void testDoNotAlphaPruneBelowRootsChildAsGoodAsBestMove() {
+		Node root = new Node(null, Direction.WEST_DEPRECATED);
+		Node node_0 = new Node(root, Direction.SOUTH_DEPRECATED);
+		node_0.setTricksTaken(Player.WEST_EAST, 1);
+		Node node_1 = new Node(root, Direction.SOUTH_DEPRECATED);
+		Node node_1_0 = new Node(node_1, Direction.NORTH_DEPRECATED);
+		Node node_1_0_0 = new Node(node_1_0, Direction.EAST_DEPRECATED);
+		@SuppressWarnings("unused")
+		Node node_1_0_1 = new Node(node_1_0, Direction.EAST_DEPRECATED);
+
+		node_1_0_0.setTricksTaken(Player.NORTH_SOUTH, 0);
+		node_1_0_0.setTricksTaken(Player.WEST_EAST, 1);
+		AlphaBeta ab = new AlphaBeta();
+		ab.prune(node_1_0_0);
+		assertFalse(node_1_0.isPruned());
+		assertFalse(node_1.isRefutedRootMove());
+	}
+
 	@Override
 	protected void whenPruning(NodeWrapper node) {
 		AlphaBeta ab = new AlphaBeta();